@@ -0,0 +1,31 @@
+package com.javabackend.backend.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@Configuration
+public class JacksonConfiguration {
+
+    /**
+     * Support for Hibernate types in Jackson, uninitialized lazy associations are written as {@code null}
+     * instead of failing on the Hibernate proxy.
+     */
+    @Bean
+    public Hibernate6Module hibernate6Module() {
+        return new Hibernate6Module();
+    }
+
+    /**
+     * CBOR ({@code application/cbor}) request and response bodies for the clients asking for it in {@code Accept} or
+     * sending it as {@code Content-Type}, with the same modules and settings as JSON. It replaces the default CBOR
+     * converter at its place behind the JSON converter, so JSON stays the answer to {@code Accept: *}{@code /*}.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -0,0 +1,80 @@
+package com.javabackend.backend.config;
+
+import com.javabackend.backend.domain.id.TimeOrderedIdGenerator;
+import com.javabackend.backend.service.archive.ArchivedProtocol;
+import com.javabackend.backend.service.event.ProtocolChangedEvent;
+import com.javabackend.backend.service.upload.ProtocolUpload;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.Entity;
+import jakarta.persistence.MappedSuperclass;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reachability metadata for the native image ({@code mvn -Pnative package}) which the AOT processing of the
+ * application context can't derive on its own. Without a native image the hints are never read.
+ */
+@Configuration
+@ImportRuntimeHints(NativeConfiguration.ApplicationRuntimeHints.class)
+public class NativeConfiguration {
+
+    static class ApplicationRuntimeHints implements RuntimeHintsRegistrar {
+
+        private static final String DOMAIN_PACKAGE = "com.javabackend.backend.domain";
+
+        private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            List<Class<?>> entities = domainTypes(classLoader);
+            // Hibernate reads and writes the entity fields
+            for (Class<?> entity : entities) {
+                hints.reflection().registerType(entity, MemberCategory.values());
+            }
+            // written by Jackson outside of the controller return types, e.g. the NDJSON lists, the feed events and the
+            // stored upload results and archived protocols, and introspected by the sparse fieldsets
+            List<Class<?>> bound = new ArrayList<>(entities);
+            bound.add(ArchivedProtocol.class);
+            bound.add(ProtocolChangedEvent.class);
+            bound.add(ProtocolUpload.class);
+            bound.add(ProtocolUpload.Result.class);
+            bindingHints.registerReflectionHints(hints.reflection(), bound.toArray(Class<?>[]::new));
+
+            // created by Hibernate by class and name
+            hints.reflection().registerType(TimeOrderedIdGenerator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            hints
+                .reflection()
+                .registerType(
+                    TypeReference.of("com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider"),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS
+                );
+            // bounds of the second level caches, read by the Caffeine JCache provider
+            hints.resources().registerPattern("application.conf");
+        }
+
+        private static List<Class<?>> domainTypes(ClassLoader classLoader) {
+            ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+            scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+            scanner.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
+            scanner.addIncludeFilter(new AnnotationTypeFilter(Embeddable.class));
+            scanner.addIncludeFilter(new AnnotationTypeFilter(MappedSuperclass.class));
+            return scanner
+                .findCandidateComponents(DOMAIN_PACKAGE)
+                .stream()
+                .<Class<?>>map(definition -> ClassUtils.resolveClassName(definition.getBeanClassName(), classLoader))
+                .toList();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.javabackend.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request budgets of the {@code /api} endpoints, per user or, without session, per client address.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "application.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * The budget of the requests not matching any of {@link #budgets}.
+     */
+    private Budget defaultBudget = new Budget("default", null, "/api/**", 50, 100);
+
+    /**
+     * Budgets of single endpoints, the first matching one applies.
+     */
+    private List<Budget> budgets = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Budget getDefaultBudget() {
+        return defaultBudget;
+    }
+
+    public void setDefaultBudget(Budget defaultBudget) {
+        this.defaultBudget = defaultBudget;
+    }
+
+    public List<Budget> getBudgets() {
+        return budgets;
+    }
+
+    public void setBudgets(List<Budget> budgets) {
+        this.budgets = budgets;
+    }
+
+    /**
+     * @param name               identifies the budget, every user has one bucket per budget.
+     * @param method             the HTTP method, {@code null} for all methods.
+     * @param pattern            the path pattern, e.g. {@code /api/protocols/{id}}.
+     * @param requestsPerSecond  the sustained rate.
+     * @param burst              the number of requests allowed at once after a pause.
+     */
+    public record Budget(String name, String method, String pattern, double requestsPerSecond, int burst) {}
+}
@@ -0,0 +1,87 @@
+package com.javabackend.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends the read-only transactions of the GET endpoints to a read replica.
+ * <p>
+ * Only active when {@code spring.datasource.replica.url} is set, otherwise the auto-configured data source is used
+ * unchanged. Replication is asynchronous, a GET right after a write may not see the write yet. What the read-only
+ * transactions load is not put into the second level cache, see {@link ReadReplicaJpaDialect}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.datasource.replica", name = "url")
+public class ReadReplicaConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+        DataSourceProperties properties,
+        @Value("${spring.datasource.replica.url}") String url,
+        @Value("${spring.datasource.replica.username:}") String username,
+        @Value("${spring.datasource.replica.password:}") String password
+    ) {
+        HikariDataSource dataSource = DataSourceBuilder
+            .create()
+            .type(HikariDataSource.class)
+            .url(url)
+            .username(username.isEmpty() ? properties.determineUsername() : username)
+            .password(password.isEmpty() ? properties.determinePassword() : password)
+            .build();
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+        @Qualifier("primaryDataSource") DataSource primaryDataSource,
+        @Qualifier("replicaDataSource") DataSource replicaDataSource
+    ) {
+        ReadReplicaRoutingDataSource routingDataSource = new ReadReplicaRoutingDataSource();
+        routingDataSource.setTargetDataSources(
+            Map.<Object, Object>of(ReadReplicaRoutingDataSource.Route.PRIMARY, primaryDataSource, ReadReplicaRoutingDataSource.Route.REPLICA, replicaDataSource)
+        );
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Sets the {@link ReadReplicaJpaDialect} on the entity manager factory before it takes the one of the vendor
+     * adapter, the transaction manager uses the dialect of the factory.
+     */
+    @Bean
+    public static BeanPostProcessor readReplicaJpaDialectPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractEntityManagerFactoryBean entityManagerFactoryBean) {
+                    entityManagerFactoryBean.setJpaDialect(new ReadReplicaJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.javabackend.backend.config;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+import java.sql.SQLException;
+
+/**
+ * Keeps the sessions of read-only transactions, which read from the read replica, from putting the entities they load
+ * into the second level cache.
+ * <p>
+ * The cache is shared with the writers on the primary. An entity loaded from a replica which hasn't caught up with a
+ * write yet would be served from the cache until it expires. The read-only sessions still read from the cache, it is
+ * filled by the sessions on the primary.
+ * <p>
+ * The JPA store mode is set rather than the Hibernate {@code CacheMode}, {@code find} derives the cache mode of its
+ * load from the store mode property and would otherwise put the entity.
+ */
+public class ReadReplicaJpaDialect extends HibernateJpaDialect {
+
+    private record ReadOnlyTransactionData(EntityManager entityManager, Object storeMode, Object transactionData) {}
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+        throws PersistenceException, SQLException, TransactionException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly()) {
+            return transactionData;
+        }
+        Object storeMode = entityManager.getProperties().getOrDefault(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, CacheStoreMode.USE);
+        entityManager.setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        return new ReadOnlyTransactionData(entityManager, storeMode, transactionData);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReadOnlyTransactionData readOnly) {
+            readOnly.entityManager().setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, readOnly.storeMode());
+            super.cleanupTransaction(readOnly.transactionData());
+        } else {
+            super.cleanupTransaction(transactionData);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.javabackend.backend.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes connections of read-only transactions to the read replica and everything else to the primary database.
+ * <p>
+ * Needs to be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, the
+ * read-only flag of the transaction is only known after the transaction manager asked for the connection.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA,
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.REPLICA : Route.PRIMARY;
+    }
+}
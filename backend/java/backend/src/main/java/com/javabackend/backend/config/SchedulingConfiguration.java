@@ -0,0 +1,11 @@
+package com.javabackend.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the {@code @Scheduled} background jobs, e.g. the expiry and write batches of the session store.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {}
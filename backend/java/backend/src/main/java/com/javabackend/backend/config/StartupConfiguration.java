@@ -0,0 +1,28 @@
+package com.javabackend.backend.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Lazy initialization of the {@code fast-startup} profile. Scheduled methods are only registered when their bean is
+ * created, so the beans with background jobs, e.g. the session expiry and write batches, are still created eagerly.
+ */
+@Configuration
+@Profile("fast-startup")
+public class StartupConfiguration {
+
+    @Bean
+    public static LazyInitializationExcludeFilter scheduledBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) ->
+            !MethodIntrospector
+                .selectMethods(beanType, (MethodIntrospector.MetadataLookup<Boolean>) method ->
+                    AnnotatedElementUtils.hasAnnotation(method, Scheduled.class) ? Boolean.TRUE : null
+                )
+                .isEmpty();
+    }
+}
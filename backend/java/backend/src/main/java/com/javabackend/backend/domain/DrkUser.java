@@ -1,6 +1,7 @@
 package com.javabackend.backend.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
@@ -27,6 +28,10 @@ public class DrkUser implements Serializable {
     @Column(name = "id")
     private Long id;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @Column(name = "user_name")
     private String userName;
 
@@ -39,7 +44,12 @@ public class DrkUser implements Serializable {
     @Column(name = "email")
     private String email;
 
-    @Column(name = "password")
+    /**
+     * The encoded password, set by {@code POST /api/drk-users} and {@code PUT /api/drk-users/:id/password} only and
+     * never read back.
+     */
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    @Column(name = "password", updatable = false)
     private String password;
 
     @Column(name = "last_password_change")
@@ -52,12 +62,10 @@ public class DrkUser implements Serializable {
     private Instant createdOrEdited;
 
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "drkUser")
-    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JsonIgnoreProperties(value = {"drkUser", "protocol"}, allowSetters = true)
     private Set<AdditionalUser> additionalUsers = new HashSet<>();
 
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "drkUser")
-    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JsonIgnoreProperties(
             value = {"protocolContent", "protocolPdfFile", "additionalUsers", "drkUser", "organization"},
             allowSetters = true
@@ -65,7 +73,6 @@ public class DrkUser implements Serializable {
     private Set<Protocol> protocols = new HashSet<>();
 
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "drkUser")
-    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JsonIgnoreProperties(value = {"drkUser"}, allowSetters = true)
     private Set<UserSessions> userSessions = new HashSet<>();
 
@@ -91,6 +98,19 @@ public class DrkUser implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public DrkUser version(Long version) {
+        this.setVersion(version);
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getUserName() {
         return this.userName;
     }
@@ -354,11 +374,11 @@ public class DrkUser implements Serializable {
     public String toString() {
         return "DrkUser{" +
                 "id=" + getId() +
+            ", version=" + getVersion() +
                 ", userName='" + getUserName() + "'" +
                 ", firstName='" + getFirstName() + "'" +
                 ", lastName='" + getLastName() + "'" +
                 ", email='" + getEmail() + "'" +
-                ", password='" + getPassword() + "'" +
                 ", lastPasswordChange='" + getLastPasswordChange() + "'" +
                 ", passwordChangeRequired='" + getPasswordChangeRequired() + "'" +
                 ", createdOrEdited='" + getCreatedOrEdited() + "'" +
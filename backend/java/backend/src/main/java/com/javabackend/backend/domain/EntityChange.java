@@ -0,0 +1,177 @@
+package com.javabackend.backend.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * The last change of a synchronized entity. A new change of the same entity updates the row and clears its sequence
+ * number, the committed rows are numbered afterwards in commit order, see the ChangeLog. The organization is the one of
+ * the entity at its last change which knew it, so a deletion keeps the organization of the deleted entity.
+ */
+@Entity
+@Table(
+    name = "entity_change",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "ux_entity_change_entity", columnNames = { "entity_type", "entity_id" }),
+        @UniqueConstraint(name = "ux_entity_change_sequence_number", columnNames = "sequence_number"),
+    }
+)
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class EntityChange implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum EntityType {
+        PROTOCOL,
+        PROTOCOL_CONTENT,
+        ADDITIONAL_USER,
+        PROTOCOL_TEMPLATE,
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "entityChangeSequenceGenerator")
+    @SequenceGenerator(name = "entityChangeSequenceGenerator", sequenceName = "entity_change_sequence", allocationSize = 1)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "sequence_number")
+    private Long sequenceNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 32)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "deleted", nullable = false)
+    private Boolean deleted;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    @Column(name = "organization_id")
+    private Long organizationId;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public EntityChange id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSequenceNumber() {
+        return this.sequenceNumber;
+    }
+
+    public EntityChange sequenceNumber(Long sequenceNumber) {
+        this.setSequenceNumber(sequenceNumber);
+        return this;
+    }
+
+    public void setSequenceNumber(Long sequenceNumber) {
+        this.sequenceNumber = sequenceNumber;
+    }
+
+    public EntityType getEntityType() {
+        return this.entityType;
+    }
+
+    public EntityChange entityType(EntityType entityType) {
+        this.setEntityType(entityType);
+        return this;
+    }
+
+    public void setEntityType(EntityType entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return this.entityId;
+    }
+
+    public EntityChange entityId(Long entityId) {
+        this.setEntityId(entityId);
+        return this;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public Boolean getDeleted() {
+        return this.deleted;
+    }
+
+    public EntityChange deleted(Boolean deleted) {
+        this.setDeleted(deleted);
+        return this;
+    }
+
+    public void setDeleted(Boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    public Instant getChangedAt() {
+        return this.changedAt;
+    }
+
+    public EntityChange changedAt(Instant changedAt) {
+        this.setChangedAt(changedAt);
+        return this;
+    }
+
+    public void setChangedAt(Instant changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    public Long getOrganizationId() {
+        return this.organizationId;
+    }
+
+    public EntityChange organizationId(Long organizationId) {
+        this.setOrganizationId(organizationId);
+        return this;
+    }
+
+    public void setOrganizationId(Long organizationId) {
+        this.organizationId = organizationId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EntityChange)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((EntityChange) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "EntityChange{" +
+            "id=" + getId() +
+            ", sequenceNumber=" + getSequenceNumber() +
+            ", entityType='" + getEntityType() + "'" +
+            ", entityId=" + getEntityId() +
+            ", deleted='" + getDeleted() + "'" +
+            ", changedAt='" + getChangedAt() + "'" +
+            ", organizationId=" + getOrganizationId() +
+            "}";
+    }
+}
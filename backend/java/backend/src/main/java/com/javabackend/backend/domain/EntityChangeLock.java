@@ -0,0 +1,57 @@
+package com.javabackend.backend.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+
+/**
+ * The single row locked while the committed {@link EntityChange} rows are numbered. Only one transaction numbers at a
+ * time, so the numbers become visible in increasing order.
+ */
+@Entity
+@Table(name = "entity_change_lock")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class EntityChangeLock implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public EntityChangeLock id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EntityChangeLock)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((EntityChangeLock) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "EntityChangeLock{" +
+            "id=" + getId() +
+            "}";
+    }
+}
@@ -0,0 +1,92 @@
+package com.javabackend.backend.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A node id of the time-ordered ids, leased by the application instance {@code holder} until it has not been renewed
+ * for the lease time.
+ */
+@Entity
+@Table(name = "id_node")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class IdNode implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "holder", length = 36, nullable = false)
+    private String holder;
+
+    @Column(name = "renewed_at", nullable = false)
+    private Instant renewedAt;
+
+    public Integer getId() {
+        return this.id;
+    }
+
+    public IdNode id(Integer id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getHolder() {
+        return this.holder;
+    }
+
+    public IdNode holder(String holder) {
+        this.setHolder(holder);
+        return this;
+    }
+
+    public void setHolder(String holder) {
+        this.holder = holder;
+    }
+
+    public Instant getRenewedAt() {
+        return this.renewedAt;
+    }
+
+    public IdNode renewedAt(Instant renewedAt) {
+        this.setRenewedAt(renewedAt);
+        return this;
+    }
+
+    public void setRenewedAt(Instant renewedAt) {
+        this.renewedAt = renewedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IdNode)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((IdNode) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "IdNode{" +
+            "id=" + getId() +
+            ", holder='" + getHolder() + "'" +
+            ", renewedAt='" + getRenewedAt() + "'" +
+            "}";
+    }
+}
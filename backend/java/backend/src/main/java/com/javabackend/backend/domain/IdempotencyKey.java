@@ -0,0 +1,90 @@
+package com.javabackend.backend.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A client idempotency key with the response of the request it was first used for.
+ */
+@Entity
+@Table(name = "idempotency_key", indexes = @Index(name = "ix_idempotency_key_created_at", columnList = "created_at"))
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class IdempotencyKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String key;
+
+    @Column(name = "response", nullable = false, columnDefinition = "text")
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public String getKey() {
+        return this.key;
+    }
+
+    public IdempotencyKey key(String key) {
+        this.setKey(key);
+        return this;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getResponse() {
+        return this.response;
+    }
+
+    public IdempotencyKey response(String response) {
+        this.setResponse(response);
+        return this;
+    }
+
+    public void setResponse(String response) {
+        this.response = response;
+    }
+
+    public Instant getCreatedAt() {
+        return this.createdAt;
+    }
+
+    public IdempotencyKey createdAt(Instant createdAt) {
+        this.setCreatedAt(createdAt);
+        return this;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IdempotencyKey)) {
+            return false;
+        }
+        return getKey() != null && getKey().equals(((IdempotencyKey) o).getKey());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotencyKey{" +
+            "key='" + getKey() + "'" +
+            ", createdAt='" + getCreatedAt() + "'" +
+            "}";
+    }
+}
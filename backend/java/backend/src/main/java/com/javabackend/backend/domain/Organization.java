@@ -1,5 +1,6 @@
 package com.javabackend.backend.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import org.hibernate.annotations.Cache;
@@ -14,7 +15,7 @@ import java.util.Set;
  * A Organization.
  */
 @Entity
-@Table(name = "organization")
+@Table(name = "organization", indexes = @Index(name = "ix_organization_tree", columnList = "tree_left, tree_right"))
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class Organization implements Serializable {
@@ -27,9 +28,27 @@ public class Organization implements Serializable {
     @Column(name = "id")
     private Long id;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @Column(name = "parent_id")
     private Long parentId;
 
+    /**
+     * Pre-order number of the organization in the tree spanned by {@link #parentId}, maintained by the OrganizationTree.
+     */
+    @JsonIgnore
+    @Column(name = "tree_left", insertable = false, updatable = false)
+    private Long treeLeft;
+
+    /**
+     * Post-order number, all descendants have a {@link #treeLeft} between the own tree left and tree right.
+     */
+    @JsonIgnore
+    @Column(name = "tree_right", insertable = false, updatable = false)
+    private Long treeRight;
+
     @Column(name = "name")
     private String name;
 
@@ -52,7 +71,6 @@ public class Organization implements Serializable {
     private Instant createdOrEdited;
 
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "organization")
-    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JsonIgnoreProperties(
             value = {"protocolContent", "protocolPdfFile", "additionalUsers", "drkUser", "organization"},
             allowSetters = true
@@ -87,6 +105,27 @@ public class Organization implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Organization version(Long version) {
+        this.setVersion(version);
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getTreeLeft() {
+        return this.treeLeft;
+    }
+
+    public Long getTreeRight() {
+        return this.treeRight;
+    }
+
     public Long getParentId() {
         return this.parentId;
     }
@@ -335,6 +374,7 @@ public class Organization implements Serializable {
     public String toString() {
         return "Organization{" +
                 "id=" + getId() +
+            ", version=" + getVersion() +
                 ", parentId=" + getParentId() +
                 ", name='" + getName() + "'" +
                 ", address='" + getAddress() + "'" +
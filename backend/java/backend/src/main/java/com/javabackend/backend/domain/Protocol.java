@@ -1,9 +1,8 @@
 package com.javabackend.backend.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.javabackend.backend.domain.id.TimeOrderedGeneratedValue;
 import jakarta.persistence.*;
-import org.hibernate.annotations.Cache;
-import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.time.Instant;
@@ -15,18 +14,20 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "protocol")
-@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class Protocol implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator")
+    @TimeOrderedGeneratedValue
     @Column(name = "id")
     private Long id;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @Column(name = "is_draft")
     private Boolean isDraft;
 
@@ -53,7 +54,6 @@ public class Protocol implements Serializable {
     private ProtocolPdfFile protocolPdfFile;
 
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "protocol")
-    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JsonIgnoreProperties(value = { "drkUser", "protocol" }, allowSetters = true)
     private Set<AdditionalUser> additionalUsers = new HashSet<>();
 
@@ -78,6 +78,19 @@ public class Protocol implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Protocol version(Long version) {
+        this.setVersion(version);
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Boolean getIsDraft() {
         return this.isDraft;
     }
@@ -247,6 +260,7 @@ public class Protocol implements Serializable {
     public String toString() {
         return "Protocol{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", isDraft='" + getIsDraft() + "'" +
             ", reviewComment='" + getReviewComment() + "'" +
             ", isClosed='" + getIsClosed() + "'" +
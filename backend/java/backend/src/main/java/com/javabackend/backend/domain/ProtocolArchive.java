@@ -0,0 +1,186 @@
+package com.javabackend.backend.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A closed protocol moved out of the live tables, with its content, PDF and additional users as one compressed
+ * document. The id is the id of the protocol, the ids of the content and the PDF are kept for their lookups.
+ */
+@Entity
+@Table(
+    name = "protocol_archive",
+    indexes = {
+        @Index(name = "ix_protocol_archive_content", columnList = "protocol_content_id"),
+        @Index(name = "ix_protocol_archive_pdf_file", columnList = "protocol_pdf_file_id"),
+    }
+)
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class ProtocolArchive implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "organization_id")
+    private Long organizationId;
+
+    @Column(name = "protocol_content_id")
+    private Long protocolContentId;
+
+    @Column(name = "protocol_pdf_file_id")
+    private Long protocolPdfFileId;
+
+    @Column(name = "created_or_edited")
+    private Instant createdOrEdited;
+
+    @Column(name = "closed_at")
+    private Instant closedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+
+    /**
+     * The gzip compressed JSON of the archived protocol, {@code bytea} is understood by PostgreSQL and by H2.
+     */
+    @Column(name = "data", nullable = false, columnDefinition = "bytea")
+    private byte[] data;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public ProtocolArchive id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getOrganizationId() {
+        return this.organizationId;
+    }
+
+    public ProtocolArchive organizationId(Long organizationId) {
+        this.setOrganizationId(organizationId);
+        return this;
+    }
+
+    public void setOrganizationId(Long organizationId) {
+        this.organizationId = organizationId;
+    }
+
+    public Long getProtocolContentId() {
+        return this.protocolContentId;
+    }
+
+    public ProtocolArchive protocolContentId(Long protocolContentId) {
+        this.setProtocolContentId(protocolContentId);
+        return this;
+    }
+
+    public void setProtocolContentId(Long protocolContentId) {
+        this.protocolContentId = protocolContentId;
+    }
+
+    public Long getProtocolPdfFileId() {
+        return this.protocolPdfFileId;
+    }
+
+    public ProtocolArchive protocolPdfFileId(Long protocolPdfFileId) {
+        this.setProtocolPdfFileId(protocolPdfFileId);
+        return this;
+    }
+
+    public void setProtocolPdfFileId(Long protocolPdfFileId) {
+        this.protocolPdfFileId = protocolPdfFileId;
+    }
+
+    public Instant getCreatedOrEdited() {
+        return this.createdOrEdited;
+    }
+
+    public ProtocolArchive createdOrEdited(Instant createdOrEdited) {
+        this.setCreatedOrEdited(createdOrEdited);
+        return this;
+    }
+
+    public void setCreatedOrEdited(Instant createdOrEdited) {
+        this.createdOrEdited = createdOrEdited;
+    }
+
+    public Instant getClosedAt() {
+        return this.closedAt;
+    }
+
+    public ProtocolArchive closedAt(Instant closedAt) {
+        this.setClosedAt(closedAt);
+        return this;
+    }
+
+    public void setClosedAt(Instant closedAt) {
+        this.closedAt = closedAt;
+    }
+
+    public Instant getArchivedAt() {
+        return this.archivedAt;
+    }
+
+    public ProtocolArchive archivedAt(Instant archivedAt) {
+        this.setArchivedAt(archivedAt);
+        return this;
+    }
+
+    public void setArchivedAt(Instant archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+
+    public byte[] getData() {
+        return this.data;
+    }
+
+    public ProtocolArchive data(byte[] data) {
+        this.setData(data);
+        return this;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProtocolArchive)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((ProtocolArchive) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ProtocolArchive{" +
+            "id=" + getId() +
+            ", organizationId=" + getOrganizationId() +
+            ", protocolContentId=" + getProtocolContentId() +
+            ", protocolPdfFileId=" + getProtocolPdfFileId() +
+            ", createdOrEdited='" + getCreatedOrEdited() + "'" +
+            ", closedAt='" + getClosedAt() + "'" +
+            ", archivedAt='" + getArchivedAt() + "'" +
+            ", data=" + (getData() == null ? null : getData().length + " bytes") +
+            "}";
+    }
+}
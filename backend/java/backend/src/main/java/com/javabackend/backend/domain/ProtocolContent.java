@@ -1,9 +1,8 @@
 package com.javabackend.backend.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.javabackend.backend.domain.id.TimeOrderedGeneratedValue;
 import jakarta.persistence.*;
-import org.hibernate.annotations.Cache;
-import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 
@@ -12,18 +11,20 @@ import java.io.Serializable;
  */
 @Entity
 @Table(name = "protocol_content")
-@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class ProtocolContent implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator")
+    @TimeOrderedGeneratedValue
     @Column(name = "id")
     private Long id;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @Column(name = "content")
     private String content;
 
@@ -47,6 +48,19 @@ public class ProtocolContent implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public ProtocolContent version(Long version) {
+        this.setVersion(version);
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getContent() {
         return this.content;
     }
@@ -99,6 +113,7 @@ public class ProtocolContent implements Serializable {
     public String toString() {
         return "ProtocolContent{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", content='" + getContent() + "'" +
             "}";
     }
@@ -1,9 +1,8 @@
 package com.javabackend.backend.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.javabackend.backend.domain.id.TimeOrderedGeneratedValue;
 import jakarta.persistence.*;
-import org.hibernate.annotations.Cache;
-import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 
@@ -12,15 +11,13 @@ import java.io.Serializable;
  */
 @Entity
 @Table(name = "protocol_pdf_file")
-@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class ProtocolPdfFile implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator")
+    @TimeOrderedGeneratedValue
     @Column(name = "id")
     private Long id;
 
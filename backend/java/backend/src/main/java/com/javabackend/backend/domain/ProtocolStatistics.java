@@ -0,0 +1,148 @@
+package com.javabackend.backend.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Number of protocols per organization and day, split by state. Maintained incrementally by the protocol writes.
+ */
+@Entity
+@Table(
+    name = "protocol_statistics",
+    uniqueConstraints = @UniqueConstraint(name = "ux_protocol_statistics_organization_day", columnNames = { "organization_id", "stat_day" }),
+    indexes = @Index(name = "ix_protocol_statistics_day", columnList = "stat_day")
+)
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class ProtocolStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "organization_id", nullable = false)
+    private Long organizationId;
+
+    @Column(name = "stat_day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "draft_count", nullable = false)
+    private Long draftCount = 0L;
+
+    @Column(name = "open_count", nullable = false)
+    private Long openCount = 0L;
+
+    @Column(name = "closed_count", nullable = false)
+    private Long closedCount = 0L;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public ProtocolStatistics id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getOrganizationId() {
+        return this.organizationId;
+    }
+
+    public ProtocolStatistics organizationId(Long organizationId) {
+        this.setOrganizationId(organizationId);
+        return this;
+    }
+
+    public void setOrganizationId(Long organizationId) {
+        this.organizationId = organizationId;
+    }
+
+    public LocalDate getDay() {
+        return this.day;
+    }
+
+    public ProtocolStatistics day(LocalDate day) {
+        this.setDay(day);
+        return this;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public Long getDraftCount() {
+        return this.draftCount;
+    }
+
+    public ProtocolStatistics draftCount(Long draftCount) {
+        this.setDraftCount(draftCount);
+        return this;
+    }
+
+    public void setDraftCount(Long draftCount) {
+        this.draftCount = draftCount;
+    }
+
+    public Long getOpenCount() {
+        return this.openCount;
+    }
+
+    public ProtocolStatistics openCount(Long openCount) {
+        this.setOpenCount(openCount);
+        return this;
+    }
+
+    public void setOpenCount(Long openCount) {
+        this.openCount = openCount;
+    }
+
+    public Long getClosedCount() {
+        return this.closedCount;
+    }
+
+    public ProtocolStatistics closedCount(Long closedCount) {
+        this.setClosedCount(closedCount);
+        return this;
+    }
+
+    public void setClosedCount(Long closedCount) {
+        this.closedCount = closedCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProtocolStatistics)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((ProtocolStatistics) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ProtocolStatistics{" +
+            "id=" + getId() +
+            ", organizationId=" + getOrganizationId() +
+            ", day='" + getDay() + "'" +
+            ", draftCount=" + getDraftCount() +
+            ", openCount=" + getOpenCount() +
+            ", closedCount=" + getClosedCount() +
+            "}";
+    }
+}
@@ -27,6 +27,10 @@ public class ProtocolTemplate implements Serializable {
     @Column(name = "id")
     private Long id;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @Column(name = "name")
     private String name;
 
@@ -57,6 +61,19 @@ public class ProtocolTemplate implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public ProtocolTemplate version(Long version) {
+        this.setVersion(version);
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return this.name;
     }
@@ -160,6 +177,7 @@ public class ProtocolTemplate implements Serializable {
     public String toString() {
         return "ProtocolTemplate{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", name='" + getName() + "'" +
             ", description='" + getDescription() + "'" +
             ", template='" + getTemplate() + "'" +
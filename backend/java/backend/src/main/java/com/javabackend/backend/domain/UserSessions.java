@@ -1,18 +1,17 @@
 package com.javabackend.backend.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
-import org.hibernate.annotations.Cache;
-import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
+import java.time.Instant;
 
 /**
  * A UserSessions.
  */
 @Entity
 @Table(name = "user_sessions")
-@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class UserSessions implements Serializable {
 
@@ -24,6 +23,16 @@ public class UserSessions implements Serializable {
     @Column(name = "id")
     private Long id;
 
+    /**
+     * The bearer token of the session, only handed out by {@code POST /api/user-sessions/open}.
+     */
+    @JsonIgnore
+    @Column(name = "token", unique = true)
+    private String token;
+
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnoreProperties(value = { "additionalUsers", "protocols", "userSessions", "userRoles", "organization" }, allowSetters = true)
     private DrkUser drkUser;
@@ -42,6 +51,32 @@ public class UserSessions implements Serializable {
         this.id = id;
     }
 
+    public String getToken() {
+        return this.token;
+    }
+
+    public UserSessions token(String token) {
+        this.setToken(token);
+        return this;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public Instant getExpiresAt() {
+        return this.expiresAt;
+    }
+
+    public UserSessions expiresAt(Instant expiresAt) {
+        this.setExpiresAt(expiresAt);
+        return this;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
     public DrkUser getDrkUser() {
         return this.drkUser;
     }
@@ -75,6 +110,7 @@ public class UserSessions implements Serializable {
     public String toString() {
         return "UserSessions{" +
             "id=" + getId() +
+            ", expiresAt='" + getExpiresAt() + "'" +
             "}";
     }
 }
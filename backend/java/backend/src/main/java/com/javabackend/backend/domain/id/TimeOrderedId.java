@@ -0,0 +1,135 @@
+package com.javabackend.backend.domain.id;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered ids which the server and offline clients create without coordination.
+ * <p>
+ * An id is a positive number of at most 53 bits, so it survives a JSON number in every client:
+ * <pre>
+ *  52                 13  12  11            0
+ * +---------------------+----+---------------+
+ * | milliseconds since  | by | node and      |
+ * | 2024-01-01 (40 bit) |    | sequence or   |
+ * |                     |    | random        |
+ * +---------------------+----+---------------+
+ * </pre>
+ * The server sets bit 12 to {@code 0}. The upper node bits of the low 12 bits hold the node id of the instance, see
+ * {@link #setNode(int, int)}, the rest counts up within a millisecond. The ids of an instance are strictly increasing,
+ * instances with distinct node ids never collide. Without a node id the whole 12 bits count, the ids are then unique
+ * within the instance only. Clients set bit 12 to {@code 1} and take 12 random bits, two clients only collide when
+ * they create an entity in the same millisecond with a chance of 1 in 4096, the insert then fails with a conflict and
+ * the client takes another id. Ids of the {@code sequence_generator} sequence are far below the ids of this scheme.
+ * New rows are appended at the end of the primary key index, like with the sequence.
+ */
+public final class TimeOrderedId {
+
+    public static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    /**
+     * At most 8 node bits, so an instance keeps at least 16 ids per millisecond.
+     */
+    public static final int MAX_NODE_BITS = 8;
+
+    private static final int TIME_SHIFT = 13;
+
+    private static final int LOW_BITS = 12;
+
+    private static final long CLIENT_BIT = 1L << LOW_BITS;
+
+    private static final long MAX_TIME = (1L << 40) - 1;
+
+    /**
+     * How far the clock of a client may be ahead of the server.
+     */
+    private static final long MAX_CLIENT_SKEW_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private static final Clock CLOCK = Clock.systemUTC();
+
+    private static final TimeOrderedId SERVER = new TimeOrderedId(CLOCK);
+
+    private final Clock clock;
+
+    private long lastTime = -1;
+
+    private long sequence;
+
+    private int sequenceBits = LOW_BITS;
+
+    private long node;
+
+    TimeOrderedId(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * @return a new server id, greater than all server ids returned before by this JVM.
+     */
+    public static long next() {
+        return SERVER.nextId();
+    }
+
+    /**
+     * Sets the node id of this JVM, {@code setNode(0, 0)} removes it.
+     *
+     * @param node     the node id, below {@code 2^nodeBits}.
+     * @param nodeBits the number of low bits reserved for the node id, at most {@link #MAX_NODE_BITS}.
+     */
+    public static void setNode(int node, int nodeBits) {
+        SERVER.node(node, nodeBits);
+    }
+
+    /**
+     * @return a new client id, as created by the offline clients.
+     */
+    public static long nextClientId() {
+        return (CLOCK.millis() - EPOCH_MILLIS) << TIME_SHIFT | CLIENT_BIT | ThreadLocalRandom.current().nextLong(CLIENT_BIT);
+    }
+
+    /**
+     * @return {@code true} if the id has been created by a client in the past or at most one day ahead.
+     */
+    public static boolean isClientId(Long id) {
+        if (id == null || id <= 0 || (id & CLIENT_BIT) == 0) {
+            return false;
+        }
+        long time = id >>> TIME_SHIFT;
+        return time <= MAX_TIME && time <= CLOCK.millis() - EPOCH_MILLIS + MAX_CLIENT_SKEW_MILLIS;
+    }
+
+    /**
+     * @return the creation time encoded in the id.
+     */
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli(EPOCH_MILLIS + (id >>> TIME_SHIFT));
+    }
+
+    synchronized long nextId() {
+        long time = Math.max(clock.millis() - EPOCH_MILLIS, lastTime);
+        if (time == lastTime) {
+            sequence++;
+            if (sequence >= 1L << sequenceBits) {
+                // the sequence of this millisecond is exhausted, borrow the next one instead of waiting for it
+                time++;
+                sequence = 0;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastTime = time;
+        return time << TIME_SHIFT | node << sequenceBits | sequence;
+    }
+
+    synchronized void node(int node, int nodeBits) {
+        if (nodeBits < 0 || nodeBits > MAX_NODE_BITS || node < 0 || node >= 1 << nodeBits) {
+            throw new IllegalArgumentException("Invalid node " + node + " of " + nodeBits + " bits");
+        }
+        this.sequenceBits = LOW_BITS - nodeBits;
+        this.node = node;
+        // continue in a fresh millisecond, so the ids stay increasing and distinct from the ones of the old layout
+        lastTime = Math.max(clock.millis() - EPOCH_MILLIS, lastTime) + 1;
+        sequence = -1;
+    }
+}
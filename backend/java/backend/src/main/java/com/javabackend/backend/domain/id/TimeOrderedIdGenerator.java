@@ -0,0 +1,16 @@
+package com.javabackend.backend.domain.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Hibernate generator of {@link TimeOrderedGeneratedValue}, keeps ids assigned by clients.
+ */
+public class TimeOrderedIdGenerator implements IdentifierGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        Object assigned = session.getEntityPersister(null, object).getIdentifier(object, session);
+        return assigned != null ? assigned : TimeOrderedId.next();
+    }
+}
@@ -0,0 +1,116 @@
+package com.javabackend.backend.filter;
+
+import com.javabackend.backend.config.RateLimitProperties;
+import com.javabackend.backend.service.ratelimit.RateLimiter;
+import com.javabackend.backend.service.session.Session;
+import com.javabackend.backend.service.session.SessionStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects requests to the REST controllers beyond the budget of the client with {@code 429 (Too Many Requests)} and a
+ * {@code Retry-After} header. Clients are users if the request carries a valid session token, client addresses
+ * otherwise. Behind a proxy the address is the one forwarded by the proxy, the {@code RemoteIpValve} of
+ * {@code server.forward-headers-strategy=native} sets it as the remote address before any filter runs, as long as the
+ * proxy is trusted.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private static final String API_PREFIX = "/api/";
+
+    private record CompiledBudget(String name, String method, PathPattern pattern, RateLimiter.Rate rate) {
+        static CompiledBudget of(RateLimitProperties.Budget budget) {
+            return new CompiledBudget(
+                budget.name(),
+                budget.method(),
+                PathPatternParser.defaultInstance.parse(budget.pattern()),
+                RateLimiter.Rate.of(budget.requestsPerSecond(), budget.burst())
+            );
+        }
+
+        boolean matches(String method, PathContainer path) {
+            return (this.method == null || this.method.equalsIgnoreCase(method)) && pattern.matches(path);
+        }
+    }
+
+    private final boolean enabled;
+
+    private final List<CompiledBudget> budgets;
+
+    private final CompiledBudget defaultBudget;
+
+    private final RateLimiter rateLimiter;
+
+    private final SessionStore sessionStore;
+
+    public RateLimitFilter(RateLimitProperties properties, RateLimiter rateLimiter, SessionStore sessionStore) {
+        this.enabled = properties.isEnabled();
+        this.budgets = properties.getBudgets().stream().map(CompiledBudget::of).toList();
+        this.defaultBudget = CompiledBudget.of(properties.getDefaultBudget());
+        this.rateLimiter = rateLimiter;
+        this.sessionStore = sessionStore;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(API_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        CompiledBudget budget = budgetOf(request);
+        String client = clientOf(request);
+        long waitNanos = rateLimiter.acquire(budget.name(), client, budget.rate());
+        if (waitNanos > 0) {
+            log.debug("Rate limit {} exceeded by {}", budget.name(), client);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private CompiledBudget budgetOf(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (CompiledBudget budget : budgets) {
+            if (budget.matches(request.getMethod(), path)) {
+                return budget;
+            }
+        }
+        return defaultBudget;
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String token = request.getHeader(SessionStore.TOKEN_HEADER);
+        if (token != null) {
+            Long drkUserId = sessionStore.find(token).map(Session::drkUserId).orElse(null);
+            if (drkUserId != null) {
+                return "user:" + drkUserId;
+            }
+        }
+        return "address:" + request.getRemoteAddr();
+    }
+}
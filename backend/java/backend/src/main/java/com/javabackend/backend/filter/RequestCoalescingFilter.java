@@ -0,0 +1,149 @@
+package com.javabackend.backend.filter;
+
+import com.javabackend.backend.service.coalescing.SingleFlight;
+import com.javabackend.backend.service.event.CachesInvalidatedEvent;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lets concurrent identical GET requests of the configured read endpoints share one execution.
+ * <p>
+ * The first request of a kind runs through the controller, its status, headers and serialized body are kept in one
+ * buffer. Identical requests arriving meanwhile wait and get a copy of that buffer, and successful responses are
+ * reused for a short window afterwards. Writes of the REST resources end the reuse of all responses, and requests
+ * arriving after a write don't wait for an execution started before it. Only endpoints whose response doesn't depend
+ * on the user may be configured.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class RequestCoalescingFilter extends OncePerRequestFilter {
+
+    private record RequestKey(String uri, String query, String accept) {}
+
+    private record BufferedResponse(int status, String contentType, Map<String, List<String>> headers, byte[] body) {}
+
+    private final List<PathPattern> paths;
+
+    private final SingleFlight<RequestKey, BufferedResponse> responses;
+
+    public RequestCoalescingFilter(
+        @Value("${application.coalescing.paths:}") List<String> paths,
+        @Value("${application.coalescing.reuse-window:PT0.5S}") Duration reuseWindow,
+        @Value("${application.coalescing.wait-timeout:PT10S}") Duration waitTimeout
+    ) {
+        this.paths = paths.stream().filter(path -> !path.isBlank()).map(PathPatternParser.defaultInstance::parse).toList();
+        this.responses = new SingleFlight<>(reuseWindow.toNanos(), waitTimeout.toNanos(), response -> response.status() == 200);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod()) || paths.isEmpty()) {
+            return true;
+        }
+        // streamed lists are unbounded, they must not be buffered
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE)) {
+            return true;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        return paths.stream().noneMatch(pattern -> pattern.matches(path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        RequestKey key = new RequestKey(request.getRequestURI(), request.getQueryString(), request.getHeader(HttpHeaders.ACCEPT));
+        boolean[] loaded = new boolean[1];
+        BufferedResponse buffered;
+        try {
+            buffered = responses.execute(
+                key,
+                () -> {
+                    loaded[0] = true;
+                    return load(request, response, filterChain);
+                }
+            );
+        } catch (ServletException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ServletException(e);
+        }
+        if (!loaded[0]) {
+            write(buffered, response);
+        }
+    }
+
+    /**
+     * Runs the request and buffers the response, which is also written to the own client.
+     */
+    private BufferedResponse load(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : wrapper.getHeaderNames()) {
+            // the length and type are set from the buffer
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) && !HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+                headers.put(name, new ArrayList<>(wrapper.getHeaders(name)));
+            }
+        }
+        BufferedResponse buffered = new BufferedResponse(
+            wrapper.getStatus(),
+            wrapper.getContentType(),
+            headers,
+            wrapper.getContentAsByteArray()
+        );
+        wrapper.copyBodyToResponse();
+        return buffered;
+    }
+
+    private static void write(BufferedResponse buffered, HttpServletResponse response) throws IOException {
+        response.setStatus(buffered.status());
+        buffered.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        if (buffered.contentType() != null) {
+            response.setContentType(buffered.contentType());
+        }
+        response.setContentLength(buffered.body().length);
+        response.getOutputStream().write(buffered.body());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        responses.clear();
+    }
+
+    @EventListener(CachesInvalidatedEvent.class)
+    public void onCachesInvalidated() {
+        responses.clear();
+    }
+
+    @Scheduled(fixedDelayString = "${application.coalescing.sweep-interval:PT1M}")
+    public void sweep() {
+        responses.evictExpired();
+    }
+}
@@ -2,10 +2,11 @@ package com.javabackend.backend.repository;
 
 import com.javabackend.backend.domain.DrkUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
 /**
  * Spring Data JPA repository for the DrkUser entity.
  */
 @Repository
-public interface DrkUserRepository extends JpaRepository<DrkUser, Long> {}
+public interface DrkUserRepository extends JpaRepository<DrkUser, Long>, JpaSpecificationExecutor<DrkUser> {}
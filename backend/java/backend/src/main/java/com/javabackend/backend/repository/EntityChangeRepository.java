@@ -0,0 +1,25 @@
+package com.javabackend.backend.repository;
+
+import com.javabackend.backend.domain.EntityChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data JPA repository for the EntityChange entity.
+ */
+@Repository
+public interface EntityChangeRepository extends JpaRepository<EntityChange, Long> {
+    Optional<EntityChange> findOneByEntityTypeAndEntityId(EntityChange.EntityType entityType, Long entityId);
+
+    /**
+     * Range scan of the sequence number index, {@code after} exclusive.
+     */
+    @Query("select c from EntityChange c where c.sequenceNumber > :after order by c.sequenceNumber")
+    List<EntityChange> findAllAfter(@Param("after") long after, Pageable pageable);
+}
@@ -0,0 +1,25 @@
+package com.javabackend.backend.repository;
+
+import com.javabackend.backend.domain.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the IdempotencyKey entity.
+ */
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+    @Query("select k from IdempotencyKey k where k.key in :keys")
+    List<IdempotencyKey> findAllByKeys(@Param("keys") Collection<String> keys);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :before")
+    int deleteAllCreatedBefore(@Param("before") Instant before);
+}
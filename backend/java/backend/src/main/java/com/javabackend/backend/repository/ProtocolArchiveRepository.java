@@ -0,0 +1,17 @@
+package com.javabackend.backend.repository;
+
+import com.javabackend.backend.domain.ProtocolArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Spring Data JPA repository for the ProtocolArchive entity.
+ */
+@Repository
+public interface ProtocolArchiveRepository extends JpaRepository<ProtocolArchive, Long> {
+    Optional<ProtocolArchive> findOneByProtocolContentId(Long protocolContentId);
+
+    Optional<ProtocolArchive> findOneByProtocolPdfFileId(Long protocolPdfFileId);
+}
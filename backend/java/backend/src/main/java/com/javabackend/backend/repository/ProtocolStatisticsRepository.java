@@ -0,0 +1,51 @@
+package com.javabackend.backend.repository;
+
+import com.javabackend.backend.domain.ProtocolStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the ProtocolStatistics entity.
+ */
+@Repository
+public interface ProtocolStatisticsRepository extends JpaRepository<ProtocolStatistics, Long> {
+    @Modifying
+    @Query(
+        "update ProtocolStatistics s set s.draftCount = s.draftCount + :drafts, s.openCount = s.openCount + :open, " +
+        "s.closedCount = s.closedCount + :closed where s.organizationId = :organizationId and s.day = :day"
+    )
+    int increment(
+        @Param("organizationId") Long organizationId,
+        @Param("day") LocalDate day,
+        @Param("drafts") long drafts,
+        @Param("open") long open,
+        @Param("closed") long closed
+    );
+
+    @Query(
+        "select s from ProtocolStatistics s where (:organizationId is null or s.organizationId = :organizationId) " +
+        "and s.day between :from and :to order by s.organizationId, s.day"
+    )
+    List<ProtocolStatistics> findAllBetween(
+        @Param("organizationId") Long organizationId,
+        @Param("from") LocalDate from,
+        @Param("to") LocalDate to
+    );
+
+    @Query(
+        "select s from ProtocolStatistics s, Organization o where o.id = s.organizationId " +
+        "and o.treeLeft between :treeLeft and :treeRight and s.day between :from and :to order by s.organizationId, s.day"
+    )
+    List<ProtocolStatistics> findAllInSubtreeBetween(
+        @Param("treeLeft") long treeLeft,
+        @Param("treeRight") long treeRight,
+        @Param("from") LocalDate from,
+        @Param("to") LocalDate to
+    );
+}
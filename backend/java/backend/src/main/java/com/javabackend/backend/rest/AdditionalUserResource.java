@@ -1,26 +1,44 @@
 package com.javabackend.backend.rest;
 
+import com.javabackend.backend.service.loading.EntityMultiLoader;
+import com.javabackend.backend.service.paging.KeysetPage;
+import com.javabackend.backend.service.paging.KeysetPaging;
 import com.javabackend.backend.util.HeaderUtil;
+import com.javabackend.backend.util.PaginationUtil;
 import com.javabackend.backend.util.ResponseUtil;
 import com.javabackend.backend.domain.AdditionalUser;
+import com.javabackend.backend.domain.id.TimeOrderedId;
 import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.javabackend.backend.repository.AdditionalUserRepository;
+import com.javabackend.backend.service.EntityUpdateService;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import com.javabackend.backend.service.projection.FieldProjection;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
 /**
  * REST controller for managing {@link AdditionalUser}.
  */
+@RestController
 @RequestMapping("/api/additional-users")
 @Transactional
 public class AdditionalUserResource {
@@ -34,24 +52,53 @@ public class AdditionalUserResource {
 
     private final AdditionalUserRepository additionalUserRepository;
 
-    public AdditionalUserResource(AdditionalUserRepository additionalUserRepository) {
+    private final EntityUpdateService entityUpdateService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final FieldProjection fieldProjection;
+
+    private final KeysetPaging keysetPaging;
+
+    private final EntityMultiLoader entityMultiLoader;
+
+    public AdditionalUserResource(
+        AdditionalUserRepository additionalUserRepository,
+        EntityUpdateService entityUpdateService,
+        ApplicationEventPublisher eventPublisher,
+        FieldProjection fieldProjection,
+        KeysetPaging keysetPaging,
+        EntityMultiLoader entityMultiLoader
+    ) {
         this.additionalUserRepository = additionalUserRepository;
+        this.entityUpdateService = entityUpdateService;
+        this.eventPublisher = eventPublisher;
+        this.fieldProjection = fieldProjection;
+        this.keysetPaging = keysetPaging;
+        this.entityMultiLoader = entityMultiLoader;
     }
 
     /**
      * {@code POST  /additional-users} : Create a new additionalUser.
      *
      * @param additionalUser the additionalUser to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new additionalUser, or with status {@code 400 (Bad Request)} if the additionalUser has already an ID.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new additionalUser, or with status {@code 400 (Bad Request)} if the additionalUser has a server generated ID,
+     * or with status {@code 409 (Conflict)} if its client generated ID is taken.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("")
     public ResponseEntity<AdditionalUser> createAdditionalUser(@RequestBody AdditionalUser additionalUser) throws URISyntaxException, BadRequestException {
         log.debug("REST request to save AdditionalUser : {}", additionalUser);
         if (additionalUser.getId() != null) {
-            throw new BadRequestException("A new additionalUser cannot already have an ID");
+            if (!TimeOrderedId.isClientId(additionalUser.getId())) {
+                throw new BadRequestException("A new additionalUser can only have a client generated ID");
+            }
+            if (additionalUserRepository.existsById(additionalUser.getId())) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT);
+            }
         }
         AdditionalUser result = additionalUserRepository.save(additionalUser);
+        eventPublisher.publishEvent(new EntityChangedEvent(AdditionalUser.class, result.getId(), EntityChangedEvent.Operation.CREATE));
         return ResponseEntity
             .created(new URI("/api/additional-users/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
@@ -86,6 +133,7 @@ public class AdditionalUserResource {
         }
 
         AdditionalUser result = additionalUserRepository.save(additionalUser);
+        eventPublisher.publishEvent(new EntityChangedEvent(AdditionalUser.class, id, EntityChangedEvent.Operation.UPDATE));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, additionalUser.getId().toString()))
@@ -116,11 +164,13 @@ public class AdditionalUserResource {
             throw new BadRequestException("Invalid id");
         }
 
-        if (!additionalUserRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
+        if (entityUpdateService.patch(AdditionalUser.class, id, additionalUser) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
 
-        Optional<AdditionalUser> result = additionalUserRepository.findById(additionalUser.getId()).map(additionalUserRepository::save);
+        eventPublisher.publishEvent(new EntityChangedEvent(AdditionalUser.class, id, EntityChangedEvent.Operation.UPDATE));
+
+        Optional<AdditionalUser> result = additionalUserRepository.findById(id);
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -129,14 +179,61 @@ public class AdditionalUserResource {
     }
 
     /**
-     * {@code GET  /additional-users} : get all the additionalUsers.
+     * {@code GET  /additional-users} : get a page of the additionalUsers, ordered by id.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of additionalUsers in body.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of additionalUsers, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of additionalUsers in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if the limit is out of range.
      */
+    @Transactional(readOnly = true)
     @GetMapping("")
-    public List<AdditionalUser> getAllAdditionalUsers() {
-        log.debug("REST request to get all AdditionalUsers");
-        return additionalUserRepository.findAll();
+    public ResponseEntity<List<AdditionalUser>> getAllAdditionalUsers(
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of AdditionalUsers after : {}", cursor);
+        KeysetPage<AdditionalUser> page = keysetPaging.page(AdditionalUser.class, null, cursor, keysetPaging.limit(limit));
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
+    }
+
+    /**
+     * {@code GET  /additional-users} with {@code Accept: application/x-ndjson} : stream all the additionalUsers, one JSON document per line.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the additionalUsers as newline delimited JSON in body.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @GetMapping(value = "", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAdditionalUsers() {
+        log.debug("REST request to stream all AdditionalUsers");
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(keysetPaging.stream(AdditionalUser.class, null));
+    }
+
+    /**
+     * {@code GET  /additional-users?fields=} : get a page of the given fields of the additionalUsers, ordered by id.
+     *
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of additionalUsers, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of additionalUsers in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if a field is unknown or the limit is out of range.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllAdditionalUsersFields(
+        @RequestParam("fields") String fields,
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of AdditionalUsers after : {} with fields : {}", cursor, fields);
+        KeysetPage<Map<String, Object>> page = fieldProjection.findAll(
+            AdditionalUser.class,
+            fields,
+            null,
+            cursor,
+            keysetPaging.limit(limit)
+        );
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
     }
 
     /**
@@ -145,6 +242,7 @@ public class AdditionalUserResource {
      * @param id the id of the additionalUser to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the additionalUser, or with status {@code 404 (Not Found)}.
      */
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public ResponseEntity<AdditionalUser> getAdditionalUser(@PathVariable("id") Long id) {
         log.debug("REST request to get AdditionalUser : {}", id);
@@ -152,6 +250,47 @@ public class AdditionalUserResource {
         return ResponseUtil.wrapOrNotFound(additionalUser);
     }
 
+    /**
+     * {@code GET  /additional-users?ids=} : get the additionalUsers with the given ids.
+     *
+     * @param ids the comma separated ids of the additionalUsers to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing additionalUsers in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = { "ids", "!fields" })
+    public List<AdditionalUser> getAdditionalUsersByIds(@RequestParam("ids") List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get AdditionalUsers : {}", ids);
+        return entityMultiLoader.findAllById(AdditionalUser.class, ids);
+    }
+
+    /**
+     * {@code POST  /additional-users/by-ids} : get the additionalUsers with the ids in the body, for lists of ids too long for the URL.
+     *
+     * @param ids the ids of the additionalUsers to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing additionalUsers in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @PostMapping("/by-ids")
+    public List<AdditionalUser> getAdditionalUsersByIdsInBody(@RequestBody List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get AdditionalUsers : {}", ids);
+        return entityMultiLoader.findAllById(AdditionalUser.class, ids);
+    }
+
+    /**
+     * {@code GET  /additional-users/:id?fields=} : get the given fields of the "id" additionalUser.
+     *
+     * @param id the id of the additionalUser to retrieve.
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the fields of the additionalUser, or with status {@code 404 (Not Found)}.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getAdditionalUserFields(@PathVariable("id") Long id, @RequestParam("fields") String fields)
+        throws BadRequestException {
+        log.debug("REST request to get AdditionalUser : {} with fields : {}", id, fields);
+        return ResponseUtil.wrapOrNotFound(fieldProjection.findById(AdditionalUser.class, fields, id));
+    }
+
     /**
      * {@code DELETE  /additional-users/:id} : delete the "id" additionalUser.
      *
@@ -162,6 +301,7 @@ public class AdditionalUserResource {
     public ResponseEntity<Void> deleteAdditionalUser(@PathVariable("id") Long id) {
         log.debug("REST request to delete AdditionalUser : {}", id);
         additionalUserRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(AdditionalUser.class, id, EntityChangedEvent.Operation.DELETE));
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
@@ -1,20 +1,40 @@
 package com.javabackend.backend.rest;
 
+import com.javabackend.backend.service.loading.EntityMultiLoader;
+import com.javabackend.backend.service.paging.KeysetPage;
+import com.javabackend.backend.service.paging.KeysetPaging;
 import com.javabackend.backend.util.HeaderUtil;
+import com.javabackend.backend.util.PaginationUtil;
 import com.javabackend.backend.util.ResponseUtil;
 import com.javabackend.backend.domain.DrkUser;
 import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.javabackend.backend.repository.DrkUserRepository;
+import com.javabackend.backend.service.EntityUpdateService;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import com.javabackend.backend.service.permission.OrganizationVisibility;
+import com.javabackend.backend.service.projection.FieldProjection;
+import com.javabackend.backend.service.session.CurrentUserProvider;
+import com.javabackend.backend.service.session.PasswordChange;
+import com.javabackend.backend.service.session.PasswordService;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -35,8 +55,42 @@ public class DrkUserResource {
 
     private final DrkUserRepository drkUserRepository;
 
-    public DrkUserResource(DrkUserRepository drkUserRepository) {
+    private final EntityUpdateService entityUpdateService;
+
+    private final OrganizationVisibility organizationVisibility;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final FieldProjection fieldProjection;
+
+    private final KeysetPaging keysetPaging;
+
+    private final EntityMultiLoader entityMultiLoader;
+
+    private final PasswordService passwordService;
+
+    private final CurrentUserProvider currentUserProvider;
+
+    public DrkUserResource(
+        DrkUserRepository drkUserRepository,
+        EntityUpdateService entityUpdateService,
+        OrganizationVisibility organizationVisibility,
+        ApplicationEventPublisher eventPublisher,
+        FieldProjection fieldProjection,
+        KeysetPaging keysetPaging,
+        EntityMultiLoader entityMultiLoader,
+        PasswordService passwordService,
+        CurrentUserProvider currentUserProvider
+    ) {
         this.drkUserRepository = drkUserRepository;
+        this.entityUpdateService = entityUpdateService;
+        this.organizationVisibility = organizationVisibility;
+        this.eventPublisher = eventPublisher;
+        this.fieldProjection = fieldProjection;
+        this.keysetPaging = keysetPaging;
+        this.entityMultiLoader = entityMultiLoader;
+        this.passwordService = passwordService;
+        this.currentUserProvider = currentUserProvider;
     }
 
     /**
@@ -52,7 +106,11 @@ public class DrkUserResource {
         if (drkUser.getId() != null) {
             throw new BadRequestException("A new DrkUser cannot already have an ID");
         }
+        if (drkUser.getPassword() != null) {
+            drkUser.setPassword(passwordService.encode(drkUser.getPassword()));
+        }
         DrkUser result = drkUserRepository.save(drkUser);
+        eventPublisher.publishEvent(new EntityChangedEvent(DrkUser.class, result.getId(), EntityChangedEvent.Operation.CREATE));
         return ResponseEntity
                 .created(new URI("/api/drk-users/" + result.getId()))
                 .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
@@ -66,6 +124,8 @@ public class DrkUserResource {
      * @param drkUser the drkUser to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated drkUser,
      * or with status {@code 400 (Bad Request)} if the drkUser is not valid,
+     * or with status {@code 404 (Not Found)} if the drkUser is not found,
+     * or with status {@code 409 (Conflict)} if the drkUser has been modified since the given version,
      * or with status {@code 500 (Internal Server Error)} if the drkUser couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -80,11 +140,16 @@ public class DrkUserResource {
             throw new BadRequestException("Invalid id");
         }
 
-        if (!drkUserRepository.existsById(id)) {
-            throw new BadRequestException("Invalid id");
+        if (drkUser.getVersion() == null) {
+            throw new BadRequestException("Invalid version");
         }
 
-        DrkUser result = drkUserRepository.save(drkUser);
+        if (entityUpdateService.replace(DrkUser.class, id, drkUser.getVersion(), drkUser) == 0) {
+            throw new ResponseStatusException(drkUserRepository.existsById(id) ? HttpStatus.CONFLICT : HttpStatus.NOT_FOUND);
+        }
+
+        DrkUser result = drkUserRepository.findById(id).orElseThrow();
+        eventPublisher.publishEvent(new EntityChangedEvent(DrkUser.class, id, EntityChangedEvent.Operation.UPDATE));
         return ResponseEntity
                 .ok()
                 .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, drkUser.getId().toString()))
@@ -115,41 +180,13 @@ public class DrkUserResource {
             throw new BadRequestException("Invalid id");
         }
 
-        if (!drkUserRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
+        if (entityUpdateService.patch(DrkUser.class, id, drkUser) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
 
-        Optional<DrkUser> result = drkUserRepository
-                .findById(drkUser.getId())
-                .map(existingDrkUser -> {
-                    if (drkUser.getUserName() != null) {
-                        existingDrkUser.setUserName(drkUser.getUserName());
-                    }
-                    if (drkUser.getFirstName() != null) {
-                        existingDrkUser.setFirstName(drkUser.getFirstName());
-                    }
-                    if (drkUser.getLastName() != null) {
-                        existingDrkUser.setLastName(drkUser.getLastName());
-                    }
-                    if (drkUser.getEmail() != null) {
-                        existingDrkUser.setEmail(drkUser.getEmail());
-                    }
-                    if (drkUser.getPassword() != null) {
-                        existingDrkUser.setPassword(drkUser.getPassword());
-                    }
-                    if (drkUser.getLastPasswordChange() != null) {
-                        existingDrkUser.setLastPasswordChange(drkUser.getLastPasswordChange());
-                    }
-                    if (drkUser.getPasswordChangeRequired() != null) {
-                        existingDrkUser.setPasswordChangeRequired(drkUser.getPasswordChangeRequired());
-                    }
-                    if (drkUser.getCreatedOrEdited() != null) {
-                        existingDrkUser.setCreatedOrEdited(drkUser.getCreatedOrEdited());
-                    }
-
-                    return existingDrkUser;
-                })
-                .map(drkUserRepository::save);
+        eventPublisher.publishEvent(new EntityChangedEvent(DrkUser.class, id, EntityChangedEvent.Operation.UPDATE));
+
+        Optional<DrkUser> result = drkUserRepository.findById(id);
 
         return ResponseUtil.wrapOrNotFound(
                 result,
@@ -158,14 +195,92 @@ public class DrkUserResource {
     }
 
     /**
-     * {@code GET  /drk-users} : get all the drkUsers.
+     * {@code PUT  /drk-users/:id/password} : Changes the password of the current user.
+     *
+     * @param id             the id of the drkUser, the user of the session.
+     * @param passwordChange the current and the new password.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)},
+     * or with status {@code 400 (Bad Request)} if the new password is missing,
+     * or with status {@code 401 (Unauthorized)} without a valid session,
+     * or with status {@code 403 (Forbidden)} if the drkUser is not the user of the session or the current password is wrong.
+     */
+    @PutMapping("/{id}/password")
+    public ResponseEntity<Void> changePassword(@PathVariable("id") Long id, @RequestBody PasswordChange passwordChange)
+        throws BadRequestException {
+        log.debug("REST request to change the password of DrkUser : {}", id);
+        if (passwordChange.newPassword() == null || passwordChange.newPassword().isEmpty()) {
+            throw new BadRequestException("Invalid password");
+        }
+        if (
+            !currentUserProvider.requiredDrkUserId().map(id::equals).orElse(false) ||
+            !passwordService.matches(id, passwordChange.currentPassword())
+        ) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+        passwordService.change(id, passwordChange.newPassword());
+        eventPublisher.publishEvent(new EntityChangedEvent(DrkUser.class, id, EntityChangedEvent.Operation.UPDATE));
+        return ResponseEntity.noContent().headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, id.toString())).build();
+    }
+
+    /**
+     * {@code GET  /drk-users} : get a page of the drkUsers, ordered by id.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of drkUsers in body.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of drkUsers, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of drkUsers in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if the limit is out of range.
      */
+    @Transactional(readOnly = true)
     @GetMapping
-    public List<DrkUser> getAllDrkUsers() {
-        log.debug("REST request to get all DrkUsers");
-        return drkUserRepository.findAll();
+    public ResponseEntity<List<DrkUser>> getAllDrkUsers(
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of DrkUsers after : {}", cursor);
+        KeysetPage<DrkUser> page = keysetPaging.page(DrkUser.class, organizationVisibility.drkUsers(), cursor, keysetPaging.limit(limit));
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
+    }
+
+    /**
+     * {@code GET  /drk-users} with {@code Accept: application/x-ndjson} : stream all the drkUsers, one JSON document per line.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the drkUsers as newline delimited JSON in body.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamDrkUsers() {
+        log.debug("REST request to stream all DrkUsers");
+        return ResponseEntity
+            .ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(keysetPaging.stream(DrkUser.class, organizationVisibility.drkUsers()));
+    }
+
+    /**
+     * {@code GET  /drk-users?fields=} : get a page of the given fields of the drkUsers, ordered by id.
+     *
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of drkUsers, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of drkUsers in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if a field is unknown or the limit is out of range.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllDrkUsersFields(
+        @RequestParam("fields") String fields,
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of DrkUsers after : {} with fields : {}", cursor, fields);
+        KeysetPage<Map<String, Object>> page = fieldProjection.findAll(
+            DrkUser.class,
+            fields,
+            organizationVisibility.drkUsers(),
+            cursor,
+            keysetPaging.limit(limit)
+        );
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
     }
 
     /**
@@ -174,11 +289,53 @@ public class DrkUserResource {
      * @param id the id of the drkUser to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the drkUser, or with status {@code 404 (Not Found)}.
      */
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public ResponseEntity<DrkUser> getDrkUser(@PathVariable("id") Long id) {
         log.debug("REST request to get DrkUser : {}", id);
         Optional<DrkUser> drkUser = drkUserRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(drkUser);
+        return ResponseUtil.wrapOrNotFound(organizationVisibility.filter(drkUser, OrganizationVisibility::organizationOf));
+    }
+
+    /**
+     * {@code GET  /drk-users?ids=} : get the drkUsers with the given ids.
+     *
+     * @param ids the comma separated ids of the drkUsers to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing drkUsers in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(params = { "ids", "!fields" })
+    public List<DrkUser> getDrkUsersByIds(@RequestParam("ids") List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get DrkUsers : {}", ids);
+        return organizationVisibility.filter(entityMultiLoader.findAllById(DrkUser.class, ids), OrganizationVisibility::organizationOf);
+    }
+
+    /**
+     * {@code POST  /drk-users/by-ids} : get the drkUsers with the ids in the body, for lists of ids too long for the URL.
+     *
+     * @param ids the ids of the drkUsers to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing drkUsers in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @PostMapping("/by-ids")
+    public List<DrkUser> getDrkUsersByIdsInBody(@RequestBody List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get DrkUsers : {}", ids);
+        return organizationVisibility.filter(entityMultiLoader.findAllById(DrkUser.class, ids), OrganizationVisibility::organizationOf);
+    }
+
+    /**
+     * {@code GET  /drk-users/:id?fields=} : get the given fields of the "id" drkUser.
+     *
+     * @param id the id of the drkUser to retrieve.
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the fields of the drkUser, or with status {@code 404 (Not Found)}.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getDrkUserFields(@PathVariable("id") Long id, @RequestParam("fields") String fields)
+        throws BadRequestException {
+        log.debug("REST request to get DrkUser : {} with fields : {}", id, fields);
+        return ResponseUtil.wrapOrNotFound(fieldProjection.findById(DrkUser.class, fields, organizationVisibility.drkUsers(), id));
     }
 
     /**
@@ -191,6 +348,7 @@ public class DrkUserResource {
     public ResponseEntity<Void> deleteDrkUser(@PathVariable("id") Long id) {
         log.debug("REST request to delete DrkUser : {}", id);
         drkUserRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(DrkUser.class, id, EntityChangedEvent.Operation.DELETE));
         return ResponseEntity
                 .noContent()
                 .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
@@ -1,20 +1,36 @@
 package com.javabackend.backend.rest;
 
+import com.javabackend.backend.service.loading.EntityMultiLoader;
+import com.javabackend.backend.service.paging.KeysetPage;
+import com.javabackend.backend.service.paging.KeysetPaging;
 import com.javabackend.backend.util.HeaderUtil;
+import com.javabackend.backend.util.PaginationUtil;
 import com.javabackend.backend.util.ResponseUtil;
 import com.javabackend.backend.domain.Organization;
 import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.javabackend.backend.repository.OrganizationRepository;
+import com.javabackend.backend.service.EntityUpdateService;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import com.javabackend.backend.service.projection.FieldProjection;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -35,8 +51,30 @@ public class OrganizationResource {
 
     private final OrganizationRepository organizationRepository;
 
-    public OrganizationResource(OrganizationRepository organizationRepository) {
+    private final EntityUpdateService entityUpdateService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final FieldProjection fieldProjection;
+
+    private final KeysetPaging keysetPaging;
+
+    private final EntityMultiLoader entityMultiLoader;
+
+    public OrganizationResource(
+        OrganizationRepository organizationRepository,
+        EntityUpdateService entityUpdateService,
+        ApplicationEventPublisher eventPublisher,
+        FieldProjection fieldProjection,
+        KeysetPaging keysetPaging,
+        EntityMultiLoader entityMultiLoader
+    ) {
         this.organizationRepository = organizationRepository;
+        this.entityUpdateService = entityUpdateService;
+        this.eventPublisher = eventPublisher;
+        this.fieldProjection = fieldProjection;
+        this.keysetPaging = keysetPaging;
+        this.entityMultiLoader = entityMultiLoader;
     }
 
     /**
@@ -53,6 +91,7 @@ public class OrganizationResource {
             throw new BadRequestException("A new organization cannot already have an id");
         }
         Organization result = organizationRepository.save(organization);
+        eventPublisher.publishEvent(new EntityChangedEvent(Organization.class, result.getId(), EntityChangedEvent.Operation.CREATE));
         return ResponseEntity
                 .created(new URI("/api/organizations/" + result.getId()))
                 .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
@@ -66,6 +105,8 @@ public class OrganizationResource {
      * @param organization the organization to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated organization,
      * or with status {@code 400 (Bad Request)} if the organization is not valid,
+     * or with status {@code 404 (Not Found)} if the organization is not found,
+     * or with status {@code 409 (Conflict)} if the organization has been modified since the given version,
      * or with status {@code 500 (Internal Server Error)} if the organization couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -82,11 +123,16 @@ public class OrganizationResource {
             throw new BadRequestException("Invalid ID");
         }
 
-        if (!organizationRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
+        if (organization.getVersion() == null) {
+            throw new BadRequestException("Invalid version");
         }
 
-        Organization result = organizationRepository.save(organization);
+        if (entityUpdateService.replace(Organization.class, id, organization.getVersion(), organization) == 0) {
+            throw new ResponseStatusException(organizationRepository.existsById(id) ? HttpStatus.CONFLICT : HttpStatus.NOT_FOUND);
+        }
+        eventPublisher.publishEvent(new EntityChangedEvent(Organization.class, id, EntityChangedEvent.Operation.UPDATE));
+
+        Organization result = organizationRepository.findById(id).orElseThrow();
         return ResponseEntity
                 .ok()
                 .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, organization.getId().toString()))
@@ -117,41 +163,12 @@ public class OrganizationResource {
             throw new BadRequestException("Invalid ID");
         }
 
-        if (!organizationRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
+        if (entityUpdateService.patch(Organization.class, id, organization) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
+        eventPublisher.publishEvent(new EntityChangedEvent(Organization.class, id, EntityChangedEvent.Operation.UPDATE));
 
-        Optional<Organization> result = organizationRepository
-                .findById(organization.getId())
-                .map(existingOrganization -> {
-                    if (organization.getParentId() != null) {
-                        existingOrganization.setParentId(organization.getParentId());
-                    }
-                    if (organization.getName() != null) {
-                        existingOrganization.setName(organization.getName());
-                    }
-                    if (organization.getAddress() != null) {
-                        existingOrganization.setAddress(organization.getAddress());
-                    }
-                    if (organization.getCity() != null) {
-                        existingOrganization.setCity(organization.getCity());
-                    }
-                    if (organization.getPostalCode() != null) {
-                        existingOrganization.setPostalCode(organization.getPostalCode());
-                    }
-                    if (organization.getCountry() != null) {
-                        existingOrganization.setCountry(organization.getCountry());
-                    }
-                    if (organization.getType() != null) {
-                        existingOrganization.setType(organization.getType());
-                    }
-                    if (organization.getCreatedOrEdited() != null) {
-                        existingOrganization.setCreatedOrEdited(organization.getCreatedOrEdited());
-                    }
-
-                    return existingOrganization;
-                })
-                .map(organizationRepository::save);
+        Optional<Organization> result = organizationRepository.findById(id);
 
         return ResponseUtil.wrapOrNotFound(
                 result,
@@ -160,14 +177,55 @@ public class OrganizationResource {
     }
 
     /**
-     * {@code GET  /organizations} : get all the organizations.
+     * {@code GET  /organizations} : get a page of the organizations, ordered by id.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of organizations in body.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of organizations, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of organizations in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if the limit is out of range.
      */
+    @Transactional(readOnly = true)
     @GetMapping
-    public List<Organization> getAllOrganizations() {
-        log.debug("REST request to get all Organizations");
-        return organizationRepository.findAll();
+    public ResponseEntity<List<Organization>> getAllOrganizations(
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of Organizations after : {}", cursor);
+        KeysetPage<Organization> page = keysetPaging.page(Organization.class, null, cursor, keysetPaging.limit(limit));
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
+    }
+
+    /**
+     * {@code GET  /organizations} with {@code Accept: application/x-ndjson} : stream all the organizations, one JSON document per line.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the organizations as newline delimited JSON in body.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOrganizations() {
+        log.debug("REST request to stream all Organizations");
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(keysetPaging.stream(Organization.class, null));
+    }
+
+    /**
+     * {@code GET  /organizations?fields=} : get a page of the given fields of the organizations, ordered by id.
+     *
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of organizations, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of organizations in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if a field is unknown or the limit is out of range.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllOrganizationsFields(
+        @RequestParam("fields") String fields,
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of Organizations after : {} with fields : {}", cursor, fields);
+        KeysetPage<Map<String, Object>> page = fieldProjection.findAll(Organization.class, fields, null, cursor, keysetPaging.limit(limit));
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
     }
 
     /**
@@ -176,6 +234,7 @@ public class OrganizationResource {
      * @param id the id of the organization to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the organization, or with status {@code 404 (Not Found)}.
      */
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public ResponseEntity<Organization> getOrganization(@PathVariable("id") Long id) {
         log.debug("REST request to get Organization : {}", id);
@@ -183,6 +242,47 @@ public class OrganizationResource {
         return ResponseUtil.wrapOrNotFound(organization);
     }
 
+    /**
+     * {@code GET  /organizations?ids=} : get the organizations with the given ids.
+     *
+     * @param ids the comma separated ids of the organizations to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing organizations in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(params = { "ids", "!fields" })
+    public List<Organization> getOrganizationsByIds(@RequestParam("ids") List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get Organizations : {}", ids);
+        return entityMultiLoader.findAllById(Organization.class, ids);
+    }
+
+    /**
+     * {@code POST  /organizations/by-ids} : get the organizations with the ids in the body, for lists of ids too long for the URL.
+     *
+     * @param ids the ids of the organizations to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing organizations in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @PostMapping("/by-ids")
+    public List<Organization> getOrganizationsByIdsInBody(@RequestBody List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get Organizations : {}", ids);
+        return entityMultiLoader.findAllById(Organization.class, ids);
+    }
+
+    /**
+     * {@code GET  /organizations/:id?fields=} : get the given fields of the "id" organization.
+     *
+     * @param id the id of the organization to retrieve.
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the fields of the organization, or with status {@code 404 (Not Found)}.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getOrganizationFields(@PathVariable("id") Long id, @RequestParam("fields") String fields)
+        throws BadRequestException {
+        log.debug("REST request to get Organization : {} with fields : {}", id, fields);
+        return ResponseUtil.wrapOrNotFound(fieldProjection.findById(Organization.class, fields, id));
+    }
+
     /**
      * {@code DELETE  /organizations/:id} : delete the "id" organization.
      *
@@ -193,6 +293,7 @@ public class OrganizationResource {
     public ResponseEntity<Void> deleteOrganization(@PathVariable("id") Long id) {
         log.debug("REST request to delete Organization : {}", id);
         organizationRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(Organization.class, id, EntityChangedEvent.Operation.DELETE));
         return ResponseEntity
                 .noContent()
                 .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
@@ -1,27 +1,48 @@
 package com.javabackend.backend.rest;
 
 import com.javabackend.backend.domain.ProtocolContent;
+import com.javabackend.backend.domain.id.TimeOrderedId;
+import jakarta.persistence.criteria.JoinType;
 import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.javabackend.backend.repository.ProtocolContentRepository;
+import com.javabackend.backend.service.EntityUpdateService;
+import com.javabackend.backend.service.archive.ArchivedProtocol;
+import com.javabackend.backend.service.archive.ProtocolArchiver;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import com.javabackend.backend.service.loading.EntityMultiLoader;
+import com.javabackend.backend.service.paging.KeysetPage;
+import com.javabackend.backend.service.paging.KeysetPaging;
 import com.javabackend.backend.util.HeaderUtil;
+import com.javabackend.backend.util.PaginationUtil;
 import com.javabackend.backend.util.ResponseUtil;
+import com.javabackend.backend.service.projection.FieldProjection;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.StreamSupport;
 
 /**
  * REST controller for managing {@link ProtocolContent}.
  */
+@RestController
 @RequestMapping("/api/protocol-contents")
 @Transactional
 public class ProtocolContentResource {
@@ -35,24 +56,57 @@ public class ProtocolContentResource {
 
     private final ProtocolContentRepository protocolContentRepository;
 
-    public ProtocolContentResource(ProtocolContentRepository protocolContentRepository) {
+    private final EntityUpdateService entityUpdateService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final FieldProjection fieldProjection;
+
+    private final KeysetPaging keysetPaging;
+
+    private final EntityMultiLoader entityMultiLoader;
+
+    private final ProtocolArchiver protocolArchiver;
+
+    public ProtocolContentResource(
+        ProtocolContentRepository protocolContentRepository,
+        EntityUpdateService entityUpdateService,
+        ApplicationEventPublisher eventPublisher,
+        FieldProjection fieldProjection,
+        KeysetPaging keysetPaging,
+        EntityMultiLoader entityMultiLoader,
+        ProtocolArchiver protocolArchiver
+    ) {
         this.protocolContentRepository = protocolContentRepository;
+        this.entityUpdateService = entityUpdateService;
+        this.eventPublisher = eventPublisher;
+        this.fieldProjection = fieldProjection;
+        this.keysetPaging = keysetPaging;
+        this.entityMultiLoader = entityMultiLoader;
+        this.protocolArchiver = protocolArchiver;
     }
 
     /**
      * {@code POST  /protocol-contents} : Create a new protocolContent.
      *
      * @param protocolContent the protocolContent to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new protocolContent, or with status {@code 400 (Bad Request)} if the protocolContent has already an ID.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new protocolContent, or with status {@code 400 (Bad Request)} if the protocolContent has a server generated ID,
+     * or with status {@code 409 (Conflict)} if its client generated ID is taken.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("")
     public ResponseEntity<ProtocolContent> createProtocolContent(@RequestBody ProtocolContent protocolContent) throws URISyntaxException, BadRequestException {
         log.debug("REST request to save ProtocolContent : {}", protocolContent);
         if (protocolContent.getId() != null) {
-            throw new BadRequestException("A new protocolContent cannot already have an ID");
+            if (!TimeOrderedId.isClientId(protocolContent.getId())) {
+                throw new BadRequestException("A new protocolContent can only have a client generated ID");
+            }
+            if (protocolContentRepository.existsById(protocolContent.getId())) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT);
+            }
         }
         ProtocolContent result = protocolContentRepository.save(protocolContent);
+        eventPublisher.publishEvent(new EntityChangedEvent(ProtocolContent.class, result.getId(), EntityChangedEvent.Operation.CREATE));
         return ResponseEntity
                 .created(new URI("/api/protocol-contents/" + result.getId()))
                 .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
@@ -66,6 +120,8 @@ public class ProtocolContentResource {
      * @param protocolContent the protocolContent to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated protocolContent,
      * or with status {@code 400 (Bad Request)} if the protocolContent is not valid,
+     * or with status {@code 404 (Not Found)} if the protocolContent is not found,
+     * or with status {@code 409 (Conflict)} if the protocolContent has been modified since the given version,
      * or with status {@code 500 (Internal Server Error)} if the protocolContent couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -82,11 +138,16 @@ public class ProtocolContentResource {
             throw new BadRequestException("Invalid ID");
         }
 
-        if (!protocolContentRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
+        if (protocolContent.getVersion() == null) {
+            throw new BadRequestException("Invalid version");
         }
 
-        ProtocolContent result = protocolContentRepository.save(protocolContent);
+        if (entityUpdateService.replace(ProtocolContent.class, id, protocolContent.getVersion(), protocolContent) == 0) {
+            throw new ResponseStatusException(protocolContentRepository.existsById(id) ? HttpStatus.CONFLICT : HttpStatus.NOT_FOUND);
+        }
+
+        ProtocolContent result = protocolContentRepository.findById(id).orElseThrow();
+        eventPublisher.publishEvent(new EntityChangedEvent(ProtocolContent.class, id, EntityChangedEvent.Operation.UPDATE));
         return ResponseEntity
                 .ok()
                 .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, protocolContent.getId().toString()))
@@ -117,20 +178,13 @@ public class ProtocolContentResource {
             throw new BadRequestException("Invalid ID");
         }
 
-        if (!protocolContentRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
+        if (entityUpdateService.patch(ProtocolContent.class, id, protocolContent) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
 
-        Optional<ProtocolContent> result = protocolContentRepository
-                .findById(protocolContent.getId())
-                .map(existingProtocolContent -> {
-                    if (protocolContent.getContent() != null) {
-                        existingProtocolContent.setContent(protocolContent.getContent());
-                    }
+        eventPublisher.publishEvent(new EntityChangedEvent(ProtocolContent.class, id, EntityChangedEvent.Operation.UPDATE));
 
-                    return existingProtocolContent;
-                })
-                .map(protocolContentRepository::save);
+        Optional<ProtocolContent> result = protocolContentRepository.findById(id);
 
         return ResponseUtil.wrapOrNotFound(
                 result,
@@ -139,22 +193,81 @@ public class ProtocolContentResource {
     }
 
     /**
-     * {@code GET  /protocol-contents} : get all the protocolContents.
+     * {@code GET  /protocol-contents} : get a page of the protocolContents, ordered by id.
      *
      * @param filter the filter of the request.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of protocolContents in body.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of protocolContents, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of protocolContents in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if the limit is out of range.
      */
+    @Transactional(readOnly = true)
     @GetMapping("")
-    public List<ProtocolContent> getAllProtocolContents(@RequestParam(name = "filter", required = false) String filter) {
+    public ResponseEntity<List<ProtocolContent>> getAllProtocolContents(
+        @RequestParam(name = "filter", required = false) String filter,
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of ProtocolContents after : {} with filter : {}", cursor, filter);
+        KeysetPage<ProtocolContent> page = keysetPaging.page(
+            ProtocolContent.class,
+            protocolFilter(filter),
+            cursor,
+            keysetPaging.limit(limit)
+        );
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
+    }
+
+    /**
+     * {@code GET  /protocol-contents} with {@code Accept: application/x-ndjson} : stream all the protocolContents, one JSON document per line.
+     *
+     * @param filter the filter of the request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the protocolContents as newline delimited JSON in body.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @GetMapping(value = "", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProtocolContents(@RequestParam(name = "filter", required = false) String filter) {
+        log.debug("REST request to stream all ProtocolContents with filter : {}", filter);
+        return ResponseEntity
+            .ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(keysetPaging.stream(ProtocolContent.class, protocolFilter(filter)));
+    }
+
+    /**
+     * {@code GET  /protocol-contents?fields=} : get a page of the given fields of the protocolContents, ordered by id.
+     *
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @param filter the filter of the request.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of protocolContents, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of protocolContents in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if a field is unknown or the limit is out of range.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllProtocolContentsFields(
+        @RequestParam("fields") String fields,
+        @RequestParam(name = "filter", required = false) String filter,
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of ProtocolContents after : {} with fields : {}", cursor, fields);
+        KeysetPage<Map<String, Object>> page = fieldProjection.findAll(
+            ProtocolContent.class,
+            fields,
+            protocolFilter(filter),
+            cursor,
+            keysetPaging.limit(limit)
+        );
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
+    }
+
+    private static Specification<ProtocolContent> protocolFilter(String filter) {
         if ("protocol-is-null".equals(filter)) {
-            log.debug("REST request to get all ProtocolContents where protocol is null");
-            return StreamSupport
-                    .stream(protocolContentRepository.findAll().spliterator(), false)
-                    .filter(protocolContent -> protocolContent.getProtocol() == null)
-                    .toList();
+            return (root, query, criteriaBuilder) -> criteriaBuilder.isNull(root.join("protocol", JoinType.LEFT).get("id"));
         }
-        log.debug("REST request to get all ProtocolContents");
-        return protocolContentRepository.findAll();
+        return null;
     }
 
     /**
@@ -163,13 +276,57 @@ public class ProtocolContentResource {
      * @param id the id of the protocolContent to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the protocolContent, or with status {@code 404 (Not Found)}.
      */
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public ResponseEntity<ProtocolContent> getProtocolContent(@PathVariable("id") Long id) {
         log.debug("REST request to get ProtocolContent : {}", id);
-        Optional<ProtocolContent> protocolContent = protocolContentRepository.findById(id);
+        Optional<ProtocolContent> protocolContent = protocolContentRepository
+            .findById(id)
+            .or(() -> protocolArchiver.findByProtocolContentId(id).map(ArchivedProtocol::toProtocolContent));
         return ResponseUtil.wrapOrNotFound(protocolContent);
     }
 
+    /**
+     * {@code GET  /protocol-contents?ids=} : get the protocolContents with the given ids.
+     *
+     * @param ids the comma separated ids of the protocolContents to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing protocolContents in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = { "ids", "!fields" })
+    public List<ProtocolContent> getProtocolContentsByIds(@RequestParam("ids") List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get ProtocolContents : {}", ids);
+        return entityMultiLoader.findAllById(ProtocolContent.class, ids);
+    }
+
+    /**
+     * {@code POST  /protocol-contents/by-ids} : get the protocolContents with the ids in the body, for lists of ids too long for the URL.
+     *
+     * @param ids the ids of the protocolContents to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing protocolContents in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @PostMapping("/by-ids")
+    public List<ProtocolContent> getProtocolContentsByIdsInBody(@RequestBody List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get ProtocolContents : {}", ids);
+        return entityMultiLoader.findAllById(ProtocolContent.class, ids);
+    }
+
+    /**
+     * {@code GET  /protocol-contents/:id?fields=} : get the given fields of the "id" protocolContent.
+     *
+     * @param id the id of the protocolContent to retrieve.
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the fields of the protocolContent, or with status {@code 404 (Not Found)}.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getProtocolContentFields(@PathVariable("id") Long id, @RequestParam("fields") String fields)
+        throws BadRequestException {
+        log.debug("REST request to get ProtocolContent : {} with fields : {}", id, fields);
+        return ResponseUtil.wrapOrNotFound(fieldProjection.findById(ProtocolContent.class, fields, id));
+    }
+
     /**
      * {@code DELETE  /protocol-contents/:id} : delete the "id" protocolContent.
      *
@@ -180,6 +337,7 @@ public class ProtocolContentResource {
     public ResponseEntity<Void> deleteProtocolContent(@PathVariable("id") Long id) {
         log.debug("REST request to delete ProtocolContent : {}", id);
         protocolContentRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(ProtocolContent.class, id, EntityChangedEvent.Operation.DELETE));
         return ResponseEntity
                 .noContent()
                 .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
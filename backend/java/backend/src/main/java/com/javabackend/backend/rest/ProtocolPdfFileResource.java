@@ -1,27 +1,49 @@
 package com.javabackend.backend.rest;
 
+import com.javabackend.backend.service.loading.EntityMultiLoader;
+import com.javabackend.backend.service.paging.KeysetPage;
+import com.javabackend.backend.service.paging.KeysetPaging;
 import com.javabackend.backend.util.HeaderUtil;
+import com.javabackend.backend.util.PaginationUtil;
 import com.javabackend.backend.util.ResponseUtil;
 import com.javabackend.backend.domain.ProtocolPdfFile;
+import com.javabackend.backend.domain.id.TimeOrderedId;
+import jakarta.persistence.criteria.JoinType;
 import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.javabackend.backend.repository.ProtocolPdfFileRepository;
+import com.javabackend.backend.service.EntityUpdateService;
+import com.javabackend.backend.service.archive.ArchivedProtocol;
+import com.javabackend.backend.service.archive.ProtocolArchiver;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import com.javabackend.backend.service.permission.OrganizationVisibility;
+import com.javabackend.backend.service.projection.FieldProjection;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.StreamSupport;
 
 /**
  * REST controller for managing {@link ProtocolPdfFile}.
  */
+@RestController
 @RequestMapping("/api/protocol-pdf-files")
 @Transactional
 public class ProtocolPdfFileResource {
@@ -35,24 +57,61 @@ public class ProtocolPdfFileResource {
 
     private final ProtocolPdfFileRepository protocolPdfFileRepository;
 
-    public ProtocolPdfFileResource(ProtocolPdfFileRepository protocolPdfFileRepository) {
+    private final EntityUpdateService entityUpdateService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final OrganizationVisibility organizationVisibility;
+
+    private final FieldProjection fieldProjection;
+
+    private final KeysetPaging keysetPaging;
+
+    private final EntityMultiLoader entityMultiLoader;
+
+    private final ProtocolArchiver protocolArchiver;
+
+    public ProtocolPdfFileResource(
+        ProtocolPdfFileRepository protocolPdfFileRepository,
+        EntityUpdateService entityUpdateService,
+        ApplicationEventPublisher eventPublisher,
+        OrganizationVisibility organizationVisibility,
+        FieldProjection fieldProjection,
+        KeysetPaging keysetPaging,
+        EntityMultiLoader entityMultiLoader,
+        ProtocolArchiver protocolArchiver
+    ) {
         this.protocolPdfFileRepository = protocolPdfFileRepository;
+        this.entityUpdateService = entityUpdateService;
+        this.eventPublisher = eventPublisher;
+        this.organizationVisibility = organizationVisibility;
+        this.fieldProjection = fieldProjection;
+        this.keysetPaging = keysetPaging;
+        this.entityMultiLoader = entityMultiLoader;
+        this.protocolArchiver = protocolArchiver;
     }
 
     /**
      * {@code POST  /protocol-pdf-files} : Create a new protocolPdfFile.
      *
      * @param protocolPdfFile the protocolPdfFile to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new protocolPdfFile, or with status {@code 400 (Bad Request)} if the protocolPdfFile has already an ID.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new protocolPdfFile, or with status {@code 400 (Bad Request)} if the protocolPdfFile has a server generated ID,
+     * or with status {@code 409 (Conflict)} if its client generated ID is taken.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("")
     public ResponseEntity<ProtocolPdfFile> createProtocolPdfFile(@RequestBody ProtocolPdfFile protocolPdfFile) throws URISyntaxException, BadRequestException {
         log.debug("REST request to save ProtocolPdfFile : {}", protocolPdfFile);
         if (protocolPdfFile.getId() != null) {
-            throw new BadRequestException("A new protocolPdfFile cannot already have an ID");
+            if (!TimeOrderedId.isClientId(protocolPdfFile.getId())) {
+                throw new BadRequestException("A new protocolPdfFile can only have a client generated ID");
+            }
+            if (protocolPdfFileRepository.existsById(protocolPdfFile.getId())) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT);
+            }
         }
         ProtocolPdfFile result = protocolPdfFileRepository.save(protocolPdfFile);
+        eventPublisher.publishEvent(new EntityChangedEvent(ProtocolPdfFile.class, result.getId(), EntityChangedEvent.Operation.CREATE));
         return ResponseEntity
             .created(new URI("/api/protocol-pdf-files/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
@@ -87,6 +146,7 @@ public class ProtocolPdfFileResource {
         }
 
         ProtocolPdfFile result = protocolPdfFileRepository.save(protocolPdfFile);
+        eventPublisher.publishEvent(new EntityChangedEvent(ProtocolPdfFile.class, id, EntityChangedEvent.Operation.UPDATE));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, protocolPdfFile.getId().toString()))
@@ -117,23 +177,13 @@ public class ProtocolPdfFileResource {
             throw new BadRequestException("Invalid id");
         }
 
-        if (!protocolPdfFileRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
+        if (entityUpdateService.patch(ProtocolPdfFile.class, id, protocolPdfFile) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
 
-        Optional<ProtocolPdfFile> result = protocolPdfFileRepository
-            .findById(protocolPdfFile.getId())
-            .map(existingProtocolPdfFile -> {
-                if (protocolPdfFile.getContent() != null) {
-                    existingProtocolPdfFile.setContent(protocolPdfFile.getContent());
-                }
-                if (protocolPdfFile.getMimeType() != null) {
-                    existingProtocolPdfFile.setMimeType(protocolPdfFile.getMimeType());
-                }
+        eventPublisher.publishEvent(new EntityChangedEvent(ProtocolPdfFile.class, id, EntityChangedEvent.Operation.UPDATE));
 
-                return existingProtocolPdfFile;
-            })
-            .map(protocolPdfFileRepository::save);
+        Optional<ProtocolPdfFile> result = protocolPdfFileRepository.findById(id);
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -142,22 +192,76 @@ public class ProtocolPdfFileResource {
     }
 
     /**
-     * {@code GET  /protocol-pdf-files} : get all the protocolPdfFiles.
+     * {@code GET  /protocol-pdf-files} : get a page of the protocolPdfFiles, ordered by id.
      *
      * @param filter the filter of the request.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of protocolPdfFiles in body.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of protocolPdfFiles, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of protocolPdfFiles in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if the limit is out of range.
      */
+    @Transactional(readOnly = true)
     @GetMapping("")
-    public List<ProtocolPdfFile> getAllProtocolPdfFiles(@RequestParam(name = "filter", required = false) String filter) {
+    public ResponseEntity<List<ProtocolPdfFile>> getAllProtocolPdfFiles(
+        @RequestParam(name = "filter", required = false) String filter,
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of ProtocolPdfFiles after : {} with filter : {}", cursor, filter);
+        Specification<ProtocolPdfFile> visible = Specification.where(organizationVisibility.protocolPdfFiles()).and(protocolFilter(filter));
+        KeysetPage<ProtocolPdfFile> page = keysetPaging.page(ProtocolPdfFile.class, visible, cursor, keysetPaging.limit(limit));
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
+    }
+
+    /**
+     * {@code GET  /protocol-pdf-files} with {@code Accept: application/x-ndjson} : stream all the protocolPdfFiles, one JSON document per line.
+     *
+     * @param filter the filter of the request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the protocolPdfFiles as newline delimited JSON in body.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @GetMapping(value = "", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProtocolPdfFiles(@RequestParam(name = "filter", required = false) String filter) {
+        log.debug("REST request to stream all ProtocolPdfFiles with filter : {}", filter);
+        Specification<ProtocolPdfFile> visible = Specification.where(organizationVisibility.protocolPdfFiles()).and(protocolFilter(filter));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(keysetPaging.stream(ProtocolPdfFile.class, visible));
+    }
+
+    /**
+     * {@code GET  /protocol-pdf-files?fields=} : get a page of the given fields of the protocolPdfFiles, ordered by id.
+     *
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @param filter the filter of the request.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of protocolPdfFiles, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of protocolPdfFiles in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if a field is unknown or the limit is out of range.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllProtocolPdfFilesFields(
+        @RequestParam("fields") String fields,
+        @RequestParam(name = "filter", required = false) String filter,
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of ProtocolPdfFiles after : {} with fields : {}", cursor, fields);
+        Specification<ProtocolPdfFile> visible = Specification.where(organizationVisibility.protocolPdfFiles()).and(protocolFilter(filter));
+        KeysetPage<Map<String, Object>> page = fieldProjection.findAll(
+            ProtocolPdfFile.class,
+            fields,
+            visible,
+            cursor,
+            keysetPaging.limit(limit)
+        );
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
+    }
+
+    private static Specification<ProtocolPdfFile> protocolFilter(String filter) {
         if ("protocol-is-null".equals(filter)) {
-            log.debug("REST request to get all ProtocolPdfFiles where protocol is null");
-            return StreamSupport
-                .stream(protocolPdfFileRepository.findAll().spliterator(), false)
-                .filter(protocolPdfFile -> protocolPdfFile.getProtocol() == null)
-                .toList();
+            return (root, query, criteriaBuilder) -> criteriaBuilder.isNull(root.join("protocol", JoinType.LEFT).get("id"));
         }
-        log.debug("REST request to get all ProtocolPdfFiles");
-        return protocolPdfFileRepository.findAll();
+        return null;
     }
 
     /**
@@ -166,13 +270,61 @@ public class ProtocolPdfFileResource {
      * @param id the id of the protocolPdfFile to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the protocolPdfFile, or with status {@code 404 (Not Found)}.
      */
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public ResponseEntity<ProtocolPdfFile> getProtocolPdfFile(@PathVariable("id") Long id) {
         log.debug("REST request to get ProtocolPdfFile : {}", id);
-        Optional<ProtocolPdfFile> protocolPdfFile = protocolPdfFileRepository.findById(id);
+        Optional<ProtocolPdfFile> protocolPdfFile = organizationVisibility
+            .filterProtocolPdfFile(protocolPdfFileRepository.findById(id))
+            .or(() ->
+                organizationVisibility
+                    .filter(protocolArchiver.findByProtocolPdfFileId(id), OrganizationVisibility::organizationOf)
+                    .map(ArchivedProtocol::toProtocolPdfFile)
+            );
         return ResponseUtil.wrapOrNotFound(protocolPdfFile);
     }
 
+    /**
+     * {@code GET  /protocol-pdf-files?ids=} : get the protocolPdfFiles with the given ids.
+     *
+     * @param ids the comma separated ids of the protocolPdfFiles to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing protocolPdfFiles in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = { "ids", "!fields" })
+    public List<ProtocolPdfFile> getProtocolPdfFilesByIds(@RequestParam("ids") List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get ProtocolPdfFiles : {}", ids);
+        return organizationVisibility.filterProtocolPdfFiles(entityMultiLoader.findAllById(ProtocolPdfFile.class, ids));
+    }
+
+    /**
+     * {@code POST  /protocol-pdf-files/by-ids} : get the protocolPdfFiles with the ids in the body, for lists of ids too long for the URL.
+     *
+     * @param ids the ids of the protocolPdfFiles to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing protocolPdfFiles in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @PostMapping("/by-ids")
+    public List<ProtocolPdfFile> getProtocolPdfFilesByIdsInBody(@RequestBody List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get ProtocolPdfFiles : {}", ids);
+        return organizationVisibility.filterProtocolPdfFiles(entityMultiLoader.findAllById(ProtocolPdfFile.class, ids));
+    }
+
+    /**
+     * {@code GET  /protocol-pdf-files/:id?fields=} : get the given fields of the "id" protocolPdfFile.
+     *
+     * @param id the id of the protocolPdfFile to retrieve.
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the fields of the protocolPdfFile, or with status {@code 404 (Not Found)}.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getProtocolPdfFileFields(@PathVariable("id") Long id, @RequestParam("fields") String fields)
+        throws BadRequestException {
+        log.debug("REST request to get ProtocolPdfFile : {} with fields : {}", id, fields);
+        return ResponseUtil.wrapOrNotFound(fieldProjection.findById(ProtocolPdfFile.class, fields, organizationVisibility.protocolPdfFiles(), id));
+    }
+
     /**
      * {@code DELETE  /protocol-pdf-files/:id} : delete the "id" protocolPdfFile.
      *
@@ -183,6 +335,7 @@ public class ProtocolPdfFileResource {
     public ResponseEntity<Void> deleteProtocolPdfFile(@PathVariable("id") Long id) {
         log.debug("REST request to delete ProtocolPdfFile : {}", id);
         protocolPdfFileRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(ProtocolPdfFile.class, id, EntityChangedEvent.Operation.DELETE));
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
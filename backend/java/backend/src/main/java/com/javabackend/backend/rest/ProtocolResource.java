@@ -1,33 +1,54 @@
 package com.javabackend.backend.rest;
 
 
+import com.javabackend.backend.service.loading.EntityMultiLoader;
 import com.javabackend.backend.util.HeaderUtil;
 import com.javabackend.backend.util.PaginationUtil;
 import com.javabackend.backend.util.ResponseUtil;
 import com.javabackend.backend.domain.Protocol;
+import com.javabackend.backend.domain.id.TimeOrderedId;
 import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.javabackend.backend.repository.ProtocolRepository;
+import com.javabackend.backend.service.EntityUpdateService;
+import com.javabackend.backend.service.ProtocolStatisticsService;
+import com.javabackend.backend.service.archive.ArchivedProtocol;
+import com.javabackend.backend.service.archive.ProtocolArchiver;
+import com.javabackend.backend.service.bundle.ProtocolBundle;
+import com.javabackend.backend.service.bundle.ProtocolBundleService;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import com.javabackend.backend.service.event.ProtocolChangedEvent;
+import com.javabackend.backend.service.feed.ProtocolChangeFeed;
+import com.javabackend.backend.service.permission.OrganizationVisibility;
+import com.javabackend.backend.service.projection.FieldProjection;
 
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
 /**
  * REST controller for managing {@link Protocol}.
  */
+@RestController
 @RequestMapping("/api/protocols")
 @Transactional
 public class ProtocolResource {
@@ -41,24 +62,71 @@ public class ProtocolResource {
 
     private final ProtocolRepository protocolRepository;
 
-    public ProtocolResource(ProtocolRepository protocolRepository) {
+    private final EntityUpdateService entityUpdateService;
+
+    private final OrganizationVisibility organizationVisibility;
+
+    private final ProtocolStatisticsService protocolStatisticsService;
+
+    private final ProtocolChangeFeed protocolChangeFeed;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final FieldProjection fieldProjection;
+
+    private final EntityMultiLoader entityMultiLoader;
+
+    private final ProtocolBundleService protocolBundleService;
+
+    private final ProtocolArchiver protocolArchiver;
+
+    public ProtocolResource(
+        ProtocolRepository protocolRepository,
+        EntityUpdateService entityUpdateService,
+        OrganizationVisibility organizationVisibility,
+        ProtocolStatisticsService protocolStatisticsService,
+        ProtocolChangeFeed protocolChangeFeed,
+        ApplicationEventPublisher eventPublisher,
+        FieldProjection fieldProjection,
+        EntityMultiLoader entityMultiLoader,
+        ProtocolBundleService protocolBundleService,
+        ProtocolArchiver protocolArchiver
+    ) {
         this.protocolRepository = protocolRepository;
+        this.entityUpdateService = entityUpdateService;
+        this.organizationVisibility = organizationVisibility;
+        this.protocolStatisticsService = protocolStatisticsService;
+        this.protocolChangeFeed = protocolChangeFeed;
+        this.eventPublisher = eventPublisher;
+        this.fieldProjection = fieldProjection;
+        this.entityMultiLoader = entityMultiLoader;
+        this.protocolBundleService = protocolBundleService;
+        this.protocolArchiver = protocolArchiver;
     }
 
     /**
      * {@code POST  /protocols} : Create a new protocol.
      *
      * @param protocol the protocol to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new protocol, or with status {@code 400 (Bad Request)} if the protocol has already an ID.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new protocol, or with status {@code 400 (Bad Request)} if the protocol has a server generated ID,
+     * or with status {@code 409 (Conflict)} if its client generated ID is taken.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("")
     public ResponseEntity<Protocol> createProtocol(@RequestBody Protocol protocol) throws URISyntaxException, BadRequestException {
         log.debug("REST request to save Protocol : {}", protocol);
         if (protocol.getId() != null) {
-            throw new BadRequestException("A new protocol cannot already have an ID");
+            if (!TimeOrderedId.isClientId(protocol.getId())) {
+                throw new BadRequestException("A new protocol can only have a client generated ID");
+            }
+            if (protocolRepository.existsById(protocol.getId())) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT);
+            }
         }
         Protocol result = protocolRepository.save(protocol);
+        protocolStatisticsService.record(null, protocolStatisticsService.stateOf(result));
+        eventPublisher.publishEvent(new EntityChangedEvent(Protocol.class, result.getId(), EntityChangedEvent.Operation.CREATE));
+        eventPublisher.publishEvent(ProtocolChangedEvent.of(result));
         return ResponseEntity
             .created(new URI("/api/protocols/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
@@ -72,6 +140,8 @@ public class ProtocolResource {
      * @param protocol the protocol to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated protocol,
      * or with status {@code 400 (Bad Request)} if the protocol is not valid,
+     * or with status {@code 404 (Not Found)} if the protocol is not found,
+     * or with status {@code 409 (Conflict)} if the protocol has been modified since the given version,
      * or with status {@code 500 (Internal Server Error)} if the protocol couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -88,11 +158,19 @@ public class ProtocolResource {
             throw new BadRequestException("Invalid ID");
         }
 
-        if (!protocolRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
+        if (protocol.getVersion() == null) {
+            throw new BadRequestException("Invalid version");
         }
 
-        Protocol result = protocolRepository.save(protocol);
+        ProtocolStatisticsService.State before = protocolStatisticsService.lockState(id);
+        if (entityUpdateService.replace(Protocol.class, id, protocol.getVersion(), protocol) == 0) {
+            throw new ResponseStatusException(protocolRepository.existsById(id) ? HttpStatus.CONFLICT : HttpStatus.NOT_FOUND);
+        }
+
+        Protocol result = protocolRepository.findById(id).orElseThrow();
+        protocolStatisticsService.record(before, protocolStatisticsService.stateOf(result));
+        eventPublisher.publishEvent(new EntityChangedEvent(Protocol.class, id, EntityChangedEvent.Operation.UPDATE));
+        eventPublisher.publishEvent(ProtocolChangedEvent.of(result));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, protocol.getId().toString()))
@@ -123,32 +201,17 @@ public class ProtocolResource {
             throw new BadRequestException("Invalid ID");
         }
 
-        if (!protocolRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
+        ProtocolStatisticsService.State before = protocolStatisticsService.lockState(id);
+        if (entityUpdateService.patch(Protocol.class, id, protocol) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
 
-        Optional<Protocol> result = protocolRepository
-            .findById(protocol.getId())
-            .map(existingProtocol -> {
-                if (protocol.getIsDraft() != null) {
-                    existingProtocol.setIsDraft(protocol.getIsDraft());
-                }
-                if (protocol.getReviewComment() != null) {
-                    existingProtocol.setReviewComment(protocol.getReviewComment());
-                }
-                if (protocol.getIsClosed() != null) {
-                    existingProtocol.setIsClosed(protocol.getIsClosed());
-                }
-                if (protocol.getClosedAt() != null) {
-                    existingProtocol.setClosedAt(protocol.getClosedAt());
-                }
-                if (protocol.getCreatedOrEdited() != null) {
-                    existingProtocol.setCreatedOrEdited(protocol.getCreatedOrEdited());
-                }
-
-                return existingProtocol;
-            })
-            .map(protocolRepository::save);
+        Optional<Protocol> result = protocolRepository.findById(id);
+        result.ifPresent(updated -> {
+            protocolStatisticsService.record(before, protocolStatisticsService.stateOf(updated));
+            eventPublisher.publishEvent(new EntityChangedEvent(Protocol.class, id, EntityChangedEvent.Operation.UPDATE));
+            eventPublisher.publishEvent(ProtocolChangedEvent.of(updated));
+        });
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -162,29 +225,129 @@ public class ProtocolResource {
      * @param pageable the pagination information.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of protocols in body.
      */
+    @Transactional(readOnly = true)
     @GetMapping("")
     public ResponseEntity<List<Protocol>> getAllProtocols(@org.springdoc.core.annotations.ParameterObject Pageable pageable) {
         log.debug("REST request to get a page of Protocols");
-        Page<Protocol> page = protocolRepository.findAll(pageable);
+        Page<Protocol> page = protocolRepository.findAll(organizationVisibility.protocols(), pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /protocols?fields=} : get a page of the given fields of the protocols.
+     *
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of protocols in body, or with status {@code 400 (Bad Request)} if a field is unknown.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllProtocolFields(
+        @RequestParam("fields") String fields,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of Protocols with fields : {}", fields);
+        Page<Map<String, Object>> page = fieldProjection.findAll(Protocol.class, fields, organizationVisibility.protocols(), pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /protocols/changes} : subscribe to the committed protocol writes as Server-Sent Events.
+     * <p>
+     * Every write is one {@code protocol} event with the id, organization, state and edit time of the protocol. An
+     * {@code overflow} event means that changes have been dropped because the client didn't keep up. Only changes of
+     * the organizations visible to the session user are sent, including the writes on the other instances.
+     *
+     * @param organizationId only changes of this organization.
+     * @param includeDescendants also the changes of the descendants of {@code organizationId}.
+     * @return the event stream, or with status {@code 401 (Unauthorized)} without a valid session.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getProtocolChanges(
+        @RequestParam(value = "organizationId", required = false) Long organizationId,
+        @RequestParam(value = "includeDescendants", defaultValue = "false") boolean includeDescendants
+    ) {
+        log.debug("REST request to subscribe to Protocol changes : {}", organizationId);
+        return protocolChangeFeed.subscribe(organizationId, includeDescendants, organizationVisibility.organizations());
+    }
+
     /**
      * {@code GET  /protocols/:id} : get the "id" protocol.
      *
      * @param id the id of the protocol to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the protocol, or with status {@code 404 (Not Found)}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the protocol, live or archived, or with status {@code 404 (Not Found)}.
      */
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public ResponseEntity<Protocol> getProtocol(@PathVariable("id") Long id) {
         log.debug("REST request to get Protocol : {}", id);
-        Optional<Protocol> protocol = protocolRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(protocol);
+        Optional<Protocol> protocol = protocolRepository.findById(id).or(() -> protocolArchiver.find(id).map(ArchivedProtocol::toProtocol));
+        return ResponseUtil.wrapOrNotFound(organizationVisibility.filter(protocol, OrganizationVisibility::organizationOf));
+    }
+
+    /**
+     * {@code GET  /protocols/:id/bundle} : get the "id" protocol with its content, PDF metadata, owner, organization and
+     * additional users, everything needed to open it.
+     *
+     * @param id the id of the protocol to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the protocol bundle, as archived for archived protocols, or with status {@code 404 (Not Found)}.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping("/{id}/bundle")
+    public ResponseEntity<ProtocolBundle> getProtocolBundle(@PathVariable("id") Long id) {
+        log.debug("REST request to get the bundle of Protocol : {}", id);
+        Optional<ProtocolBundle> bundle = protocolBundleService
+            .find(id)
+            .or(() -> protocolArchiver.find(id).map(ArchivedProtocol::protocol));
+        return ResponseUtil.wrapOrNotFound(organizationVisibility.filter(bundle, OrganizationVisibility::organizationOf));
+    }
+
+    /**
+     * {@code GET  /protocols?ids=} : get the protocols with the given ids.
+     *
+     * @param ids the comma separated ids of the protocols to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing protocols in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = { "ids", "!fields" })
+    public List<Protocol> getProtocolsByIds(@RequestParam("ids") List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get Protocols : {}", ids);
+        return organizationVisibility.filter(entityMultiLoader.findAllById(Protocol.class, ids), OrganizationVisibility::organizationOf);
     }
 
     /**
-     * {@code DELETE  /protocols/:id} : delete the "id" protocol.
+     * {@code POST  /protocols/by-ids} : get the protocols with the ids in the body, for lists of ids too long for the URL.
+     *
+     * @param ids the ids of the protocols to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing protocols in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @PostMapping("/by-ids")
+    public List<Protocol> getProtocolsByIdsInBody(@RequestBody List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get Protocols : {}", ids);
+        return organizationVisibility.filter(entityMultiLoader.findAllById(Protocol.class, ids), OrganizationVisibility::organizationOf);
+    }
+
+    /**
+     * {@code GET  /protocols/:id?fields=} : get the given fields of the "id" protocol.
+     *
+     * @param id the id of the protocol to retrieve.
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the fields of the protocol, or with status {@code 404 (Not Found)}.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getProtocolFields(@PathVariable("id") Long id, @RequestParam("fields") String fields)
+        throws BadRequestException {
+        log.debug("REST request to get Protocol : {} with fields : {}", id, fields);
+        return ResponseUtil.wrapOrNotFound(fieldProjection.findById(Protocol.class, fields, organizationVisibility.protocols(), id));
+    }
+
+    /**
+     * {@code DELETE  /protocols/:id} : delete the "id" protocol, live or archived.
      *
      * @param id the id of the protocol to delete.
      * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
@@ -192,7 +355,14 @@ public class ProtocolResource {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProtocol(@PathVariable("id") Long id) {
         log.debug("REST request to delete Protocol : {}", id);
+        ProtocolStatisticsService.State before = protocolStatisticsService.lockState(id);
+        if (before == null) {
+            before = protocolArchiver.delete(id).map(protocolStatisticsService::stateOf).orElse(null);
+        }
+        protocolStatisticsService.record(before, null);
         protocolRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(Protocol.class, id, EntityChangedEvent.Operation.DELETE));
+        eventPublisher.publishEvent(ProtocolChangedEvent.deleted(id, before == null ? null : before.organizationId()));
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
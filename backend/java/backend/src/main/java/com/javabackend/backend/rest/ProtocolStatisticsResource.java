@@ -0,0 +1,93 @@
+package com.javabackend.backend.rest;
+
+import com.javabackend.backend.domain.ProtocolStatistics;
+import com.javabackend.backend.repository.ProtocolStatisticsRepository;
+import com.javabackend.backend.service.ProtocolStatisticsService;
+import com.javabackend.backend.service.permission.OrganizationTree;
+import org.apache.coyote.BadRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST controller for reading the {@link ProtocolStatistics} rollups.
+ */
+@RestController
+@RequestMapping("/api/protocol-statistics")
+@Transactional
+public class ProtocolStatisticsResource {
+
+    private final Logger log = LoggerFactory.getLogger(ProtocolStatisticsResource.class);
+
+    private static final int DEFAULT_DAYS = 30;
+
+    private final ProtocolStatisticsRepository protocolStatisticsRepository;
+
+    private final ProtocolStatisticsService protocolStatisticsService;
+
+    private final OrganizationTree organizationTree;
+
+    public ProtocolStatisticsResource(
+        ProtocolStatisticsRepository protocolStatisticsRepository,
+        ProtocolStatisticsService protocolStatisticsService,
+        OrganizationTree organizationTree
+    ) {
+        this.protocolStatisticsRepository = protocolStatisticsRepository;
+        this.protocolStatisticsService = protocolStatisticsService;
+        this.organizationTree = organizationTree;
+    }
+
+    /**
+     * {@code GET  /protocol-statistics} : get the protocol counts per organization and day.
+     *
+     * @param organizationId      the organization to report, all organizations if absent.
+     * @param includeDescendants  also report the descendants of the organization.
+     * @param from                the first day, 30 days before {@code to} if absent.
+     * @param to                  the last day, today if absent.
+     * @return the list of rollups, ordered by organization and day.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping("")
+    public List<ProtocolStatistics> getProtocolStatistics(
+        @RequestParam(name = "organizationId", required = false) Long organizationId,
+        @RequestParam(name = "includeDescendants", defaultValue = "false") boolean includeDescendants,
+        @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) throws BadRequestException {
+        log.debug("REST request to get ProtocolStatistics : {}, {}, {} - {}", organizationId, includeDescendants, from, to);
+        LocalDate last = to == null ? LocalDate.now() : to;
+        LocalDate first = from == null ? last.minusDays(DEFAULT_DAYS) : from;
+        if (first.isAfter(last)) {
+            throw new BadRequestException("Invalid range");
+        }
+        if (organizationId != null && includeDescendants) {
+            OrganizationTree.Interval subtree = organizationTree.interval(organizationId);
+            if (subtree == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            }
+            return protocolStatisticsRepository.findAllInSubtreeBetween(subtree.left(), subtree.right(), first, last);
+        }
+        return protocolStatisticsRepository.findAllBetween(organizationId, first, last);
+    }
+
+    /**
+     * {@code POST  /protocol-statistics/rebuild} : recompute all rollups from the protocols.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the number of rollups.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @PostMapping("/rebuild")
+    public ResponseEntity<Long> rebuildProtocolStatistics() {
+        log.debug("REST request to rebuild ProtocolStatistics");
+        return ResponseEntity.ok(protocolStatisticsService.rebuild());
+    }
+}
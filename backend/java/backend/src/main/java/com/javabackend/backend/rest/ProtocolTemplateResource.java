@@ -1,26 +1,43 @@
 package com.javabackend.backend.rest;
 
+import com.javabackend.backend.service.loading.EntityMultiLoader;
+import com.javabackend.backend.service.paging.KeysetPage;
+import com.javabackend.backend.service.paging.KeysetPaging;
 import com.javabackend.backend.util.HeaderUtil;
+import com.javabackend.backend.util.PaginationUtil;
 import com.javabackend.backend.util.ResponseUtil;
 import com.javabackend.backend.domain.ProtocolTemplate;
 import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.javabackend.backend.repository.ProtocolTemplateRepository;
+import com.javabackend.backend.service.EntityUpdateService;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import com.javabackend.backend.service.projection.FieldProjection;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
 /**
  * REST controller for managing {@link ProtocolTemplate}.
  */
+@RestController
 @RequestMapping("/api/protocol-templates")
 @Transactional
 public class ProtocolTemplateResource {
@@ -34,8 +51,30 @@ public class ProtocolTemplateResource {
 
     private final ProtocolTemplateRepository protocolTemplateRepository;
 
-    public ProtocolTemplateResource(ProtocolTemplateRepository protocolTemplateRepository) {
+    private final EntityUpdateService entityUpdateService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final FieldProjection fieldProjection;
+
+    private final KeysetPaging keysetPaging;
+
+    private final EntityMultiLoader entityMultiLoader;
+
+    public ProtocolTemplateResource(
+        ProtocolTemplateRepository protocolTemplateRepository,
+        EntityUpdateService entityUpdateService,
+        ApplicationEventPublisher eventPublisher,
+        FieldProjection fieldProjection,
+        KeysetPaging keysetPaging,
+        EntityMultiLoader entityMultiLoader
+    ) {
         this.protocolTemplateRepository = protocolTemplateRepository;
+        this.entityUpdateService = entityUpdateService;
+        this.eventPublisher = eventPublisher;
+        this.fieldProjection = fieldProjection;
+        this.keysetPaging = keysetPaging;
+        this.entityMultiLoader = entityMultiLoader;
     }
 
     /**
@@ -53,6 +92,7 @@ public class ProtocolTemplateResource {
             throw new BadRequestException("A new protocolTemplate cannot already have an ID");
         }
         ProtocolTemplate result = protocolTemplateRepository.save(protocolTemplate);
+        eventPublisher.publishEvent(new EntityChangedEvent(ProtocolTemplate.class, result.getId(), EntityChangedEvent.Operation.CREATE));
         return ResponseEntity
             .created(new URI("/api/protocol-templates/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
@@ -66,6 +106,8 @@ public class ProtocolTemplateResource {
      * @param protocolTemplate the protocolTemplate to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated protocolTemplate,
      * or with status {@code 400 (Bad Request)} if the protocolTemplate is not valid,
+     * or with status {@code 404 (Not Found)} if the protocolTemplate is not found,
+     * or with status {@code 409 (Conflict)} if the protocolTemplate has been modified since the given version,
      * or with status {@code 500 (Internal Server Error)} if the protocolTemplate couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -82,11 +124,16 @@ public class ProtocolTemplateResource {
             throw new BadRequestException("Invalid id");
         }
 
-        if (!protocolTemplateRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
+        if (protocolTemplate.getVersion() == null) {
+            throw new BadRequestException("Invalid version");
         }
 
-        ProtocolTemplate result = protocolTemplateRepository.save(protocolTemplate);
+        if (entityUpdateService.replace(ProtocolTemplate.class, id, protocolTemplate.getVersion(), protocolTemplate) == 0) {
+            throw new ResponseStatusException(protocolTemplateRepository.existsById(id) ? HttpStatus.CONFLICT : HttpStatus.NOT_FOUND);
+        }
+
+        ProtocolTemplate result = protocolTemplateRepository.findById(id).orElseThrow();
+        eventPublisher.publishEvent(new EntityChangedEvent(ProtocolTemplate.class, id, EntityChangedEvent.Operation.UPDATE));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, protocolTemplate.getId().toString()))
@@ -117,29 +164,13 @@ public class ProtocolTemplateResource {
             throw new BadRequestException("Invalid id");
         }
 
-        if (!protocolTemplateRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
+        if (entityUpdateService.patch(ProtocolTemplate.class, id, protocolTemplate) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
 
-        Optional<ProtocolTemplate> result = protocolTemplateRepository
-            .findById(protocolTemplate.getId())
-            .map(existingProtocolTemplate -> {
-                if (protocolTemplate.getName() != null) {
-                    existingProtocolTemplate.setName(protocolTemplate.getName());
-                }
-                if (protocolTemplate.getDescription() != null) {
-                    existingProtocolTemplate.setDescription(protocolTemplate.getDescription());
-                }
-                if (protocolTemplate.getTemplate() != null) {
-                    existingProtocolTemplate.setTemplate(protocolTemplate.getTemplate());
-                }
-                if (protocolTemplate.getCreatedOrEdited() != null) {
-                    existingProtocolTemplate.setCreatedOrEdited(protocolTemplate.getCreatedOrEdited());
-                }
-
-                return existingProtocolTemplate;
-            })
-            .map(protocolTemplateRepository::save);
+        eventPublisher.publishEvent(new EntityChangedEvent(ProtocolTemplate.class, id, EntityChangedEvent.Operation.UPDATE));
+
+        Optional<ProtocolTemplate> result = protocolTemplateRepository.findById(id);
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -148,14 +179,61 @@ public class ProtocolTemplateResource {
     }
 
     /**
-     * {@code GET  /protocol-templates} : get all the protocolTemplates.
+     * {@code GET  /protocol-templates} : get a page of the protocolTemplates, ordered by id.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of protocolTemplates in body.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of protocolTemplates, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of protocolTemplates in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if the limit is out of range.
      */
+    @Transactional(readOnly = true)
     @GetMapping("")
-    public List<ProtocolTemplate> getAllProtocolTemplates() {
-        log.debug("REST request to get all ProtocolTemplates");
-        return protocolTemplateRepository.findAll();
+    public ResponseEntity<List<ProtocolTemplate>> getAllProtocolTemplates(
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of ProtocolTemplates after : {}", cursor);
+        KeysetPage<ProtocolTemplate> page = keysetPaging.page(ProtocolTemplate.class, null, cursor, keysetPaging.limit(limit));
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
+    }
+
+    /**
+     * {@code GET  /protocol-templates} with {@code Accept: application/x-ndjson} : stream all the protocolTemplates, one JSON document per line.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the protocolTemplates as newline delimited JSON in body.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @GetMapping(value = "", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProtocolTemplates() {
+        log.debug("REST request to stream all ProtocolTemplates");
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(keysetPaging.stream(ProtocolTemplate.class, null));
+    }
+
+    /**
+     * {@code GET  /protocol-templates?fields=} : get a page of the given fields of the protocolTemplates, ordered by id.
+     *
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of protocolTemplates, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of protocolTemplates in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if a field is unknown or the limit is out of range.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllProtocolTemplatesFields(
+        @RequestParam("fields") String fields,
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of ProtocolTemplates after : {} with fields : {}", cursor, fields);
+        KeysetPage<Map<String, Object>> page = fieldProjection.findAll(
+            ProtocolTemplate.class,
+            fields,
+            null,
+            cursor,
+            keysetPaging.limit(limit)
+        );
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
     }
 
     /**
@@ -164,6 +242,7 @@ public class ProtocolTemplateResource {
      * @param id the id of the protocolTemplate to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the protocolTemplate, or with status {@code 404 (Not Found)}.
      */
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public ResponseEntity<ProtocolTemplate> getProtocolTemplate(@PathVariable("id") Long id) {
         log.debug("REST request to get ProtocolTemplate : {}", id);
@@ -171,6 +250,47 @@ public class ProtocolTemplateResource {
         return ResponseUtil.wrapOrNotFound(protocolTemplate);
     }
 
+    /**
+     * {@code GET  /protocol-templates?ids=} : get the protocolTemplates with the given ids.
+     *
+     * @param ids the comma separated ids of the protocolTemplates to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing protocolTemplates in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = { "ids", "!fields" })
+    public List<ProtocolTemplate> getProtocolTemplatesByIds(@RequestParam("ids") List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get ProtocolTemplates : {}", ids);
+        return entityMultiLoader.findAllById(ProtocolTemplate.class, ids);
+    }
+
+    /**
+     * {@code POST  /protocol-templates/by-ids} : get the protocolTemplates with the ids in the body, for lists of ids too long for the URL.
+     *
+     * @param ids the ids of the protocolTemplates to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing protocolTemplates in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @PostMapping("/by-ids")
+    public List<ProtocolTemplate> getProtocolTemplatesByIdsInBody(@RequestBody List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get ProtocolTemplates : {}", ids);
+        return entityMultiLoader.findAllById(ProtocolTemplate.class, ids);
+    }
+
+    /**
+     * {@code GET  /protocol-templates/:id?fields=} : get the given fields of the "id" protocolTemplate.
+     *
+     * @param id the id of the protocolTemplate to retrieve.
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the fields of the protocolTemplate, or with status {@code 404 (Not Found)}.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getProtocolTemplateFields(@PathVariable("id") Long id, @RequestParam("fields") String fields)
+        throws BadRequestException {
+        log.debug("REST request to get ProtocolTemplate : {} with fields : {}", id, fields);
+        return ResponseUtil.wrapOrNotFound(fieldProjection.findById(ProtocolTemplate.class, fields, id));
+    }
+
     /**
      * {@code DELETE  /protocol-templates/:id} : delete the "id" protocolTemplate.
      *
@@ -181,6 +301,7 @@ public class ProtocolTemplateResource {
     public ResponseEntity<Void> deleteProtocolTemplate(@PathVariable("id") Long id) {
         log.debug("REST request to delete ProtocolTemplate : {}", id);
         protocolTemplateRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(ProtocolTemplate.class, id, EntityChangedEvent.Operation.DELETE));
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
@@ -0,0 +1,103 @@
+package com.javabackend.backend.rest;
+
+import com.javabackend.backend.domain.AdditionalUser;
+import com.javabackend.backend.domain.id.TimeOrderedId;
+import com.javabackend.backend.service.upload.ProtocolUpload;
+import com.javabackend.backend.service.upload.ProtocolUploadService;
+import org.apache.coyote.BadRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * REST controller for uploading protocols created offline.
+ */
+@RestController
+@RequestMapping("/api/protocol-uploads")
+@Transactional
+public class ProtocolUploadResource {
+
+    private final Logger log = LoggerFactory.getLogger(ProtocolUploadResource.class);
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final ProtocolUploadService protocolUploadService;
+
+    private final int maxBatchSize;
+
+    public ProtocolUploadResource(
+        ProtocolUploadService protocolUploadService,
+        @Value("${application.upload.max-batch-size:100}") int maxBatchSize
+    ) {
+        this.protocolUploadService = protocolUploadService;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * {@code POST  /protocol-uploads} : Create a batch of protocols with their contents, PDFs and additional users.
+     * <p>
+     * The batch is stored in one transaction. An upload with an idempotency key used before is not stored again, its
+     * result is the result of the first upload.
+     *
+     * @param uploads the protocols to create, with distinct idempotency keys.
+     * @return the ids of the protocols, in the order of the uploads,
+     * or with status {@code 400 (Bad Request)} if an upload is not valid,
+     * or with status {@code 409 (Conflict)} if a key is being uploaded concurrently or a client generated ID is taken.
+     */
+    @PostMapping("")
+    public List<ProtocolUpload.Result> uploadProtocols(@RequestBody List<ProtocolUpload> uploads) throws BadRequestException {
+        log.debug("REST request to upload {} Protocols", uploads.size());
+        if (uploads.isEmpty() || uploads.size() > maxBatchSize) {
+            throw new BadRequestException("Invalid batch size");
+        }
+        Set<String> keys = new HashSet<>();
+        for (ProtocolUpload upload : uploads) {
+            validate(upload);
+            if (!keys.add(upload.idempotencyKey())) {
+                throw new BadRequestException("Duplicate idempotency key");
+            }
+        }
+
+        try {
+            return protocolUploadService.upload(uploads);
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Idempotency key or ID in use", e);
+        }
+    }
+
+    private static boolean isNewId(Long id) {
+        return id == null || TimeOrderedId.isClientId(id);
+    }
+
+    private static void validate(ProtocolUpload upload) throws BadRequestException {
+        String key = upload.idempotencyKey();
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Invalid idempotency key");
+        }
+        if (upload.protocol() == null || !isNewId(upload.protocol().getId())) {
+            throw new BadRequestException("A new protocol can only have a client generated ID");
+        }
+        if (upload.protocolContent() != null && !isNewId(upload.protocolContent().getId())) {
+            throw new BadRequestException("A new protocolContent can only have a client generated ID");
+        }
+        if (upload.protocolPdfFile() != null && !isNewId(upload.protocolPdfFile().getId())) {
+            throw new BadRequestException("A new protocolPdfFile can only have a client generated ID");
+        }
+        if (upload.additionalUsers() != null) {
+            for (AdditionalUser additionalUser : upload.additionalUsers()) {
+                if (additionalUser == null || !isNewId(additionalUser.getId())) {
+                    throw new BadRequestException("A new additionalUser can only have a client generated ID");
+                }
+            }
+        }
+    }
+}
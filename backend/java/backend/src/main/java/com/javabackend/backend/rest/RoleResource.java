@@ -1,26 +1,43 @@
 package com.javabackend.backend.rest;
 
+import com.javabackend.backend.service.loading.EntityMultiLoader;
+import com.javabackend.backend.service.paging.KeysetPage;
+import com.javabackend.backend.service.paging.KeysetPaging;
 import com.javabackend.backend.util.HeaderUtil;
+import com.javabackend.backend.util.PaginationUtil;
 import com.javabackend.backend.util.ResponseUtil;
 import com.javabackend.backend.domain.Role;
 import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.javabackend.backend.repository.RoleRepository;
+import com.javabackend.backend.service.EntityUpdateService;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import com.javabackend.backend.service.projection.FieldProjection;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
 /**
  * REST controller for managing {@link Role}.
  */
+@RestController
 @RequestMapping("/api/roles")
 @Transactional
 public class RoleResource {
@@ -34,8 +51,30 @@ public class RoleResource {
 
     private final RoleRepository roleRepository;
 
-    public RoleResource(RoleRepository roleRepository) {
+    private final EntityUpdateService entityUpdateService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final FieldProjection fieldProjection;
+
+    private final KeysetPaging keysetPaging;
+
+    private final EntityMultiLoader entityMultiLoader;
+
+    public RoleResource(
+        RoleRepository roleRepository,
+        EntityUpdateService entityUpdateService,
+        ApplicationEventPublisher eventPublisher,
+        FieldProjection fieldProjection,
+        KeysetPaging keysetPaging,
+        EntityMultiLoader entityMultiLoader
+    ) {
         this.roleRepository = roleRepository;
+        this.entityUpdateService = entityUpdateService;
+        this.eventPublisher = eventPublisher;
+        this.fieldProjection = fieldProjection;
+        this.keysetPaging = keysetPaging;
+        this.entityMultiLoader = entityMultiLoader;
     }
 
     /**
@@ -52,6 +91,7 @@ public class RoleResource {
             throw new BadRequestException("A new role cannot already have an ID");
         }
         Role result = roleRepository.save(role);
+        eventPublisher.publishEvent(new EntityChangedEvent(Role.class, result.getId(), EntityChangedEvent.Operation.CREATE));
         return ResponseEntity
             .created(new URI("/api/roles/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
@@ -84,6 +124,7 @@ public class RoleResource {
         }
 
         Role result = roleRepository.save(role);
+        eventPublisher.publishEvent(new EntityChangedEvent(Role.class, id, EntityChangedEvent.Operation.UPDATE));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, role.getId().toString()))
@@ -112,23 +153,13 @@ public class RoleResource {
             throw new BadRequestException("Invalid ID");
         }
 
-        if (!roleRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
+        if (entityUpdateService.patch(Role.class, id, role) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
 
-        Optional<Role> result = roleRepository
-            .findById(role.getId())
-            .map(existingRole -> {
-                if (role.getName() != null) {
-                    existingRole.setName(role.getName());
-                }
-                if (role.getDescription() != null) {
-                    existingRole.setDescription(role.getDescription());
-                }
+        eventPublisher.publishEvent(new EntityChangedEvent(Role.class, id, EntityChangedEvent.Operation.UPDATE));
 
-                return existingRole;
-            })
-            .map(roleRepository::save);
+        Optional<Role> result = roleRepository.findById(id);
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -137,14 +168,55 @@ public class RoleResource {
     }
 
     /**
-     * {@code GET  /roles} : get all the roles.
+     * {@code GET  /roles} : get a page of the roles, ordered by id.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of roles in body.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of roles, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of roles in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if the limit is out of range.
      */
+    @Transactional(readOnly = true)
     @GetMapping("")
-    public List<Role> getAllRoles() {
-        log.debug("REST request to get all Roles");
-        return roleRepository.findAll();
+    public ResponseEntity<List<Role>> getAllRoles(
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of Roles after : {}", cursor);
+        KeysetPage<Role> page = keysetPaging.page(Role.class, null, cursor, keysetPaging.limit(limit));
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
+    }
+
+    /**
+     * {@code GET  /roles} with {@code Accept: application/x-ndjson} : stream all the roles, one JSON document per line.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the roles as newline delimited JSON in body.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @GetMapping(value = "", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamRoles() {
+        log.debug("REST request to stream all Roles");
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(keysetPaging.stream(Role.class, null));
+    }
+
+    /**
+     * {@code GET  /roles?fields=} : get a page of the given fields of the roles, ordered by id.
+     *
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of roles, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of roles in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if a field is unknown or the limit is out of range.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllRolesFields(
+        @RequestParam("fields") String fields,
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of Roles after : {} with fields : {}", cursor, fields);
+        KeysetPage<Map<String, Object>> page = fieldProjection.findAll(Role.class, fields, null, cursor, keysetPaging.limit(limit));
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
     }
 
     /**
@@ -153,6 +225,7 @@ public class RoleResource {
      * @param id the id of the role to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the role, or with status {@code 404 (Not Found)}.
      */
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public ResponseEntity<Role> getRole(@PathVariable("id") Long id) {
         log.debug("REST request to get Role : {}", id);
@@ -160,6 +233,47 @@ public class RoleResource {
         return ResponseUtil.wrapOrNotFound(role);
     }
 
+    /**
+     * {@code GET  /roles?ids=} : get the roles with the given ids.
+     *
+     * @param ids the comma separated ids of the roles to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing roles in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = { "ids", "!fields" })
+    public List<Role> getRolesByIds(@RequestParam("ids") List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get Roles : {}", ids);
+        return entityMultiLoader.findAllById(Role.class, ids);
+    }
+
+    /**
+     * {@code POST  /roles/by-ids} : get the roles with the ids in the body, for lists of ids too long for the URL.
+     *
+     * @param ids the ids of the roles to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing roles in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @PostMapping("/by-ids")
+    public List<Role> getRolesByIdsInBody(@RequestBody List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get Roles : {}", ids);
+        return entityMultiLoader.findAllById(Role.class, ids);
+    }
+
+    /**
+     * {@code GET  /roles/:id?fields=} : get the given fields of the "id" role.
+     *
+     * @param id the id of the role to retrieve.
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the fields of the role, or with status {@code 404 (Not Found)}.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getRoleFields(@PathVariable("id") Long id, @RequestParam("fields") String fields)
+        throws BadRequestException {
+        log.debug("REST request to get Role : {} with fields : {}", id, fields);
+        return ResponseUtil.wrapOrNotFound(fieldProjection.findById(Role.class, fields, id));
+    }
+
     /**
      * {@code DELETE  /roles/:id} : delete the "id" role.
      *
@@ -170,6 +284,7 @@ public class RoleResource {
     public ResponseEntity<Void> deleteRole(@PathVariable("id") Long id) {
         log.debug("REST request to delete Role : {}", id);
         roleRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(Role.class, id, EntityChangedEvent.Operation.DELETE));
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
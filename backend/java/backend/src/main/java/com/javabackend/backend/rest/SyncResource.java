@@ -0,0 +1,51 @@
+package com.javabackend.backend.rest;
+
+import com.javabackend.backend.service.sync.ChangeLog;
+import com.javabackend.backend.service.sync.ChangeSet;
+import org.apache.coyote.BadRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for the delta sync of the offline clients.
+ */
+@RestController
+@RequestMapping("/api/sync")
+@Transactional
+public class SyncResource {
+
+    private final Logger log = LoggerFactory.getLogger(SyncResource.class);
+
+    private static final int MAX_LIMIT = 5000;
+
+    private final ChangeLog changeLog;
+
+    public SyncResource(ChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    /**
+     * {@code GET  /sync} : get the protocols, protocol contents, additional users and protocol templates changed since a
+     * watermark, and tombstones of the deleted ones, restricted to the organizations visible to the user.
+     * <p>
+     * Not read-only, so it is served by the primary database, a lagging read replica could answer with an older state
+     * than the client already has.
+     *
+     * @param since the watermark of the previous sync, {@code 0} for everything.
+     * @param limit the maximum number of changes.
+     * @return the changes with the next watermark, or with status {@code 401 (Unauthorized)} without a valid session.
+     */
+    @GetMapping("")
+    public ChangeSet getChanges(
+        @RequestParam(name = "since", defaultValue = "0") long since,
+        @RequestParam(name = "limit", defaultValue = "1000") int limit
+    ) throws BadRequestException {
+        log.debug("REST request to get changes since : {}", since);
+        if (since < 0 || limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("Invalid since or limit");
+        }
+        return changeLog.changesSince(since, limit);
+    }
+}
@@ -1,26 +1,43 @@
 package com.javabackend.backend.rest;
 
+import com.javabackend.backend.service.loading.EntityMultiLoader;
+import com.javabackend.backend.service.paging.KeysetPage;
+import com.javabackend.backend.service.paging.KeysetPaging;
 import com.javabackend.backend.util.HeaderUtil;
+import com.javabackend.backend.util.PaginationUtil;
 import com.javabackend.backend.util.ResponseUtil;
 import com.javabackend.backend.domain.TemplateOrganization;
 import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.javabackend.backend.repository.TemplateOrganizationRepository;
+import com.javabackend.backend.service.EntityUpdateService;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import com.javabackend.backend.service.projection.FieldProjection;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
 /**
  * REST controller for managing {@link TemplateOrganization}.
  */
+@RestController
 @RequestMapping("/api/template-organizations")
 @Transactional
 public class TemplateOrganizationResource {
@@ -34,8 +51,30 @@ public class TemplateOrganizationResource {
 
     private final TemplateOrganizationRepository templateOrganizationRepository;
 
-    public TemplateOrganizationResource(TemplateOrganizationRepository templateOrganizationRepository) {
+    private final EntityUpdateService entityUpdateService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final FieldProjection fieldProjection;
+
+    private final KeysetPaging keysetPaging;
+
+    private final EntityMultiLoader entityMultiLoader;
+
+    public TemplateOrganizationResource(
+        TemplateOrganizationRepository templateOrganizationRepository,
+        EntityUpdateService entityUpdateService,
+        ApplicationEventPublisher eventPublisher,
+        FieldProjection fieldProjection,
+        KeysetPaging keysetPaging,
+        EntityMultiLoader entityMultiLoader
+    ) {
         this.templateOrganizationRepository = templateOrganizationRepository;
+        this.entityUpdateService = entityUpdateService;
+        this.eventPublisher = eventPublisher;
+        this.fieldProjection = fieldProjection;
+        this.keysetPaging = keysetPaging;
+        this.entityMultiLoader = entityMultiLoader;
     }
 
     /**
@@ -53,6 +92,7 @@ public class TemplateOrganizationResource {
             throw new BadRequestException("A new templateOrganization cannot already have an ID");
         }
         TemplateOrganization result = templateOrganizationRepository.save(templateOrganization);
+        eventPublisher.publishEvent(new EntityChangedEvent(TemplateOrganization.class, result.getId(), EntityChangedEvent.Operation.CREATE));
         return ResponseEntity
                 .created(new URI("/api/template-organizations/" + result.getId()))
                 .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
@@ -87,6 +127,7 @@ public class TemplateOrganizationResource {
         }
 
         TemplateOrganization result = templateOrganizationRepository.save(templateOrganization);
+        eventPublisher.publishEvent(new EntityChangedEvent(TemplateOrganization.class, id, EntityChangedEvent.Operation.UPDATE));
         return ResponseEntity
                 .ok()
                 .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, templateOrganization.getId().toString()))
@@ -117,13 +158,12 @@ public class TemplateOrganizationResource {
             throw new BadRequestException("Invalid id");
         }
 
-        if (!templateOrganizationRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
+        if (entityUpdateService.patch(TemplateOrganization.class, id, templateOrganization) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
 
-        Optional<TemplateOrganization> result = templateOrganizationRepository
-                .findById(templateOrganization.getId())
-                .map(templateOrganizationRepository::save);
+        eventPublisher.publishEvent(new EntityChangedEvent(TemplateOrganization.class, id, EntityChangedEvent.Operation.UPDATE));
+        Optional<TemplateOrganization> result = templateOrganizationRepository.findById(id);
 
         return ResponseUtil.wrapOrNotFound(
                 result,
@@ -132,14 +172,61 @@ public class TemplateOrganizationResource {
     }
 
     /**
-     * {@code GET  /template-organizations} : get all the templateOrganizations.
+     * {@code GET  /template-organizations} : get a page of the templateOrganizations, ordered by id.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of templateOrganizations in body.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of templateOrganizations, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of templateOrganizations in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if the limit is out of range.
      */
+    @Transactional(readOnly = true)
     @GetMapping("")
-    public List<TemplateOrganization> getAllTemplateOrganizations() {
-        log.debug("REST request to get all TemplateOrganizations");
-        return templateOrganizationRepository.findAll();
+    public ResponseEntity<List<TemplateOrganization>> getAllTemplateOrganizations(
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of TemplateOrganizations after : {}", cursor);
+        KeysetPage<TemplateOrganization> page = keysetPaging.page(TemplateOrganization.class, null, cursor, keysetPaging.limit(limit));
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
+    }
+
+    /**
+     * {@code GET  /template-organizations} with {@code Accept: application/x-ndjson} : stream all the templateOrganizations, one JSON document per line.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the templateOrganizations as newline delimited JSON in body.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @GetMapping(value = "", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTemplateOrganizations() {
+        log.debug("REST request to stream all TemplateOrganizations");
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(keysetPaging.stream(TemplateOrganization.class, null));
+    }
+
+    /**
+     * {@code GET  /template-organizations?fields=} : get a page of the given fields of the templateOrganizations, ordered by id.
+     *
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of templateOrganizations, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of templateOrganizations in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if a field is unknown or the limit is out of range.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllTemplateOrganizationsFields(
+        @RequestParam("fields") String fields,
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of TemplateOrganizations after : {} with fields : {}", cursor, fields);
+        KeysetPage<Map<String, Object>> page = fieldProjection.findAll(
+            TemplateOrganization.class,
+            fields,
+            null,
+            cursor,
+            keysetPaging.limit(limit)
+        );
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
     }
 
     /**
@@ -148,6 +235,7 @@ public class TemplateOrganizationResource {
      * @param id the id of the templateOrganization to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the templateOrganization, or with status {@code 404 (Not Found)}.
      */
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public ResponseEntity<TemplateOrganization> getTemplateOrganization(@PathVariable("id") Long id) {
         log.debug("REST request to get TemplateOrganization : {}", id);
@@ -155,6 +243,49 @@ public class TemplateOrganizationResource {
         return ResponseUtil.wrapOrNotFound(templateOrganization);
     }
 
+    /**
+     * {@code GET  /template-organizations?ids=} : get the templateOrganizations with the given ids.
+     *
+     * @param ids the comma separated ids of the templateOrganizations to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing templateOrganizations in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = { "ids", "!fields" })
+    public List<TemplateOrganization> getTemplateOrganizationsByIds(@RequestParam("ids") List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get TemplateOrganizations : {}", ids);
+        return entityMultiLoader.findAllById(TemplateOrganization.class, ids);
+    }
+
+    /**
+     * {@code POST  /template-organizations/by-ids} : get the templateOrganizations with the ids in the body, for lists of ids too long for the URL.
+     *
+     * @param ids the ids of the templateOrganizations to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing templateOrganizations in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @PostMapping("/by-ids")
+    public List<TemplateOrganization> getTemplateOrganizationsByIdsInBody(@RequestBody List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get TemplateOrganizations : {}", ids);
+        return entityMultiLoader.findAllById(TemplateOrganization.class, ids);
+    }
+
+    /**
+     * {@code GET  /template-organizations/:id?fields=} : get the given fields of the "id" templateOrganization.
+     *
+     * @param id the id of the templateOrganization to retrieve.
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the fields of the templateOrganization, or with status {@code 404 (Not Found)}.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getTemplateOrganizationFields(
+        @PathVariable("id") Long id,
+        @RequestParam("fields") String fields
+    ) throws BadRequestException {
+        log.debug("REST request to get TemplateOrganization : {} with fields : {}", id, fields);
+        return ResponseUtil.wrapOrNotFound(fieldProjection.findById(TemplateOrganization.class, fields, id));
+    }
+
     /**
      * {@code DELETE  /template-organizations/:id} : delete the "id" templateOrganization.
      *
@@ -165,6 +296,7 @@ public class TemplateOrganizationResource {
     public ResponseEntity<Void> deleteTemplateOrganization(@PathVariable("id") Long id) {
         log.debug("REST request to delete TemplateOrganization : {}", id);
         templateOrganizationRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(TemplateOrganization.class, id, EntityChangedEvent.Operation.DELETE));
         return ResponseEntity
                 .noContent()
                 .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
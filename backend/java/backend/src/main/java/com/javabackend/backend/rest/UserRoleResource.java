@@ -1,26 +1,43 @@
 package com.javabackend.backend.rest;
 
+import com.javabackend.backend.service.loading.EntityMultiLoader;
+import com.javabackend.backend.service.paging.KeysetPage;
+import com.javabackend.backend.service.paging.KeysetPaging;
 import com.javabackend.backend.util.HeaderUtil;
+import com.javabackend.backend.util.PaginationUtil;
 import com.javabackend.backend.util.ResponseUtil;
 import com.javabackend.backend.domain.UserRole;
 import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.javabackend.backend.repository.UserRoleRepository;
+import com.javabackend.backend.service.EntityUpdateService;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import com.javabackend.backend.service.projection.FieldProjection;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
 /**
  * REST controller for managing {@link UserRole}.
  */
+@RestController
 @RequestMapping("/api/user-roles")
 @Transactional
 public class UserRoleResource {
@@ -34,8 +51,30 @@ public class UserRoleResource {
 
     private final UserRoleRepository userRoleRepository;
 
-    public UserRoleResource(UserRoleRepository userRoleRepository) {
+    private final EntityUpdateService entityUpdateService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final FieldProjection fieldProjection;
+
+    private final KeysetPaging keysetPaging;
+
+    private final EntityMultiLoader entityMultiLoader;
+
+    public UserRoleResource(
+        UserRoleRepository userRoleRepository,
+        EntityUpdateService entityUpdateService,
+        ApplicationEventPublisher eventPublisher,
+        FieldProjection fieldProjection,
+        KeysetPaging keysetPaging,
+        EntityMultiLoader entityMultiLoader
+    ) {
         this.userRoleRepository = userRoleRepository;
+        this.entityUpdateService = entityUpdateService;
+        this.eventPublisher = eventPublisher;
+        this.fieldProjection = fieldProjection;
+        this.keysetPaging = keysetPaging;
+        this.entityMultiLoader = entityMultiLoader;
     }
 
     /**
@@ -52,6 +91,7 @@ public class UserRoleResource {
             throw new BadRequestException("A new userRole cannot already have an ID");
         }
         UserRole result = userRoleRepository.save(userRole);
+        eventPublisher.publishEvent(new EntityChangedEvent(UserRole.class, result.getId(), EntityChangedEvent.Operation.CREATE));
         return ResponseEntity
             .created(new URI("/api/user-roles/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
@@ -86,6 +126,7 @@ public class UserRoleResource {
         }
 
         UserRole result = userRoleRepository.save(userRole);
+        eventPublisher.publishEvent(new EntityChangedEvent(UserRole.class, id, EntityChangedEvent.Operation.UPDATE));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, userRole.getId().toString()))
@@ -116,11 +157,13 @@ public class UserRoleResource {
             throw new BadRequestException("Invalid id");
         }
 
-        if (!userRoleRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
+        if (entityUpdateService.patch(UserRole.class, id, userRole) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
 
-        Optional<UserRole> result = userRoleRepository.findById(userRole.getId()).map(userRoleRepository::save);
+        eventPublisher.publishEvent(new EntityChangedEvent(UserRole.class, id, EntityChangedEvent.Operation.UPDATE));
+
+        Optional<UserRole> result = userRoleRepository.findById(id);
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -129,14 +172,55 @@ public class UserRoleResource {
     }
 
     /**
-     * {@code GET  /user-roles} : get all the userRoles.
+     * {@code GET  /user-roles} : get a page of the userRoles, ordered by id.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of userRoles in body.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of userRoles, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of userRoles in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if the limit is out of range.
      */
+    @Transactional(readOnly = true)
     @GetMapping("")
-    public List<UserRole> getAllUserRoles() {
-        log.debug("REST request to get all UserRoles");
-        return userRoleRepository.findAll();
+    public ResponseEntity<List<UserRole>> getAllUserRoles(
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of UserRoles after : {}", cursor);
+        KeysetPage<UserRole> page = keysetPaging.page(UserRole.class, null, cursor, keysetPaging.limit(limit));
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
+    }
+
+    /**
+     * {@code GET  /user-roles} with {@code Accept: application/x-ndjson} : stream all the userRoles, one JSON document per line.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the userRoles as newline delimited JSON in body.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @GetMapping(value = "", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUserRoles() {
+        log.debug("REST request to stream all UserRoles");
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(keysetPaging.stream(UserRole.class, null));
+    }
+
+    /**
+     * {@code GET  /user-roles?fields=} : get a page of the given fields of the userRoles, ordered by id.
+     *
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of userRoles, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of userRoles in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if a field is unknown or the limit is out of range.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllUserRolesFields(
+        @RequestParam("fields") String fields,
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of UserRoles after : {} with fields : {}", cursor, fields);
+        KeysetPage<Map<String, Object>> page = fieldProjection.findAll(UserRole.class, fields, null, cursor, keysetPaging.limit(limit));
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
     }
 
     /**
@@ -145,6 +229,7 @@ public class UserRoleResource {
      * @param id the id of the userRole to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the userRole, or with status {@code 404 (Not Found)}.
      */
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public ResponseEntity<UserRole> getUserRole(@PathVariable("id") Long id) {
         log.debug("REST request to get UserRole : {}", id);
@@ -152,6 +237,47 @@ public class UserRoleResource {
         return ResponseUtil.wrapOrNotFound(userRole);
     }
 
+    /**
+     * {@code GET  /user-roles?ids=} : get the userRoles with the given ids.
+     *
+     * @param ids the comma separated ids of the userRoles to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing userRoles in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = { "ids", "!fields" })
+    public List<UserRole> getUserRolesByIds(@RequestParam("ids") List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get UserRoles : {}", ids);
+        return entityMultiLoader.findAllById(UserRole.class, ids);
+    }
+
+    /**
+     * {@code POST  /user-roles/by-ids} : get the userRoles with the ids in the body, for lists of ids too long for the URL.
+     *
+     * @param ids the ids of the userRoles to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing userRoles in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @PostMapping("/by-ids")
+    public List<UserRole> getUserRolesByIdsInBody(@RequestBody List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get UserRoles : {}", ids);
+        return entityMultiLoader.findAllById(UserRole.class, ids);
+    }
+
+    /**
+     * {@code GET  /user-roles/:id?fields=} : get the given fields of the "id" userRole.
+     *
+     * @param id the id of the userRole to retrieve.
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the fields of the userRole, or with status {@code 404 (Not Found)}.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getUserRoleFields(@PathVariable("id") Long id, @RequestParam("fields") String fields)
+        throws BadRequestException {
+        log.debug("REST request to get UserRole : {} with fields : {}", id, fields);
+        return ResponseUtil.wrapOrNotFound(fieldProjection.findById(UserRole.class, fields, id));
+    }
+
     /**
      * {@code DELETE  /user-roles/:id} : delete the "id" userRole.
      *
@@ -162,6 +288,7 @@ public class UserRoleResource {
     public ResponseEntity<Void> deleteUserRole(@PathVariable("id") Long id) {
         log.debug("REST request to delete UserRole : {}", id);
         userRoleRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(UserRole.class, id, EntityChangedEvent.Operation.DELETE));
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
@@ -1,26 +1,54 @@
 package com.javabackend.backend.rest;
 
+import com.javabackend.backend.domain.DrkUser;
 import com.javabackend.backend.domain.UserSessions;
+import com.javabackend.backend.service.loading.EntityMultiLoader;
+import com.javabackend.backend.service.paging.KeysetPage;
+import com.javabackend.backend.service.paging.KeysetPaging;
 import com.javabackend.backend.util.HeaderUtil;
+import com.javabackend.backend.util.PaginationUtil;
 import com.javabackend.backend.util.ResponseUtil;
 import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import com.javabackend.backend.repository.DrkUserRepository;
 import com.javabackend.backend.repository.UserSessionsRepository;
+import com.javabackend.backend.service.EntityUpdateService;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import com.javabackend.backend.service.projection.FieldProjection;
+import com.javabackend.backend.service.session.Credentials;
+import com.javabackend.backend.service.session.CurrentUserProvider;
+import com.javabackend.backend.service.session.PasswordService;
+import com.javabackend.backend.service.session.Session;
+import com.javabackend.backend.service.session.SessionStore;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
 /**
  * REST controller for managing {@link UserSessions}.
+ * <p>
+ * Sessions are opened with the user name and password. The reads and writes need the session of a user and only reach
+ * the sessions of that user, other sessions are not found.
  */
+@RestController
 @RequestMapping("/api/user-sessions")
 @Transactional
 public class UserSessionsResource {
@@ -34,15 +62,54 @@ public class UserSessionsResource {
 
     private final UserSessionsRepository userSessionsRepository;
 
-    public UserSessionsResource(UserSessionsRepository userSessionsRepository) {
+    private final EntityUpdateService entityUpdateService;
+
+    private final SessionStore sessionStore;
+
+    private final FieldProjection fieldProjection;
+
+    private final KeysetPaging keysetPaging;
+
+    private final EntityMultiLoader entityMultiLoader;
+
+    private final DrkUserRepository drkUserRepository;
+
+    private final CurrentUserProvider currentUserProvider;
+
+    private final PasswordService passwordService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public UserSessionsResource(
+        UserSessionsRepository userSessionsRepository,
+        EntityUpdateService entityUpdateService,
+        SessionStore sessionStore,
+        FieldProjection fieldProjection,
+        KeysetPaging keysetPaging,
+        EntityMultiLoader entityMultiLoader,
+        DrkUserRepository drkUserRepository,
+        CurrentUserProvider currentUserProvider,
+        PasswordService passwordService,
+        ApplicationEventPublisher eventPublisher
+    ) {
         this.userSessionsRepository = userSessionsRepository;
+        this.entityUpdateService = entityUpdateService;
+        this.sessionStore = sessionStore;
+        this.fieldProjection = fieldProjection;
+        this.keysetPaging = keysetPaging;
+        this.entityMultiLoader = entityMultiLoader;
+        this.drkUserRepository = drkUserRepository;
+        this.currentUserProvider = currentUserProvider;
+        this.passwordService = passwordService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * {@code POST  /user-sessions} : Create a new userSessions.
      *
-     * @param userSessions the userSessions to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new userSessions, or with status {@code 400 (Bad Request)} if the userSessions has already an ID.
+     * @param userSessions the userSessions to create, for the user of the current session.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new userSessions, or with status {@code 400 (Bad Request)} if the userSessions has already an ID,
+     * or with status {@code 401 (Unauthorized)} without a valid session, or with status {@code 403 (Forbidden)} if the drkUser is another user.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("")
@@ -51,7 +118,10 @@ public class UserSessionsResource {
         if (userSessions.getId() != null) {
             throw new BadRequestException("A new userSessions cannot already have an ID");
         }
-        UserSessions result = userSessionsRepository.save(userSessions);
+        Long drkUserId = currentDrkUserId();
+        UserSessions result = userSessionsRepository.save(sessionStore.prepare(userSessions.drkUser(owner(userSessions, drkUserId))));
+        sessionStore.synchronize(result);
+        eventPublisher.publishEvent(new EntityChangedEvent(UserSessions.class, result.getId(), EntityChangedEvent.Operation.CREATE));
         return ResponseEntity
                 .created(new URI("/api/user-sessions/" + result.getId()))
                 .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
@@ -64,7 +134,9 @@ public class UserSessionsResource {
      * @param id           the id of the userSessions to save.
      * @param userSessions the userSessions to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated userSessions,
-     * or with status {@code 400 (Bad Request)} if the userSessions is not valid,
+     * or with status {@code 400 (Bad Request)} if the userSessions is not valid or not one of the user of the current session,
+     * or with status {@code 401 (Unauthorized)} without a valid session,
+     * or with status {@code 403 (Forbidden)} if the drkUser is another user,
      * or with status {@code 500 (Internal Server Error)} if the userSessions couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -81,11 +153,17 @@ public class UserSessionsResource {
             throw new BadRequestException("Invalid id");
         }
 
-        if (!userSessionsRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
-        }
+        // the token is never part of a request body, the session keeps its token
+        Long drkUserId = currentDrkUserId();
+        String token = userSessionsRepository
+                .findById(id)
+                .filter(existing -> isOwnedBy(existing, drkUserId))
+                .map(UserSessions::getToken)
+                .orElseThrow(() -> new BadRequestException("Entity not found"));
 
-        UserSessions result = userSessionsRepository.save(userSessions);
+        UserSessions result = userSessionsRepository.save(userSessions.token(token).drkUser(owner(userSessions, drkUserId)));
+        sessionStore.synchronize(result);
+        eventPublisher.publishEvent(new EntityChangedEvent(UserSessions.class, id, EntityChangedEvent.Operation.UPDATE));
         return ResponseEntity
                 .ok()
                 .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, userSessions.getId().toString()))
@@ -99,7 +177,8 @@ public class UserSessionsResource {
      * @param userSessions the userSessions to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated userSessions,
      * or with status {@code 400 (Bad Request)} if the userSessions is not valid,
-     * or with status {@code 404 (Not Found)} if the userSessions is not found,
+     * or with status {@code 401 (Unauthorized)} without a valid session,
+     * or with status {@code 404 (Not Found)} if the userSessions is not found or not one of the user of the current session,
      * or with status {@code 500 (Internal Server Error)} if the userSessions couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -116,11 +195,14 @@ public class UserSessionsResource {
             throw new BadRequestException("Invalid id");
         }
 
-        if (!userSessionsRepository.existsById(id)) {
-            throw new BadRequestException("Entity not found");
+        requireOwned(id);
+        if (entityUpdateService.patch(UserSessions.class, id, userSessions) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
 
-        Optional<UserSessions> result = userSessionsRepository.findById(userSessions.getId()).map(userSessionsRepository::save);
+        Optional<UserSessions> result = userSessionsRepository.findById(id);
+        result.ifPresent(sessionStore::synchronize);
+        eventPublisher.publishEvent(new EntityChangedEvent(UserSessions.class, id, EntityChangedEvent.Operation.UPDATE));
 
         return ResponseUtil.wrapOrNotFound(
                 result,
@@ -129,14 +211,55 @@ public class UserSessionsResource {
     }
 
     /**
-     * {@code GET  /user-sessions} : get all the userSessions.
+     * {@code GET  /user-sessions} : get a page of the userSessions, ordered by id.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of userSessions in body.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of userSessions, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of userSessions in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if the limit is out of range.
      */
+    @Transactional(readOnly = true)
     @GetMapping("")
-    public List<UserSessions> getAllUserSessions() {
-        log.debug("REST request to get all UserSessions");
-        return userSessionsRepository.findAll();
+    public ResponseEntity<List<UserSessions>> getAllUserSessions(
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of UserSessions after : {}", cursor);
+        KeysetPage<UserSessions> page = keysetPaging.page(UserSessions.class, owned(), cursor, keysetPaging.limit(limit));
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
+    }
+
+    /**
+     * {@code GET  /user-sessions} with {@code Accept: application/x-ndjson} : stream all the userSessions, one JSON document per line.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the userSessions as newline delimited JSON in body.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @GetMapping(value = "", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUserSessions() {
+        log.debug("REST request to stream all UserSessions");
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(keysetPaging.stream(UserSessions.class, owned()));
+    }
+
+    /**
+     * {@code GET  /user-sessions?fields=} : get a page of the given fields of the userSessions, ordered by id.
+     *
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @param cursor the id after which the page starts, the first page if absent.
+     * @param limit the maximum number of userSessions, the default page size if absent.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of userSessions in body and a {@code Link} header to the next page if there is one, or with status {@code 400 (Bad Request)} if a field is unknown or the limit is out of range.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllUserSessionsFields(
+        @RequestParam("fields") String fields,
+        @RequestParam(name = "cursor", required = false) Long cursor,
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) throws BadRequestException {
+        log.debug("REST request to get a page of UserSessions after : {} with fields : {}", cursor, fields);
+        KeysetPage<Map<String, Object>> page = fieldProjection.findAll(UserSessions.class, fields, owned(), cursor, keysetPaging.limit(limit));
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.content());
     }
 
     /**
@@ -145,26 +268,164 @@ public class UserSessionsResource {
      * @param id the id of the userSessions to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the userSessions, or with status {@code 404 (Not Found)}.
      */
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public ResponseEntity<UserSessions> getUserSessions(@PathVariable("id") Long id) {
         log.debug("REST request to get UserSessions : {}", id);
+        Long drkUserId = currentDrkUserId();
         Optional<UserSessions> userSessions = userSessionsRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(userSessions);
+        return ResponseUtil.wrapOrNotFound(userSessions.filter(existing -> isOwnedBy(existing, drkUserId)));
+    }
+
+    /**
+     * {@code GET  /user-sessions?ids=} : get the userSessions with the given ids.
+     *
+     * @param ids the comma separated ids of the userSessions to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing userSessions in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "", params = { "ids", "!fields" })
+    public List<UserSessions> getUserSessionsByIds(@RequestParam("ids") List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get UserSessions : {}", ids);
+        return owned(entityMultiLoader.findAllById(UserSessions.class, ids));
+    }
+
+    /**
+     * {@code POST  /user-sessions/by-ids} : get the userSessions with the ids in the body, for lists of ids too long for the URL.
+     *
+     * @param ids the ids of the userSessions to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the existing userSessions in the order of the ids in body, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @Transactional(readOnly = true)
+    @PostMapping("/by-ids")
+    public List<UserSessions> getUserSessionsByIdsInBody(@RequestBody List<Long> ids) throws BadRequestException {
+        log.debug("REST request to get UserSessions : {}", ids);
+        return owned(entityMultiLoader.findAllById(UserSessions.class, ids));
+    }
+
+    /**
+     * {@code GET  /user-sessions/:id?fields=} : get the given fields of the "id" userSessions.
+     *
+     * @param id the id of the userSessions to retrieve.
+     * @param fields the comma separated properties to return, the id is always returned.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the fields of the userSessions, or with status {@code 404 (Not Found)}.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getUserSessionsFields(@PathVariable("id") Long id, @RequestParam("fields") String fields)
+        throws BadRequestException {
+        log.debug("REST request to get UserSessions : {} with fields : {}", id, fields);
+        return ResponseUtil.wrapOrNotFound(fieldProjection.findById(UserSessions.class, fields, owned(), id));
     }
 
     /**
      * {@code DELETE  /user-sessions/:id} : delete the "id" userSessions.
      *
      * @param id the id of the userSessions to delete.
-     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}, or with status {@code 401 (Unauthorized)} without a valid session,
+     * or with status {@code 404 (Not Found)} if the userSessions is not found or not one of the user of the current session.
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteUserSessions(@PathVariable("id") Long id) {
         log.debug("REST request to delete UserSessions : {}", id);
+        requireOwned(id);
         userSessionsRepository.deleteById(id);
+        sessionStore.evict(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(UserSessions.class, id, EntityChangedEvent.Operation.DELETE));
         return ResponseEntity
                 .noContent()
                 .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
                 .build();
     }
+
+    /**
+     * {@code POST  /user-sessions/open} : Open a new session for the user with the user name and password of the body.
+     * <p>
+     * The session is valid right away on this instance, its row is inserted with the next batch of the
+     * {@link SessionStore}, from then on the other instances know it too.
+     *
+     * @param credentials the user name and password.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the session and its token, or with status {@code 400 (Bad Request)} if the user name or password is missing,
+     * or with status {@code 401 (Unauthorized)} if there is no user with that user name and password.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @PostMapping("/open")
+    public ResponseEntity<Session> openSession(@RequestBody Credentials credentials) throws URISyntaxException, BadRequestException {
+        log.debug("REST request to open a session : {}", credentials);
+        if (credentials.userName() == null || credentials.password() == null) {
+            throw new BadRequestException("A session needs a user name and password");
+        }
+        Long drkUserId = passwordService.authenticate(credentials).orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+        Session session = sessionStore.open(drkUserId);
+        return ResponseEntity.created(new URI("/api/user-sessions/current")).body(session);
+    }
+
+    /**
+     * {@code GET  /user-sessions/current} : get the session of the token in the {@value SessionStore#TOKEN_HEADER} header.
+     *
+     * @param token the session token.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the session, or with status {@code 404 (Not Found)} if the token is unknown or expired.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @GetMapping("/current")
+    public ResponseEntity<Session> getCurrentSession(@RequestHeader(value = SessionStore.TOKEN_HEADER, required = false) String token) {
+        return ResponseUtil.wrapOrNotFound(sessionStore.find(token));
+    }
+
+    /**
+     * {@code DELETE  /user-sessions/current} : close the session of the token in the {@value SessionStore#TOKEN_HEADER} header.
+     *
+     * @param token the session token.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DeleteMapping("/current")
+    public ResponseEntity<Void> closeCurrentSession(@RequestHeader(value = SessionStore.TOKEN_HEADER, required = false) String token) {
+        if (token != null) {
+            sessionStore.close(token);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private Long currentDrkUserId() {
+        return currentUserProvider.requiredDrkUserId().orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+    }
+
+    /**
+     * @return the restriction of the reads to the sessions of the user of the current session.
+     * @throws ResponseStatusException with status {@code 401 (Unauthorized)} without a valid session.
+     */
+    private Specification<UserSessions> owned() {
+        Long drkUserId = currentDrkUserId();
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("drkUser").get("id"), drkUserId);
+    }
+
+    private List<UserSessions> owned(List<UserSessions> userSessions) {
+        Long drkUserId = currentDrkUserId();
+        return userSessions.stream().filter(existing -> isOwnedBy(existing, drkUserId)).toList();
+    }
+
+    /**
+     * @return a reference to the user of the current session, the only owner a session written by that user can have.
+     * @throws ResponseStatusException with status {@code 403 (Forbidden)} if the body names another user.
+     */
+    private DrkUser owner(UserSessions userSessions, Long drkUserId) {
+        DrkUser drkUser = userSessions.getDrkUser();
+        if (drkUser != null && drkUser.getId() != null && !drkUserId.equals(drkUser.getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+        return drkUserRepository.getReferenceById(drkUserId);
+    }
+
+    private void requireOwned(Long id) {
+        Long drkUserId = currentDrkUserId();
+        if (userSessionsRepository.findById(id).filter(userSessions -> isOwnedBy(userSessions, drkUserId)).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    private static boolean isOwnedBy(UserSessions userSessions, Long drkUserId) {
+        return userSessions.getDrkUser() != null && drkUserId.equals(userSessions.getDrkUser().getId());
+    }
 }
@@ -0,0 +1,195 @@
+package com.javabackend.backend.service;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Updates entities with a single statement, without loading them first.
+ * <p>
+ * Merge patches only put the attributes which are set in the patch into the {@code SET} clause, so a one-field change
+ * is a single {@code UPDATE ... WHERE id = ?} statement. Replacements of versioned entities are a single
+ * {@code UPDATE ... WHERE id = ? AND version = ?}. Must be called inside a transaction.
+ * <p>
+ * Hibernate evicts the whole second level cache region of the updated entity type on commit of a bulk update. Only
+ * rarely changing reference entities have a {@link org.hibernate.annotations.Cache}, so the region is refilled by
+ * the next reads. An instance of the entity already in the persistence context is refreshed, so the caller's read
+ * back sees the update.
+ */
+@Service
+public class EntityUpdateService {
+
+    private final EntityManager entityManager;
+
+    public EntityUpdateService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Copies the non-null basic attributes of {@code patch} to the entity with the given id. The version of versioned
+     * entities is incremented, but not checked.
+     *
+     * @param entityClass the entity type.
+     * @param id          the id of the entity to update.
+     * @param patch       the entity holding the changed attributes, {@code null} attributes are left untouched.
+     * @return the number of affected rows, {@code 0} if there is no entity with that id.
+     */
+    public <T> int patch(Class<T> entityClass, Long id, T patch) {
+        EntityType<T> entityType = entityManager.getMetamodel().entity(entityClass);
+        Map<SingularAttribute<? super T, ?>, Object> changes = new LinkedHashMap<>();
+        for (SingularAttribute<? super T, ?> attribute : entityType.getSingularAttributes()) {
+            if (
+                attribute.isId() ||
+                attribute.isVersion() ||
+                attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC ||
+                !isUpdatable(attribute)
+            ) {
+                continue;
+            }
+            Object value = read(attribute, patch);
+            if (value != null) {
+                changes.put(attribute, value);
+            }
+        }
+        if (changes.isEmpty()) {
+            // nothing to write, keeps the entity in the persistence context for the caller's read back
+            return entityManager.find(entityClass, id) == null ? 0 : 1;
+        }
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<T> update = criteriaBuilder.createCriteriaUpdate(entityClass);
+        Root<T> root = update.from(entityClass);
+        changes.forEach((attribute, value) -> update.set(attribute.getName(), value));
+        if (entityType.hasVersionAttribute()) {
+            incrementVersion(criteriaBuilder, update, root, entityType);
+        }
+        update.where(criteriaBuilder.equal(root.get(entityType.getId(Long.class)), id));
+        return refreshManaged(entityClass, id, entityManager.createQuery(update).executeUpdate());
+    }
+
+    /**
+     * Overwrites the entity with the given id and version with {@code entity}, including {@code null} attributes and
+     * the owning side of to-one associations, and increments the version.
+     *
+     * @param entityClass the versioned entity type.
+     * @param id          the id of the entity to update.
+     * @param version     the version the client has read.
+     * @param entity      the new state of the entity.
+     * @return the number of affected rows, {@code 0} if there is no entity with that id or it has another version.
+     */
+    public <T> int replace(Class<T> entityClass, Long id, Long version, T entity) {
+        EntityType<T> entityType = entityManager.getMetamodel().entity(entityClass);
+        if (!entityType.hasVersionAttribute()) {
+            throw new IllegalArgumentException(entityClass.getSimpleName() + " is not versioned");
+        }
+        Map<SingularAttribute<? super T, ?>, Object> changes = new LinkedHashMap<>();
+        for (SingularAttribute<? super T, ?> attribute : entityType.getSingularAttributes()) {
+            if (attribute.isId() || attribute.isVersion() || !isUpdatable(attribute)) {
+                continue;
+            }
+            if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC) {
+                changes.put(attribute, read(attribute, entity));
+            } else if (attribute.isAssociation() && isOwningSide(attribute)) {
+                changes.put(attribute, reference(attribute, read(attribute, entity)));
+            }
+        }
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<T> update = criteriaBuilder.createCriteriaUpdate(entityClass);
+        Root<T> root = update.from(entityClass);
+        changes.forEach((attribute, value) -> set(criteriaBuilder, update, root.get(attribute), value));
+        incrementVersion(criteriaBuilder, update, root, entityType);
+        update.where(
+            criteriaBuilder.equal(root.get(entityType.getId(Long.class)), id),
+            criteriaBuilder.equal(root.get(entityType.getVersion(Long.class)), version)
+        );
+        return refreshManaged(entityClass, id, entityManager.createQuery(update).executeUpdate());
+    }
+
+    /**
+     * The bulk update bypasses the persistence context, an instance loaded before in this transaction would still hold
+     * the old state.
+     */
+    private <T> int refreshManaged(Class<T> entityClass, Long id, int updated) {
+        if (updated == 0) {
+            return 0;
+        }
+        // the managed instance if there is one, an uninitialized proxy otherwise
+        T managed = entityManager.getReference(entityClass, id);
+        if (Hibernate.isInitialized(managed)) {
+            entityManager.refresh(managed);
+        } else {
+            entityManager.detach(managed);
+        }
+        return updated;
+    }
+
+    private static <T> void incrementVersion(CriteriaBuilder criteriaBuilder, CriteriaUpdate<T> update, Root<T> root, EntityType<T> entityType) {
+        Path<Long> version = root.get(entityType.getVersion(Long.class));
+        update.set(version, criteriaBuilder.sum(version, 1L));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <Y> void set(CriteriaBuilder criteriaBuilder, CriteriaUpdate<?> update, Path<Y> path, Object value) {
+        if (value == null) {
+            update.set(path, criteriaBuilder.nullLiteral(path.getJavaType()));
+        } else {
+            update.set(path, (Y) value);
+        }
+    }
+
+    /**
+     * Associations in request bodies only carry the id, binds them as references so no row is loaded.
+     */
+    private Object reference(SingularAttribute<?, ?> attribute, Object value) {
+        if (value == null) {
+            return null;
+        }
+        Object id = entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(value);
+        return id == null ? null : entityManager.getReference(attribute.getJavaType(), id);
+    }
+
+    private static boolean isUpdatable(SingularAttribute<?, ?> attribute) {
+        Column column = ((AnnotatedElement) attribute.getJavaMember()).getAnnotation(Column.class);
+        return column == null || column.updatable();
+    }
+
+    private static boolean isOwningSide(SingularAttribute<?, ?> attribute) {
+        if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.MANY_TO_ONE) {
+            return true;
+        }
+        if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.ONE_TO_ONE) {
+            OneToOne oneToOne = ((AnnotatedElement) attribute.getJavaMember()).getAnnotation(OneToOne.class);
+            return oneToOne == null || oneToOne.mappedBy().isEmpty();
+        }
+        return false;
+    }
+
+    private static Object read(SingularAttribute<?, ?> attribute, Object entity) {
+        Member member = attribute.getJavaMember();
+        if (member instanceof Field field) {
+            ReflectionUtils.makeAccessible(field);
+            return ReflectionUtils.getField(field, entity);
+        }
+        if (member instanceof Method method) {
+            ReflectionUtils.makeAccessible(method);
+            return ReflectionUtils.invokeMethod(method, entity);
+        }
+        throw new IllegalStateException("Unsupported attribute member " + member);
+    }
+}
@@ -0,0 +1,281 @@
+package com.javabackend.backend.service;
+
+import com.javabackend.backend.domain.Protocol;
+import com.javabackend.backend.domain.ProtocolArchive;
+import com.javabackend.backend.domain.ProtocolStatistics;
+import com.javabackend.backend.repository.ProtocolStatisticsRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the {@link ProtocolStatistics} rollups in step with the protocol writes.
+ * <p>
+ * Every write applies the difference between the state of the protocol before and after the write to at most two
+ * rollup rows, inside the transaction of the write. The state before is read with a row lock, so concurrent writes of
+ * the same protocol cannot count twice. Protocols without organization or creation time are not counted.
+ */
+@Service
+public class ProtocolStatisticsService {
+
+    private final Logger log = LoggerFactory.getLogger(ProtocolStatisticsService.class);
+
+    /**
+     * The rollup row a protocol is counted in.
+     */
+    public record State(Long organizationId, LocalDate day, Kind kind) {}
+
+    public enum Kind {
+        DRAFT,
+        OPEN,
+        CLOSED,
+    }
+
+    private final ProtocolStatisticsRepository protocolStatisticsRepository;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate newTransactionTemplate;
+
+    private final ZoneId zone;
+
+    private final int rebuildParallelism;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Whether the rebuild can lock the protocol writers out, {@code LOCK TABLE} is PostgreSQL specific.
+     */
+    private final boolean lockWriters;
+
+    public ProtocolStatisticsService(
+        ProtocolStatisticsRepository protocolStatisticsRepository,
+        EntityManager entityManager,
+        PlatformTransactionManager transactionManager,
+        JdbcTemplate jdbcTemplate,
+        DataSourceProperties dataSourceProperties,
+        @Value("${application.statistics.time-zone:Europe/Berlin}") ZoneId zone,
+        @Value("${application.statistics.rebuild-parallelism:4}") int rebuildParallelism
+    ) {
+        this.protocolStatisticsRepository = protocolStatisticsRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.lockWriters = String.valueOf(dataSourceProperties.determineUrl()).startsWith("jdbc:postgresql:");
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.zone = zone;
+        this.rebuildParallelism = rebuildParallelism;
+    }
+
+    public State stateOf(Protocol protocol) {
+        return stateOf(
+            protocol.getOrganization() == null ? null : protocol.getOrganization().getId(),
+            protocol.getCreatedOrEdited(),
+            protocol.getIsDraft(),
+            protocol.getIsClosed()
+        );
+    }
+
+    /**
+     * Archived protocols stay counted as closed.
+     */
+    public State stateOf(ProtocolArchive archive) {
+        return stateOf(archive.getOrganizationId(), archive.getCreatedOrEdited(), false, true);
+    }
+
+    private State stateOf(Long organizationId, Instant createdOrEdited, Boolean isDraft, Boolean isClosed) {
+        if (organizationId == null || createdOrEdited == null) {
+            return null;
+        }
+        Kind kind = Boolean.TRUE.equals(isDraft) ? Kind.DRAFT : Boolean.TRUE.equals(isClosed) ? Kind.CLOSED : Kind.OPEN;
+        return new State(organizationId, LocalDate.ofInstant(createdOrEdited, zone), kind);
+    }
+
+    /**
+     * Locks the protocol row until the end of the transaction and returns its current state.
+     *
+     * @return the state, {@code null} if the protocol doesn't exist or is not counted.
+     */
+    public State lockState(Long protocolId) {
+        Protocol protocol = entityManager.find(Protocol.class, protocolId, LockModeType.PESSIMISTIC_WRITE);
+        if (protocol == null) {
+            return null;
+        }
+        State state = stateOf(protocol);
+        // the write which follows is a bulk update, a managed instance would hide its result
+        entityManager.detach(protocol);
+        return state;
+    }
+
+    /**
+     * Moves a protocol from one rollup row to another, {@code null} stands for not counted.
+     */
+    public void record(State before, State after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        if (before != null) {
+            add(before, -1);
+        }
+        if (after != null) {
+            add(after, 1);
+        }
+    }
+
+    private void add(State state, long delta) {
+        long drafts = state.kind() == Kind.DRAFT ? delta : 0;
+        long open = state.kind() == Kind.OPEN ? delta : 0;
+        long closed = state.kind() == Kind.CLOSED ? delta : 0;
+        if (protocolStatisticsRepository.increment(state.organizationId(), state.day(), drafts, open, closed) == 0) {
+            createRow(state.organizationId(), state.day());
+            protocolStatisticsRepository.increment(state.organizationId(), state.day(), drafts, open, closed);
+        }
+    }
+
+    /**
+     * Creates the empty rollup row in its own transaction, a concurrent creation of the same row only fails that one.
+     */
+    private void createRow(Long organizationId, LocalDate day) {
+        try {
+            newTransactionTemplate.executeWithoutResult(status ->
+                protocolStatisticsRepository.saveAndFlush(new ProtocolStatistics().organizationId(organizationId).day(day))
+            );
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Statistics of organization {} on {} created concurrently", organizationId, day);
+        }
+    }
+
+    /**
+     * Recomputes all rollups from the protocol and protocol archive tables, counted in parallel by ranges of
+     * organization ids. The old rollups are deleted and the new ones inserted in one transaction, so readers see either
+     * of them completely. On PostgreSQL the transaction holds a {@code SHARE} lock on the protocol and protocol archive
+     * tables, the protocol writes and the archiving wait for the end of the rebuild and are counted exactly once. On
+     * other databases writes running at the same time may be counted twice or not at all.
+     *
+     * @return the number of rollup rows.
+     */
+    public long rebuild() {
+        return transactionTemplate.execute(status -> {
+            if (lockWriters) {
+                jdbcTemplate.execute("lock table protocol, protocol_archive in share mode");
+            }
+            List<Long> organizationIds = entityManager
+                .createQuery("select o.id from Organization o order by o.id", Long.class)
+                .getResultList();
+            List<ProtocolStatistics> rows = count(organizationIds);
+            protocolStatisticsRepository.deleteAllInBatch();
+            rows.forEach(entityManager::persist);
+            log.info("Rebuilt {} protocol statistics of {} organizations", rows.size(), organizationIds.size());
+            return (long) rows.size();
+        });
+    }
+
+    /**
+     * Counts in transactions of their own, the writers are locked out by the transaction of the caller.
+     */
+    private List<ProtocolStatistics> count(List<Long> organizationIds) {
+        if (organizationIds.isEmpty()) {
+            return List.of();
+        }
+        int partitions = Math.min(rebuildParallelism * 4, organizationIds.size());
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildParallelism);
+        try {
+            List<Future<Collection<ProtocolStatistics>>> results = new ArrayList<>();
+            for (int i = 0; i < partitions; i++) {
+                Long from = organizationIds.get(i * organizationIds.size() / partitions);
+                Long to = organizationIds.get((i + 1) * organizationIds.size() / partitions - 1);
+                results.add(executor.submit(() -> count(from, to)));
+            }
+            List<ProtocolStatistics> rows = new ArrayList<>();
+            for (Future<Collection<ProtocolStatistics>> result : results) {
+                rows.addAll(result.get());
+            }
+            return rows;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rebuilding the protocol statistics", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not rebuild the protocol statistics", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Collection<ProtocolStatistics> count(Long fromOrganizationId, Long toOrganizationId) {
+        return transactionTemplate.execute(status -> {
+            Map<State, Long> counts = new HashMap<>();
+            try (
+                Stream<Object[]> protocols = entityManager
+                    .createQuery(
+                        "select p.organization.id, p.createdOrEdited, p.isDraft, p.isClosed from Protocol p " +
+                        "where p.organization.id between :from and :to",
+                        Object[].class
+                    )
+                    .setParameter("from", fromOrganizationId)
+                    .setParameter("to", toOrganizationId)
+                    .getResultStream()
+            ) {
+                protocols
+                    .map(row -> stateOf((Long) row[0], (Instant) row[1], (Boolean) row[2], (Boolean) row[3]))
+                    .filter(Objects::nonNull)
+                    .forEach(state -> counts.merge(state, 1L, Long::sum));
+            }
+            try (
+                Stream<Object[]> archives = entityManager
+                    .createQuery(
+                        "select a.organizationId, a.createdOrEdited from ProtocolArchive a where a.organizationId between :from and :to",
+                        Object[].class
+                    )
+                    .setParameter("from", fromOrganizationId)
+                    .setParameter("to", toOrganizationId)
+                    .getResultStream()
+            ) {
+                archives
+                    .map(row -> stateOf((Long) row[0], (Instant) row[1], false, true))
+                    .filter(Objects::nonNull)
+                    .forEach(state -> counts.merge(state, 1L, Long::sum));
+            }
+
+            Map<State, ProtocolStatistics> rows = new HashMap<>();
+            counts.forEach((state, count) -> {
+                ProtocolStatistics row = rows.computeIfAbsent(
+                    new State(state.organizationId(), state.day(), null),
+                    key -> new ProtocolStatistics().organizationId(key.organizationId()).day(key.day())
+                );
+                switch (state.kind()) {
+                    case DRAFT -> row.setDraftCount(count);
+                    case OPEN -> row.setOpenCount(count);
+                    case CLOSED -> row.setClosedCount(count);
+                }
+            });
+            return rows.values();
+        });
+    }
+}
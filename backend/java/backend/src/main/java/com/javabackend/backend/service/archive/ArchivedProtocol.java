@@ -0,0 +1,72 @@
+package com.javabackend.backend.service.archive;
+
+import com.javabackend.backend.domain.AdditionalUser;
+import com.javabackend.backend.domain.DrkUser;
+import com.javabackend.backend.domain.Organization;
+import com.javabackend.backend.domain.Protocol;
+import com.javabackend.backend.domain.ProtocolContent;
+import com.javabackend.backend.domain.ProtocolPdfFile;
+import com.javabackend.backend.service.bundle.ProtocolBundle;
+
+/**
+ * The document stored for an archived protocol: its bundle as it was when archived and the PDF itself.
+ *
+ * @param pdfContent  the content of the PDF, {@code null} if the protocol has no PDF.
+ */
+public record ArchivedProtocol(ProtocolBundle protocol, String pdfContent) {
+    /**
+     * @return a detached protocol as the live one would be written, owner, organization and additional users only
+     * with their ids and names.
+     */
+    public Protocol toProtocol() {
+        Protocol result = new Protocol()
+            .id(protocol.id())
+            .version(protocol.version())
+            .isDraft(protocol.isDraft())
+            .reviewComment(protocol.reviewComment())
+            .isClosed(protocol.isClosed())
+            .closedAt(protocol.closedAt())
+            .createdOrEdited(protocol.createdOrEdited())
+            .protocolContent(toProtocolContent())
+            .protocolPdfFile(toProtocolPdfFile())
+            .drkUser(toDrkUser(protocol.drkUser()));
+        ProtocolBundle.OrganizationSummary organization = protocol.organization();
+        if (organization != null) {
+            result.organization(new Organization().id(organization.id()).name(organization.name()).type(organization.type()));
+        }
+        protocol
+            .additionalUsers()
+            .forEach(additionalUser ->
+                result.addAdditionalUser(new AdditionalUser().id(additionalUser.id()).drkUser(toDrkUser(additionalUser.drkUser())))
+            );
+        return result;
+    }
+
+    /**
+     * @return the detached content, {@code null} if the protocol has none.
+     */
+    public ProtocolContent toProtocolContent() {
+        ProtocolBundle.Content content = protocol.protocolContent();
+        return content == null ? null : new ProtocolContent().id(content.id()).version(content.version()).content(content.content());
+    }
+
+    /**
+     * @return the detached PDF, {@code null} if the protocol has none.
+     */
+    public ProtocolPdfFile toProtocolPdfFile() {
+        ProtocolBundle.PdfFile pdfFile = protocol.protocolPdfFile();
+        return pdfFile == null ? null : new ProtocolPdfFile().id(pdfFile.id()).mimeType(pdfFile.mimeType()).content(pdfContent);
+    }
+
+    private static DrkUser toDrkUser(ProtocolBundle.User user) {
+        if (user == null) {
+            return null;
+        }
+        return new DrkUser()
+            .id(user.id())
+            .userName(user.userName())
+            .firstName(user.firstName())
+            .lastName(user.lastName())
+            .email(user.email());
+    }
+}
@@ -0,0 +1,261 @@
+package com.javabackend.backend.service.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javabackend.backend.domain.AdditionalUser;
+import com.javabackend.backend.domain.Protocol;
+import com.javabackend.backend.domain.ProtocolArchive;
+import com.javabackend.backend.domain.ProtocolContent;
+import com.javabackend.backend.domain.ProtocolPdfFile;
+import com.javabackend.backend.repository.ProtocolArchiveRepository;
+import com.javabackend.backend.service.bundle.ProtocolBundle;
+import com.javabackend.backend.service.bundle.ProtocolBundleService;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import com.javabackend.backend.service.event.ProtocolChangedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.hibernate.LockOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves the protocols closed for longer than {@code application.archive.closed-for} out of the live tables into the
+ * {@link ProtocolArchive} table, and reads them back for the lookups by id.
+ * <p>
+ * Each batch locks its protocols, skipping the ones locked by a write or another instance, loads them with a fixed
+ * number of queries, stores every protocol with its content, PDF and additional users as one gzip compressed JSON
+ * document and deletes the live rows in the same transaction. Drafts are never archived. The protocol statistics keep
+ * counting archived protocols.
+ * <p>
+ * To everyone else an archived protocol is deleted: a {@link ProtocolChangedEvent} and an {@link EntityChangedEvent}
+ * per removed row are published, so the other instances evict their cached copies, the change log writes the
+ * tombstones for the offline clients and the change feed reports the protocols as deleted. They stay readable by id.
+ * <p>
+ * This is a cold table rather than a range partitioning of {@code protocol} by {@code closed_at}: the schema is
+ * generated from the entities and the tests run on H2, and a partitioned PostgreSQL table would need {@code closed_at}
+ * in its primary key, which the contents, PDF files and additional users reference by id only.
+ */
+@Service
+public class ProtocolArchiver {
+
+    private final Logger log = LoggerFactory.getLogger(ProtocolArchiver.class);
+
+    private final ProtocolArchiveRepository protocolArchiveRepository;
+
+    private final ProtocolBundleService protocolBundleService;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final Duration closedFor;
+
+    private final int batchSize;
+
+    private final int maxBatches;
+
+    public ProtocolArchiver(
+        ProtocolArchiveRepository protocolArchiveRepository,
+        ProtocolBundleService protocolBundleService,
+        EntityManager entityManager,
+        ObjectMapper objectMapper,
+        ApplicationEventPublisher eventPublisher,
+        PlatformTransactionManager transactionManager,
+        @Value("${application.archive.enabled:true}") boolean enabled,
+        @Value("${application.archive.closed-for:P365D}") Duration closedFor,
+        @Value("${application.archive.batch-size:100}") int batchSize,
+        @Value("${application.archive.max-batches:50}") int maxBatches
+    ) {
+        this.protocolArchiveRepository = protocolArchiveRepository;
+        this.protocolBundleService = protocolBundleService;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.closedFor = closedFor;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(fixedDelayString = "${application.archive.interval:PT1H}", initialDelayString = "${application.archive.interval:PT1H}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    /**
+     * Archives the protocols closed before now minus {@code closed-for}, at most {@code max-batches} batches.
+     *
+     * @return the number of archived protocols.
+     */
+    public int archive() {
+        Instant closedBefore = Instant.now().minus(closedFor);
+        int archived = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            int batch = transactionTemplate.execute(status -> archiveBatch(closedBefore));
+            archived += batch;
+            if (batch < batchSize) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            log.info("Archived {} protocols closed before {}", archived, closedBefore);
+        }
+        return archived;
+    }
+
+    private int archiveBatch(Instant closedBefore) {
+        List<Protocol> protocols = entityManager
+            .createQuery(
+                "select p from Protocol p where p.isClosed = true and (p.isDraft is null or p.isDraft = false) " +
+                "and p.closedAt < :closedBefore order by p.closedAt",
+                Protocol.class
+            )
+            .setParameter("closedBefore", closedBefore)
+            .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+            .setHint("jakarta.persistence.lock.timeout", LockOptions.SKIP_LOCKED)
+            .setMaxResults(batchSize)
+            .getResultList();
+        if (protocols.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = protocols.stream().map(Protocol::getId).toList();
+        List<ProtocolBundle> bundles = protocolBundleService.findAll(ids);
+        List<Long> protocolPdfFileIds = bundles
+            .stream()
+            .map(ProtocolBundle::protocolPdfFile)
+            .filter(Objects::nonNull)
+            .map(ProtocolBundle.PdfFile::id)
+            .toList();
+        Map<Long, String> pdfContents = new HashMap<>();
+        if (!protocolPdfFileIds.isEmpty()) {
+            entityManager
+                .createQuery("select f.id, f.content from ProtocolPdfFile f where f.id in :ids", Object[].class)
+                .setParameter("ids", protocolPdfFileIds)
+                .getResultList()
+                .forEach(row -> pdfContents.put((Long) row[0], (String) row[1]));
+        }
+
+        Instant now = Instant.now();
+        for (ProtocolBundle bundle : bundles) {
+            Long organizationId = bundle.organization() == null ? null : bundle.organization().id();
+            entityManager.persist(
+                new ProtocolArchive()
+                    .id(bundle.id())
+                    .organizationId(organizationId)
+                    .protocolContentId(bundle.protocolContent() == null ? null : bundle.protocolContent().id())
+                    .protocolPdfFileId(protocolPdfFileId(bundle))
+                    .createdOrEdited(bundle.createdOrEdited())
+                    .closedAt(bundle.closedAt())
+                    .archivedAt(now)
+                    .data(write(new ArchivedProtocol(bundle, pdfContents.get(protocolPdfFileId(bundle)))))
+            );
+            eventPublisher.publishEvent(ProtocolChangedEvent.deleted(bundle.id(), organizationId));
+        }
+
+        // removed one by one rather than in bulk, which would clear the whole second level cache regions
+        entityManager
+            .createQuery("select a from AdditionalUser a where a.protocol.id in :ids", AdditionalUser.class)
+            .setParameter("ids", ids)
+            .getResultList()
+            .forEach(additionalUser -> {
+                entityManager.remove(additionalUser);
+                publishDeleted(AdditionalUser.class, additionalUser.getId());
+            });
+        for (Protocol protocol : protocols) {
+            ProtocolContent protocolContent = protocol.getProtocolContent();
+            ProtocolPdfFile protocolPdfFile = protocol.getProtocolPdfFile();
+            entityManager.remove(protocol);
+            publishDeleted(Protocol.class, protocol.getId());
+            if (protocolContent != null) {
+                entityManager.remove(protocolContent);
+                publishDeleted(ProtocolContent.class, protocolContent.getId());
+            }
+            if (protocolPdfFile != null) {
+                entityManager.remove(protocolPdfFile);
+                publishDeleted(ProtocolPdfFile.class, protocolPdfFile.getId());
+            }
+        }
+        return protocols.size();
+    }
+
+    private static Long protocolPdfFileId(ProtocolBundle bundle) {
+        return bundle.protocolPdfFile() == null ? null : bundle.protocolPdfFile().id();
+    }
+
+    private void publishDeleted(Class<?> entityType, Long id) {
+        eventPublisher.publishEvent(new EntityChangedEvent(entityType, id, EntityChangedEvent.Operation.DELETE));
+    }
+
+    /**
+     * @return the archived protocol, empty if it isn't archived, in the caller's transaction.
+     */
+    public Optional<ArchivedProtocol> find(Long id) {
+        return protocolArchiveRepository.findById(id).map(this::read);
+    }
+
+    public Optional<ArchivedProtocol> findByProtocolContentId(Long protocolContentId) {
+        return protocolArchiveRepository.findOneByProtocolContentId(protocolContentId).map(this::read);
+    }
+
+    public Optional<ArchivedProtocol> findByProtocolPdfFileId(Long protocolPdfFileId) {
+        return protocolArchiveRepository.findOneByProtocolPdfFileId(protocolPdfFileId).map(this::read);
+    }
+
+    /**
+     * Deletes the archived protocol in the caller's transaction.
+     *
+     * @return the deleted archive row, empty if the protocol isn't archived.
+     */
+    public Optional<ProtocolArchive> delete(Long id) {
+        Optional<ProtocolArchive> archive = protocolArchiveRepository.findById(id);
+        archive.ifPresent(protocolArchiveRepository::delete);
+        return archive;
+    }
+
+    private byte[] write(ArchivedProtocol archived) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, archived);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write the archived protocol " + archived.protocol().id(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private ArchivedProtocol read(ProtocolArchive archive) {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(archive.getData()))) {
+            return objectMapper.readValue(gzip, ArchivedProtocol.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read the archived protocol " + archive.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.javabackend.backend.service.bundle;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A protocol with everything needed to open it: content, PDF metadata, owner, organization and additional users.
+ *
+ * @param protocolContent  {@code null} if the protocol has no content.
+ * @param protocolPdfFile  {@code null} if the protocol has no PDF.
+ * @param drkUser  the owner, {@code null} if none.
+ * @param organization  {@code null} if none.
+ */
+public record ProtocolBundle(
+    Long id,
+    Long version,
+    Boolean isDraft,
+    String reviewComment,
+    Boolean isClosed,
+    Instant closedAt,
+    Instant createdOrEdited,
+    Content protocolContent,
+    PdfFile protocolPdfFile,
+    User drkUser,
+    OrganizationSummary organization,
+    List<AdditionalUserEntry> additionalUsers
+) {
+    public record Content(Long id, Long version, String content) {}
+
+    /**
+     * @param size  the length of the stored content.
+     */
+    public record PdfFile(Long id, String mimeType, Long size) {}
+
+    public record User(Long id, String userName, String firstName, String lastName, String email) {}
+
+    public record OrganizationSummary(Long id, String name, String type) {}
+
+    /**
+     * @param drkUser  {@code null} if the entry has no user.
+     */
+    public record AdditionalUserEntry(Long id, User drkUser) {}
+}
@@ -0,0 +1,115 @@
+package com.javabackend.backend.service.bundle;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Loads {@link ProtocolBundle}s with a fixed plan of two queries, whatever the protocols reference: one for the
+ * protocols with their content, PDF metadata, owner and organization, and one for the additional users with their
+ * names. Only the needed columns are read, the PDF itself is not, and no entity is loaded which could lazy load more
+ * while the bundle is serialized.
+ */
+@Service
+public class ProtocolBundleService {
+
+    private final EntityManager entityManager;
+
+    public ProtocolBundleService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @return the bundle, empty if the protocol doesn't exist, in the caller's transaction.
+     */
+    public Optional<ProtocolBundle> find(Long id) {
+        return findAll(List.of(id)).stream().findFirst();
+    }
+
+    /**
+     * Loads many bundles with the same two queries.
+     *
+     * @return the bundles of the existing protocols, in no particular order, in the caller's transaction.
+     */
+    public List<ProtocolBundle> findAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Object[]> protocols = entityManager
+            .createQuery(
+                "select p.id, p.version, p.isDraft, p.reviewComment, p.isClosed, p.closedAt, p.createdOrEdited, " +
+                "c.id, c.version, c.content, f.id, f.mimeType, length(f.content), " +
+                "u.id, u.userName, u.firstName, u.lastName, u.email, o.id, o.name, o.type from Protocol p " +
+                "left join p.protocolContent c left join p.protocolPdfFile f left join p.drkUser u left join p.organization o " +
+                "where p.id in :ids",
+                Object[].class
+            )
+            .setParameter("ids", ids)
+            .getResultList();
+        if (protocols.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<ProtocolBundle.AdditionalUserEntry>> additionalUsers = entityManager
+            .createQuery(
+                "select a.protocol.id, a.id, u.id, u.userName, u.firstName, u.lastName, u.email from AdditionalUser a " +
+                "left join a.drkUser u where a.protocol.id in :ids order by a.id",
+                Object[].class
+            )
+            .setParameter("ids", ids)
+            .getResultList()
+            .stream()
+            .collect(
+                Collectors.groupingBy(
+                    additionalUser -> (Long) additionalUser[0],
+                    Collectors.mapping(
+                        additionalUser -> new ProtocolBundle.AdditionalUserEntry((Long) additionalUser[1], user(additionalUser, 2)),
+                        Collectors.toList()
+                    )
+                )
+            );
+
+        return protocols
+            .stream()
+            .map(row ->
+                new ProtocolBundle(
+                    (Long) row[0],
+                    (Long) row[1],
+                    (Boolean) row[2],
+                    (String) row[3],
+                    (Boolean) row[4],
+                    (Instant) row[5],
+                    (Instant) row[6],
+                    row[7] == null ? null : new ProtocolBundle.Content((Long) row[7], (Long) row[8], (String) row[9]),
+                    row[10] == null ? null : new ProtocolBundle.PdfFile((Long) row[10], (String) row[11], length(row[12])),
+                    user(row, 13),
+                    row[18] == null ? null : new ProtocolBundle.OrganizationSummary((Long) row[18], (String) row[19], (String) row[20]),
+                    additionalUsers.getOrDefault((Long) row[0], List.of())
+                )
+            )
+            .toList();
+    }
+
+    private static Long length(Object length) {
+        return length == null ? null : ((Number) length).longValue();
+    }
+
+    private static ProtocolBundle.User user(Object[] row, int offset) {
+        if (row[offset] == null) {
+            return null;
+        }
+        return new ProtocolBundle.User(
+            (Long) row[offset],
+            (String) row[offset + 1],
+            (String) row[offset + 2],
+            (String) row[offset + 3],
+            (String) row[offset + 4]
+        );
+    }
+}
@@ -0,0 +1,107 @@
+package com.javabackend.backend.service.coalescing;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * Runs at most one load per key at a time, concurrent callers with the same key wait for the running load and share
+ * its result. Results accepted by {@code reusable} are also handed out for a short reuse window after the load.
+ * <p>
+ * Failed loads are not shared, a waiting caller whose load failed or took too long runs the load itself.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the results.
+ */
+public class SingleFlight<K, V> {
+
+    private static final class Flight<V> {
+
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+
+        private volatile long completedAt;
+    }
+
+    private final ConcurrentHashMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+
+    private final long reuseNanos;
+
+    private final long waitNanos;
+
+    private final Predicate<V> reusable;
+
+    /**
+     * @param reuseNanos  how long a result is reused after its load, {@code 0} to only share running loads.
+     * @param waitNanos   how long to wait for the load of another caller.
+     * @param reusable    the results which may be reused.
+     */
+    public SingleFlight(long reuseNanos, long waitNanos, Predicate<V> reusable) {
+        this.reuseNanos = reuseNanos;
+        this.waitNanos = waitNanos;
+        this.reusable = reusable;
+    }
+
+    public V execute(K key, Callable<V> loader) throws Exception {
+        while (true) {
+            Flight<V> flight = flights.get(key);
+            if (flight == null) {
+                Flight<V> own = new Flight<>();
+                if (flights.putIfAbsent(key, own) == null) {
+                    return load(key, own, loader);
+                }
+            } else if (!flight.result.isDone()) {
+                try {
+                    return flight.result.get(waitNanos, TimeUnit.NANOSECONDS);
+                } catch (ExecutionException | TimeoutException e) {
+                    return loader.call();
+                }
+            } else if (System.nanoTime() - flight.completedAt <= reuseNanos && !flight.result.isCompletedExceptionally()) {
+                return flight.result.join();
+            } else {
+                flights.remove(key, flight);
+            }
+        }
+    }
+
+    private V load(K key, Flight<V> flight, Callable<V> loader) throws Exception {
+        V value;
+        try {
+            value = loader.call();
+        } catch (Exception | Error e) {
+            flights.remove(key, flight);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+        flight.completedAt = System.nanoTime();
+        flight.result.complete(value);
+        if (reuseNanos <= 0 || !reusable.test(value)) {
+            flights.remove(key, flight);
+        }
+        return value;
+    }
+
+    /**
+     * Forgets the reusable results and detaches the running loads, so later callers start a new load instead of
+     * sharing one which may have read the state before the clear. Callers already waiting still get the result of
+     * the detached load.
+     */
+    public void clear() {
+        flights.clear();
+    }
+
+    /**
+     * Forgets the results whose reuse window has passed.
+     */
+    public void evictExpired() {
+        long now = System.nanoTime();
+        flights.values().removeIf(flight -> flight.result.isDone() && now - flight.completedAt > reuseNanos);
+    }
+
+    public int size() {
+        return flights.size();
+    }
+}
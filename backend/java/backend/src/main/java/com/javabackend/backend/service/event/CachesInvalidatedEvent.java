@@ -0,0 +1,6 @@
+package com.javabackend.backend.service.event;
+
+/**
+ * Published when changes of other nodes may have been missed, listeners drop or rebuild all their cached state.
+ */
+public record CachesInvalidatedEvent() {}
@@ -0,0 +1,20 @@
+package com.javabackend.backend.service.event;
+
+/**
+ * Published by the REST resources and services for every entity they write, listeners usually react after the commit.
+ *
+ * @param entityType the type of the written entity.
+ * @param id         the id of the written entity.
+ * @param operation  what has been done to the entity.
+ */
+public record EntityChangedEvent(Class<?> entityType, Long id, Operation operation) {
+    public enum Operation {
+        CREATE,
+        UPDATE,
+        DELETE,
+    }
+
+    public boolean isAbout(Class<?> type) {
+        return entityType == type;
+    }
+}
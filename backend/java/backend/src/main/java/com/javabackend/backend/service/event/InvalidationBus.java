@@ -0,0 +1,264 @@
+package com.javabackend.backend.service.event;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Broadcasts the committed {@link EntityChangedEvent}s to the other application instances over PostgreSQL
+ * {@code LISTEN}/{@code NOTIFY}, so their in-process caches don't go stale.
+ * <p>
+ * Local changes are queued after the commit and sent every flush interval, many changes per notification. Received
+ * changes are evicted from the second level cache and republished as events outside of a transaction, so the cache
+ * listeners of this node handle them like local changes. The staleness of another node is bounded by the flush
+ * interval plus the delivery time. If the listening connection breaks, notifications may have been missed and a
+ * {@link CachesInvalidatedEvent} is published once it is back. The bus is idle on other databases than PostgreSQL.
+ */
+@Service
+public class InvalidationBus {
+
+    private final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+
+    /**
+     * PostgreSQL limits a notification payload to 8000 bytes, entries are ASCII.
+     */
+    private static final int MAX_PAYLOAD = 7900;
+
+    private static final ThreadLocal<Boolean> RECEIVING = ThreadLocal.withInitial(() -> false);
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Queue<String> outgoing = new ConcurrentLinkedQueue<>();
+
+    private final DataSourceProperties dataSourceProperties;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final boolean enabled;
+
+    private final String channel;
+
+    private final Duration pollTimeout;
+
+    private final Duration reconnectDelay;
+
+    private final Map<String, Class<?>> entityTypes;
+
+    private volatile boolean running;
+
+    private Thread listener;
+
+    public InvalidationBus(
+        DataSourceProperties dataSourceProperties,
+        JdbcTemplate jdbcTemplate,
+        EntityManagerFactory entityManagerFactory,
+        ApplicationEventPublisher eventPublisher,
+        @Value("${application.invalidation.enabled:true}") boolean enabled,
+        @Value("${application.invalidation.channel:entity_invalidation}") String channel,
+        @Value("${application.invalidation.poll-timeout:PT1S}") Duration pollTimeout,
+        @Value("${application.invalidation.reconnect-delay:PT5S}") Duration reconnectDelay
+    ) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled && String.valueOf(dataSourceProperties.determineUrl()).startsWith("jdbc:postgresql:");
+        this.channel = channel;
+        this.pollTimeout = pollTimeout;
+        this.reconnectDelay = reconnectDelay;
+        this.entityTypes = entityManagerFactory
+            .getMetamodel()
+            .getEntities()
+            .stream()
+            .collect(Collectors.toMap(EntityType::getName, EntityType::getJavaType, (first, second) -> first));
+    }
+
+    /**
+     * @return {@code true} while the current thread republishes the changes of another instance.
+     */
+    public static boolean isReceiving() {
+        return RECEIVING.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (enabled && !RECEIVING.get() && event.id() != null) {
+            outgoing.add(event.entityType().getSimpleName() + ":" + event.id() + ":" + event.operation().name().charAt(0));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.invalidation.flush-interval:PT0.1S}")
+    public void flush() {
+        if (outgoing.isEmpty()) {
+            return;
+        }
+        Set<String> entries = new LinkedHashSet<>();
+        String entry;
+        while ((entry = outgoing.poll()) != null) {
+            entries.add(entry);
+        }
+        StringBuilder payload = new StringBuilder(nodeId).append('|');
+        int header = payload.length();
+        for (String next : entries) {
+            if (payload.length() > header && payload.length() + 1 + next.length() > MAX_PAYLOAD) {
+                send(payload.toString());
+                payload.setLength(header);
+            }
+            if (payload.length() > header) {
+                payload.append(',');
+            }
+            payload.append(next);
+        }
+        send(payload.toString());
+    }
+
+    private void send(String payload) {
+        try {
+            jdbcTemplate.query("select pg_notify(?, ?)", resultSet -> null, channel, payload);
+        } catch (DataAccessException e) {
+            log.warn("Could not broadcast invalidations, other nodes stay stale until their caches are rebuilt", e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    /**
+     * Listens on its own connection outside of the pool, it is held as long as the application runs.
+     */
+    private void listen() {
+        boolean missed = false;
+        while (running) {
+            try (
+                Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword()
+                )
+            ) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (missed) {
+                    invalidateAll();
+                    missed = false;
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Invalidation listener failed, reconnecting in {}", reconnectDelay, e);
+                missed = true;
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        int separator = payload.indexOf('|');
+        if (separator < 0 || payload.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        RECEIVING.set(true);
+        try {
+            for (String entry : payload.substring(separator + 1).split(",")) {
+                EntityChangedEvent event = decode(entry);
+                if (event != null) {
+                    entityManagerFactory.getCache().evict(event.entityType(), event.id());
+                    eventPublisher.publishEvent(event);
+                }
+            }
+        } finally {
+            RECEIVING.remove();
+        }
+    }
+
+    private EntityChangedEvent decode(String entry) {
+        String[] parts = entry.split(":");
+        Class<?> entityType = parts.length == 3 ? entityTypes.get(parts[0]) : null;
+        if (entityType == null) {
+            log.debug("Ignoring invalidation {}", entry);
+            return null;
+        }
+        Function<Character, EntityChangedEvent.Operation> operation = first ->
+            switch (first) {
+                case 'C' -> EntityChangedEvent.Operation.CREATE;
+                case 'D' -> EntityChangedEvent.Operation.DELETE;
+                default -> EntityChangedEvent.Operation.UPDATE;
+            };
+        return new EntityChangedEvent(entityType, Long.valueOf(parts[1]), operation.apply(parts[2].charAt(0)));
+    }
+
+    private void invalidateAll() {
+        log.info("Invalidating all caches after missed notifications");
+        entityManagerFactory.getCache().evictAll();
+        RECEIVING.set(true);
+        try {
+            eventPublisher.publishEvent(new CachesInvalidatedEvent());
+        } finally {
+            RECEIVING.remove();
+        }
+    }
+}
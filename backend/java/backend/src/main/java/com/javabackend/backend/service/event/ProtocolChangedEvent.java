@@ -0,0 +1,40 @@
+package com.javabackend.backend.service.event;
+
+import com.javabackend.backend.domain.Protocol;
+
+import java.time.Instant;
+
+/**
+ * Compact description of a written protocol, published by the ProtocolResource and delivered after the commit. It
+ * comes in addition to the {@link EntityChangedEvent} of the write, which is the one the invalidation bus shares with
+ * the other instances.
+ *
+ * @param id               the id of the protocol.
+ * @param organizationId   the organization of the protocol, {@code null} if it has none or is unknown.
+ * @param state            the state after the write.
+ * @param createdOrEdited  the time of the last edit, {@code null} for deletions.
+ */
+public record ProtocolChangedEvent(Long id, Long organizationId, State state, Instant createdOrEdited) {
+    public enum State {
+        DRAFT,
+        OPEN,
+        CLOSED,
+        DELETED,
+    }
+
+    public static ProtocolChangedEvent of(Protocol protocol) {
+        State state = Boolean.TRUE.equals(protocol.getIsDraft())
+            ? State.DRAFT
+            : Boolean.TRUE.equals(protocol.getIsClosed()) ? State.CLOSED : State.OPEN;
+        return new ProtocolChangedEvent(
+            protocol.getId(),
+            protocol.getOrganization() == null ? null : protocol.getOrganization().getId(),
+            state,
+            protocol.getCreatedOrEdited()
+        );
+    }
+
+    public static ProtocolChangedEvent deleted(Long id, Long organizationId) {
+        return new ProtocolChangedEvent(id, organizationId, State.DELETED, null);
+    }
+}
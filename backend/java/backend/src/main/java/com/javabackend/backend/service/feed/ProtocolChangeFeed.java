@@ -0,0 +1,327 @@
+package com.javabackend.backend.service.feed;
+
+import com.javabackend.backend.domain.EntityChange;
+import com.javabackend.backend.domain.Protocol;
+import com.javabackend.backend.repository.EntityChangeRepository;
+import com.javabackend.backend.repository.ProtocolRepository;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import com.javabackend.backend.service.event.InvalidationBus;
+import com.javabackend.backend.service.event.ProtocolChangedEvent;
+import com.javabackend.backend.service.permission.OrganizationTree;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Pushes the committed protocol writes to the subscribed Server-Sent Events clients.
+ * <p>
+ * The committing thread only offers the event to the bounded buffer of every matching subscriber and schedules the
+ * subscriber on a small sender pool, it never writes to a connection. At most one sender works on a subscriber at a
+ * time. Events not fitting into a full buffer are dropped and the client gets an {@code overflow} event once there is
+ * room again, telling it to reload the list.
+ * <p>
+ * A client which stops reading blocks the write of its sender. A write not finished within the write timeout drops
+ * the subscriber, and the pool gets one more sender until the blocked write returns, so stalled clients never hold up
+ * the others. The container fails the blocked write at its socket timeout.
+ * <p>
+ * The writes of the other instances reach the feed as the {@link EntityChangedEvent}s republished by the
+ * {@link InvalidationBus}, a subscriber gets every write whichever instance it is connected to. Their state is read
+ * back from the database, so they arrive after the flush interval of the bus and show the state at that time.
+ */
+@Service
+public class ProtocolChangeFeed {
+
+    private final Logger log = LoggerFactory.getLogger(ProtocolChangeFeed.class);
+
+    public static final String CHANGE_EVENT = "protocol";
+
+    public static final String OVERFLOW_EVENT = "overflow";
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final OrganizationTree organizationTree;
+
+    private final ProtocolRepository protocolRepository;
+
+    private final EntityChangeRepository entityChangeRepository;
+
+    private final ThreadPoolExecutor senders;
+
+    private final int bufferSize;
+
+    private final Duration timeout;
+
+    private final Duration writeTimeout;
+
+    public ProtocolChangeFeed(
+        OrganizationTree organizationTree,
+        ProtocolRepository protocolRepository,
+        EntityChangeRepository entityChangeRepository,
+        @Value("${application.feed.sender-threads:4}") int senderThreads,
+        @Value("${application.feed.buffer-size:256}") int bufferSize,
+        @Value("${application.feed.timeout:PT30M}") Duration timeout,
+        @Value("${application.feed.write-timeout:PT10S}") Duration writeTimeout
+    ) {
+        this.organizationTree = organizationTree;
+        this.protocolRepository = protocolRepository;
+        this.entityChangeRepository = entityChangeRepository;
+        AtomicInteger threads = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(
+            senderThreads,
+            senderThreads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "protocol-feed-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.writeTimeout = writeTimeout;
+    }
+
+    /**
+     * @param organizationId  only changes of this organization, {@code null} for all organizations.
+     * @param includeDescendants  also the changes of the descendants of {@code organizationId}.
+     * @param visible  only changes of the organizations passing this test, {@code null} for no restriction.
+     * @return the emitter of the new subscription.
+     */
+    public SseEmitter subscribe(Long organizationId, boolean includeDescendants, Predicate<Long> visible) {
+        Predicate<Long> filter = changed -> true;
+        if (organizationId != null || visible != null) {
+            // changes without organization only reach the unrestricted subscribers
+            filter = changed -> changed != null;
+        }
+        if (organizationId != null) {
+            filter = filter.and(
+                includeDescendants ? changed -> organizationTree.isInSubtree(organizationId, changed) : organizationId::equals
+            );
+        }
+        if (visible != null) {
+            filter = filter.and(visible);
+        }
+
+        return subscribe(new SseEmitter(timeout.toMillis()), filter);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, Predicate<Long> filter) {
+        Subscriber subscriber = new Subscriber(emitter, filter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int size() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProtocolChanged(ProtocolChangedEvent event) {
+        Message message = new Message(sequence.incrementAndGet(), CHANGE_EVENT, event);
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.filter.test(event.organizationId())) {
+                subscriber.offer(message);
+            }
+        }
+    }
+
+    /**
+     * Turns a protocol write of another instance into its change, deleted protocols take their organization from the
+     * tombstone in the change log.
+     */
+    @EventListener
+    public void onRemoteEntityChanged(EntityChangedEvent event) {
+        if (!InvalidationBus.isReceiving() || !event.isAbout(Protocol.class)) {
+            return;
+        }
+        ProtocolChangedEvent change = event.operation() == EntityChangedEvent.Operation.DELETE
+            ? null
+            : protocolRepository.findById(event.id()).map(ProtocolChangedEvent::of).orElse(null);
+        if (change == null) {
+            Long organizationId = entityChangeRepository
+                .findOneByEntityTypeAndEntityId(EntityChange.EntityType.PROTOCOL, event.id())
+                .map(EntityChange::getOrganizationId)
+                .orElse(null);
+            change = ProtocolChangedEvent.deleted(event.id(), organizationId);
+        }
+        onProtocolChanged(change);
+    }
+
+    /**
+     * Comments keep idle connections open through proxies and reveal the clients which are gone.
+     */
+    @Scheduled(fixedDelayString = "${application.feed.heartbeat:PT20S}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.offer(Message.HEARTBEAT));
+    }
+
+    /**
+     * Drops the subscribers whose current write is blocked for longer than the write timeout.
+     */
+    @Scheduled(fixedDelayString = "${application.feed.write-check:PT1S}")
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long since = subscriber.writingSince.get();
+            boolean blocked = since != IDLE && since != STALLED && now - since > writeTimeout.toNanos();
+            if (blocked && subscriber.writingSince.compareAndSet(since, STALLED)) {
+                log.info("Dropping a protocol feed subscriber, a write is blocked for more than {}", writeTimeout);
+                subscribers.remove(subscriber);
+                resizeSenders(1);
+            }
+        }
+    }
+
+    /**
+     * Adds senders for the ones blocked by stalled subscribers, or removes them again once their write returned.
+     */
+    private synchronized void resizeSenders(int delta) {
+        if (delta > 0) {
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+        } else {
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private record Message(long id, String name, ProtocolChangedEvent event) {
+        static final Message HEARTBEAT = new Message(0, null, null);
+    }
+
+    private static final long IDLE = Long.MIN_VALUE;
+
+    private static final long STALLED = Long.MIN_VALUE + 1;
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final Predicate<Long> filter;
+
+        private final Queue<Message> buffer;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final AtomicBoolean overflowed = new AtomicBoolean();
+
+        /**
+         * Start of the current write in {@link System#nanoTime()}, {@link #IDLE} between the writes and
+         * {@link #STALLED} once the write timed out.
+         */
+        private final AtomicLong writingSince = new AtomicLong(IDLE);
+
+        private Subscriber(SseEmitter emitter, Predicate<Long> filter) {
+            this.emitter = emitter;
+            this.filter = filter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private void offer(Message message) {
+            if (!buffer.offer(message) && message != Message.HEARTBEAT) {
+                overflowed.set(true);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Message message;
+                while ((message = buffer.poll()) != null) {
+                    send(message);
+                }
+                if (overflowed.getAndSet(false)) {
+                    write(SseEmitter.event().name(OVERFLOW_EVENT).data(""));
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Protocol feed subscriber gone: {}", e.getMessage());
+                subscribers.remove(this);
+                buffer.clear();
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            // an offer between the last poll and releasing the flag found the subscriber still scheduled
+            if (!buffer.isEmpty() || overflowed.get()) {
+                schedule();
+            }
+        }
+
+        private void send(Message message) throws IOException {
+            if (message == Message.HEARTBEAT) {
+                write(SseEmitter.event().comment(""));
+            } else {
+                write(
+                    SseEmitter
+                        .event()
+                        .id(Long.toString(message.id()))
+                        .name(message.name())
+                        .data(message.event(), MediaType.APPLICATION_JSON)
+                );
+            }
+        }
+
+        private void write(SseEmitter.SseEventBuilder event) throws IOException {
+            long start = System.nanoTime();
+            writingSince.set(start);
+            try {
+                emitter.send(event);
+            } finally {
+                if (!writingSince.compareAndSet(start, IDLE)) {
+                    // dropped while blocked, the sender added in the meantime is not needed any more
+                    resizeSenders(-1);
+                }
+            }
+            if (writingSince.get() == STALLED) {
+                throw new IOException("Write blocked for more than " + writeTimeout);
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.javabackend.backend.service.id;
+
+import com.javabackend.backend.domain.IdNode;
+import com.javabackend.backend.domain.id.TimeOrderedId;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Gives this instance a node id of the {@link TimeOrderedId}s, so instances creating ids in the same millisecond don't
+ * collide.
+ * <p>
+ * The node id is {@code application.id.node} if set. Otherwise a free {@link IdNode} row is leased at startup and
+ * renewed while the instance runs, a row not renewed for the lease time is free again. Without a node id, because all
+ * rows are leased or the database is unreachable, the ids fall back to the plain sequence and are unique within this
+ * instance only, the lease is retried at every renewal. An instance which could not renew its lease for the lease
+ * time gives up its node id, another instance may have taken it.
+ */
+@Service
+public class IdNodeLease {
+
+    private final Logger log = LoggerFactory.getLogger(IdNodeLease.class);
+
+    private final String holder = UUID.randomUUID().toString();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int nodeBits;
+
+    private final int configuredNode;
+
+    private final Duration leaseTime;
+
+    private Integer node;
+
+    private Instant renewedAt;
+
+    public IdNodeLease(
+        JdbcTemplate jdbcTemplate,
+        @Value("${application.id.node-bits:4}") int nodeBits,
+        @Value("${application.id.node:-1}") int configuredNode,
+        @Value("${application.id.lease-time:PT1M}") Duration leaseTime
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeBits = nodeBits;
+        this.configuredNode = configuredNode;
+        this.leaseTime = leaseTime;
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (configuredNode >= 0) {
+            TimeOrderedId.setNode(configuredNode, nodeBits);
+            node = configuredNode;
+            log.info("Creating ids as configured node {}", node);
+        } else {
+            lease();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.id.lease-renewal:PT20S}")
+    public synchronized void renew() {
+        if (configuredNode >= 0) {
+            return;
+        }
+        if (node == null) {
+            lease();
+            return;
+        }
+        Instant now = Instant.now();
+        try {
+            if (touch(now) == 1) {
+                renewedAt = now;
+            } else {
+                log.warn("Lease of id node {} has been lost", node);
+                release();
+                lease();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not renew the lease of id node {}", node, e);
+            if (renewedAt.plus(leaseTime).isBefore(now)) {
+                release();
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (configuredNode >= 0 || node == null) {
+            return;
+        }
+        try {
+            // an expired lease, the node is free for the next instance
+            touch(Instant.EPOCH);
+        } catch (DataAccessException e) {
+            log.warn("Could not free id node {}", node, e);
+        }
+    }
+
+    /**
+     * @return the node id of this instance, {@code null} if it has none.
+     */
+    public synchronized Integer node() {
+        return node;
+    }
+
+    private void lease() {
+        try {
+            for (int candidate = 0; candidate < 1 << nodeBits; candidate++) {
+                Instant now = Instant.now();
+                if (claim(candidate, now)) {
+                    TimeOrderedId.setNode(candidate, nodeBits);
+                    node = candidate;
+                    renewedAt = now;
+                    log.info("Creating ids as leased node {}", node);
+                    return;
+                }
+            }
+            log.warn("All {} id nodes are leased, ids are unique within this instance only", 1 << nodeBits);
+        } catch (DataAccessException e) {
+            log.warn("Could not lease an id node, ids are unique within this instance only", e);
+        }
+    }
+
+    /**
+     * Takes over the row of the node if its lease has expired, or creates it. Of concurrent claims only one succeeds,
+     * the update of the others finds the row renewed, their insert fails on the primary key.
+     */
+    private boolean claim(int candidate, Instant now) {
+        int taken = jdbcTemplate.update(
+            "update id_node set holder = ?, renewed_at = ? where id = ? and renewed_at < ?",
+            holder,
+            Timestamp.from(now),
+            candidate,
+            Timestamp.from(now.minus(leaseTime))
+        );
+        if (taken == 1) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update("insert into id_node (id, holder, renewed_at) values (?, ?, ?)", candidate, holder, Timestamp.from(now));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private int touch(Instant at) {
+        return jdbcTemplate.update("update id_node set renewed_at = ? where id = ? and holder = ?", Timestamp.from(at), node, holder);
+    }
+
+    private void release() {
+        TimeOrderedId.setNode(0, 0);
+        node = null;
+    }
+}
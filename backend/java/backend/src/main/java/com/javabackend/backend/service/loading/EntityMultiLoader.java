@@ -0,0 +1,61 @@
+package com.javabackend.backend.service.loading;
+
+import jakarta.persistence.EntityManager;
+import org.apache.coyote.BadRequestException;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Loads many entities of one type by id at once, for the clients resolving references.
+ * <p>
+ * The entities found in the persistence context or in the second level cache are taken from there, the rest is read
+ * with one query. Hibernate binds the ids as one array parameter where the database supports it, and pads IN lists to
+ * the next power of two otherwise ({@code hibernate.query.in_clause_parameter_padding}), so the statement cache holds
+ * few distinct statements.
+ */
+@Service
+public class EntityMultiLoader {
+
+    private final EntityManager entityManager;
+
+    private final int maxIds;
+
+    public EntityMultiLoader(EntityManager entityManager, @Value("${application.multi-get.max-ids:1000}") int maxIds) {
+        this.entityManager = entityManager;
+        this.maxIds = maxIds;
+    }
+
+    /**
+     * @return the existing entities in the order of their first occurrence in {@code ids}, in the caller's transaction.
+     * @throws BadRequestException if there are more distinct ids than allowed or an id is {@code null}.
+     */
+    public <T> List<T> findAllById(Class<T> type, Collection<Long> ids) throws BadRequestException {
+        if (ids.contains(null)) {
+            throw new BadRequestException("The ids must not be null");
+        }
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinct.size() > maxIds) {
+            throw new BadRequestException("At most " + maxIds + " ids can be loaded at once");
+        }
+        if (distinct.isEmpty()) {
+            return List.of();
+        }
+        return entityManager
+            .unwrap(Session.class)
+            .byMultipleIds(type)
+            .enableSessionCheck(true)
+            .enableOrderedReturn(true)
+            .withBatchSize(distinct.size())
+            .multiLoad(distinct)
+            .stream()
+            .filter(Objects::nonNull)
+            .toList();
+    }
+}
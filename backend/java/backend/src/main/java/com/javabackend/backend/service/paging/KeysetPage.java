@@ -0,0 +1,11 @@
+package com.javabackend.backend.service.paging;
+
+import java.util.List;
+
+/**
+ * One page of rows ordered by id.
+ *
+ * @param nextCursor the id after which the next page starts, {@code null} on the last page.
+ * @param limit the maximum number of rows per page.
+ */
+public record KeysetPage<T>(List<T> content, Long nextCursor, int limit) {}
@@ -0,0 +1,146 @@
+package com.javabackend.backend.service.paging;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.apache.coyote.BadRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset paging of the entity list endpoints: a page is the rows with an id above the cursor, ordered by id, so every
+ * page costs one index range scan however deep it is, and concurrent inserts don't shift the pages.
+ * <p>
+ * Streaming writes all rows as newline delimited JSON, page by page. Every page is read and written in its own
+ * read-only transaction, so neither the persistence context nor the response buffer grow with the table.
+ */
+@Service
+public class KeysetPaging {
+
+    private static final String ID = "id";
+
+    private final EntityManager entityManager;
+
+    private final ObjectWriter writer;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int defaultLimit;
+
+    private final int maxLimit;
+
+    private final int streamBatchSize;
+
+    public KeysetPaging(
+        EntityManager entityManager,
+        ObjectMapper objectMapper,
+        PlatformTransactionManager transactionManager,
+        @Value("${application.paging.default-limit:1000}") int defaultLimit,
+        @Value("${application.paging.max-limit:5000}") int maxLimit,
+        @Value("${application.paging.stream-batch-size:500}") int streamBatchSize
+    ) {
+        this.entityManager = entityManager;
+        this.writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.streamBatchSize = streamBatchSize;
+    }
+
+    /**
+     * @return the requested page size, the default if {@code null}.
+     * @throws BadRequestException if the requested size is not between 1 and the maximum.
+     */
+    public int limit(Integer requested) throws BadRequestException {
+        if (requested == null) {
+            return defaultLimit;
+        }
+        if (requested < 1 || requested > maxLimit) {
+            throw new BadRequestException("The limit must be between 1 and " + maxLimit);
+        }
+        return requested;
+    }
+
+    /**
+     * @param specification the restriction of the rows, {@code null} for all rows.
+     * @param cursor the id after which the page starts, {@code null} for the first page.
+     * @return the page, in the caller's transaction.
+     */
+    public <T> KeysetPage<T> page(Class<T> type, Specification<T> specification, Long cursor, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = criteriaBuilder.createQuery(type);
+        Root<T> root = query.from(type);
+        query.select(root).where(after(root, query, criteriaBuilder, specification, cursor)).orderBy(criteriaBuilder.asc(root.get(ID)));
+        List<T> rows = entityManager.createQuery(query).setMaxResults(limit + 1).getResultList();
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null, limit);
+        }
+        rows = rows.subList(0, limit);
+        Long nextCursor = (Long) entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(rows.get(limit - 1));
+        return new KeysetPage<>(rows, nextCursor, limit);
+    }
+
+    /**
+     * @return the conditions of the rows after {@code cursor} which satisfy {@code specification}.
+     */
+    public <T> Predicate[] after(
+        Root<T> root,
+        CriteriaQuery<?> query,
+        CriteriaBuilder criteriaBuilder,
+        Specification<T> specification,
+        Long cursor
+    ) {
+        List<Predicate> predicates = new ArrayList<>(2);
+        if (cursor != null) {
+            predicates.add(criteriaBuilder.greaterThan(root.get(ID), cursor));
+        }
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+        return predicates.toArray(Predicate[]::new);
+    }
+
+    /**
+     * The specification is evaluated on the streaming thread, it must not depend on the request.
+     *
+     * @param specification the restriction of the rows, {@code null} for all rows.
+     * @return the body writing all matching rows as newline delimited JSON.
+     */
+    public <T> StreamingResponseBody stream(Class<T> type, Specification<T> specification) {
+        return outputStream -> {
+            Long cursor = null;
+            do {
+                Long after = cursor;
+                cursor = transactionTemplate.execute(status -> {
+                    KeysetPage<T> page = page(type, specification, after, streamBatchSize);
+                    try {
+                        for (T row : page.content()) {
+                            writer.writeValue(outputStream, row);
+                            outputStream.write('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return page.nextCursor();
+                });
+                outputStream.flush();
+            } while (cursor != null);
+        };
+    }
+}
@@ -0,0 +1,227 @@
+package com.javabackend.backend.service.permission;
+
+import com.javabackend.backend.domain.Organization;
+import com.javabackend.backend.service.event.CachesInvalidatedEvent;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import jakarta.persistence.Cache;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The organization tree spanned by {@link Organization#getParentId()}, encoded as nested intervals.
+ * <p>
+ * Every organization gets a pre-order number {@code tree_left} and a post-order number {@code tree_right}, the
+ * descendants of an organization are exactly the organizations with a tree left within its interval. The numbers are
+ * kept in memory and in the indexed {@code organization.tree_left}/{@code tree_right} columns, so a whole subtree is
+ * one range condition in SQL.
+ * <p>
+ * The tree is renumbered after the commit of organization writes, on a background thread so the writes don't wait for
+ * it. Writes arriving while a renumbering is pending are coalesced into it, a burst of writes costs one or two
+ * renumberings. Until it has run, a new organization has no interval and is not visible, and a moved one is still
+ * visible in its old subtree.
+ * <p>
+ * The columns are written with JDBC, the second level cache entries of the renumbered organizations are evicted after
+ * the commit. Instances which only learn about a write through the invalidation bus find the rows already renumbered,
+ * they evict the organizations whose interval differs from the one they had in memory.
+ */
+@Service
+public class OrganizationTree {
+
+    private final Logger log = LoggerFactory.getLogger(OrganizationTree.class);
+
+    public record Interval(long left, long right) {}
+
+    private volatile Map<Long, Interval> intervals = Map.of();
+
+    private final EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private final ExecutorService renumbering = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "organization-tree");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OrganizationTree(EntityManager entityManager, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @return the interval of the organization, {@code null} if it is unknown.
+     */
+    public Interval interval(Long organizationId) {
+        return intervals.get(organizationId);
+    }
+
+    /**
+     * @return {@code true} if {@code organizationId} is {@code ancestorId} or one of its descendants.
+     */
+    public boolean isInSubtree(Long ancestorId, Long organizationId) {
+        Interval ancestor = intervals.get(ancestorId);
+        Interval organization = intervals.get(organizationId);
+        return ancestor != null && organization != null && ancestor.left() <= organization.left() && organization.left() <= ancestor.right();
+    }
+
+    /**
+     * @return the disjoint intervals of tree left numbers covering the subtrees of the given organizations, sorted.
+     */
+    public List<Interval> subtrees(Collection<Long> organizationIds) {
+        Map<Long, Interval> current = intervals;
+        List<Interval> roots = organizationIds
+            .stream()
+            .map(current::get)
+            .filter(Objects::nonNull)
+            .sorted(Comparator.comparingLong(Interval::left))
+            .toList();
+        List<Interval> merged = new ArrayList<>();
+        for (Interval interval : roots) {
+            Interval last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && interval.left() <= last.right() + 1) {
+                merged.set(merged.size() - 1, new Interval(last.left(), Math.max(last.right(), interval.right())));
+            } else {
+                merged.add(interval);
+            }
+        }
+        return merged;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        // a renumbering already pending reads this write as well
+        if (event.isAbout(Organization.class) && dirty.compareAndSet(false, true)) {
+            renumbering.execute(this::rebuildIfDirty);
+        }
+    }
+
+    private void rebuildIfDirty() {
+        // cleared before reading, a write committing during the renumbering schedules the next one
+        if (dirty.getAndSet(false)) {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.warn("Renumbering the organization tree failed", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        renumbering.shutdownNow();
+    }
+
+    @EventListener({ ApplicationReadyEvent.class, CachesInvalidatedEvent.class })
+    public synchronized void rebuild() {
+        Set<Long> renumbered = new HashSet<>();
+        Map<Long, Interval> numbered = transactionTemplate.execute(status -> {
+            List<Object[]> rows = entityManager
+                .createQuery("select o.id, o.parentId, o.treeLeft, o.treeRight from Organization o order by o.id", Object[].class)
+                .getResultList();
+            Map<Long, Interval> result = number(rows);
+            List<Object[]> changes = new ArrayList<>();
+            for (Object[] row : rows) {
+                Interval interval = result.get((Long) row[0]);
+                if (!Objects.equals(row[2], interval.left()) || !Objects.equals(row[3], interval.right())) {
+                    changes.add(new Object[] { interval.left(), interval.right(), row[0] });
+                    renumbered.add((Long) row[0]);
+                } else if (!interval.equals(intervals.get((Long) row[0]))) {
+                    renumbered.add((Long) row[0]);
+                }
+            }
+            jdbcTemplate.batchUpdate("update organization set tree_left = ?, tree_right = ? where id = ?", changes);
+            log.debug("Renumbered {} of {} organizations", changes.size(), rows.size());
+            return result;
+        });
+        intervals = Map.copyOf(numbered);
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        renumbered.forEach(id -> cache.evict(Organization.class, id));
+    }
+
+    /**
+     * Depth-first numbering, organizations without a known parent are roots. Members of parent cycles are numbered as
+     * roots as well, so every organization gets an interval.
+     */
+    private static Map<Long, Interval> number(List<Object[]> rows) {
+        Map<Long, List<Long>> children = new HashMap<>();
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            ids.add((Long) row[0]);
+            children.putIfAbsent((Long) row[0], new ArrayList<>());
+        }
+        List<Long> roots = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long parentId = (Long) row[1];
+            if (parentId == null || !children.containsKey(parentId)) {
+                roots.add((Long) row[0]);
+            } else {
+                children.get(parentId).add((Long) row[0]);
+            }
+        }
+
+        Map<Long, Interval> result = new HashMap<>();
+        Map<Long, Long> lefts = new HashMap<>();
+        long counter = 1;
+        List<Long> starts = new ArrayList<>(roots);
+        starts.addAll(ids);
+        for (Long start : starts) {
+            if (lefts.containsKey(start)) {
+                continue;
+            }
+            Deque<Long> stack = new ArrayDeque<>();
+            Deque<Integer> positions = new ArrayDeque<>();
+            lefts.put(start, counter++);
+            stack.push(start);
+            positions.push(0);
+            while (!stack.isEmpty()) {
+                Long id = stack.peek();
+                int position = positions.pop();
+                List<Long> next = children.get(id);
+                if (position < next.size()) {
+                    positions.push(position + 1);
+                    Long child = next.get(position);
+                    if (!lefts.containsKey(child)) {
+                        lefts.put(child, counter++);
+                        stack.push(child);
+                        positions.push(0);
+                    }
+                } else {
+                    stack.pop();
+                    result.put(id, new Interval(lefts.get(id), counter++));
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,220 @@
+package com.javabackend.backend.service.permission;
+
+import com.javabackend.backend.domain.DrkUser;
+import com.javabackend.backend.domain.Organization;
+import com.javabackend.backend.domain.Protocol;
+import com.javabackend.backend.domain.ProtocolPdfFile;
+import com.javabackend.backend.service.archive.ArchivedProtocol;
+import com.javabackend.backend.service.bundle.ProtocolBundle;
+import com.javabackend.backend.service.session.CurrentUserProvider;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Row-level restriction of the entity endpoints to the organizations visible to the current user.
+ * <p>
+ * A role on an organization makes the organization and all its descendants visible. The visible organizations are
+ * turned into disjoint {@link OrganizationTree} intervals, so the restriction of a query is one
+ * {@code tree_left between ? and ?} per interval, and entities loaded by id are checked against the same intervals.
+ * Web requests without a session are rejected with {@code 401 (Unauthorized)}, calls outside of a web request, e.g.
+ * scheduled jobs, are not restricted. PDF files not attached to a protocol yet have no organization, an offline client
+ * uploads them ahead of their protocol, they are visible to every user.
+ */
+@Service
+public class OrganizationVisibility {
+
+    private final CurrentUserProvider currentUserProvider;
+
+    private final PermissionIndex permissionIndex;
+
+    private final OrganizationTree organizationTree;
+
+    public OrganizationVisibility(
+        CurrentUserProvider currentUserProvider,
+        PermissionIndex permissionIndex,
+        OrganizationTree organizationTree
+    ) {
+        this.currentUserProvider = currentUserProvider;
+        this.permissionIndex = permissionIndex;
+        this.organizationTree = organizationTree;
+    }
+
+    public Specification<Protocol> protocols() {
+        return visible(root -> root.join("organization"));
+    }
+
+    public Specification<DrkUser> drkUsers() {
+        return visible(root -> root.join("organization"));
+    }
+
+    /**
+     * @return the restriction for the current user, {@code null} outside of a web request. Joins the protocol and its
+     * organization outer, so files without a protocol are kept.
+     * @throws ResponseStatusException with status {@code 401 (Unauthorized)} if the request has no valid session.
+     */
+    public Specification<ProtocolPdfFile> protocolPdfFiles() {
+        List<OrganizationTree.Interval> subtrees = subtrees();
+        if (subtrees == null) {
+            return null;
+        }
+        return (root, query, criteriaBuilder) -> {
+            Join<ProtocolPdfFile, Protocol> protocol = root.join("protocol", JoinType.LEFT);
+            Path<Long> treeLeft = protocol.join("organization", JoinType.LEFT).get("treeLeft");
+            return criteriaBuilder.or(criteriaBuilder.isNull(protocol.get("id")), within(criteriaBuilder, treeLeft, subtrees));
+        };
+    }
+
+    /**
+     * @param organization the join from the queried entity to its organization.
+     * @return the restriction for the current user, {@code null} outside of a web request.
+     * @throws ResponseStatusException with status {@code 401 (Unauthorized)} if the request has no valid session.
+     */
+    public <T> Specification<T> visible(Function<Root<T>, From<?, Organization>> organization) {
+        List<OrganizationTree.Interval> subtrees = subtrees();
+        if (subtrees == null) {
+            return null;
+        }
+        return (root, query, criteriaBuilder) -> within(criteriaBuilder, organization.apply(root).get("treeLeft"), subtrees);
+    }
+
+    /**
+     * @param organizationId the id of the organization of the entity, {@code null} if it has none.
+     * @return the entity if it is visible to the current user, empty otherwise.
+     * @throws ResponseStatusException with status {@code 401 (Unauthorized)} if the request has no valid session.
+     */
+    public <T> Optional<T> filter(Optional<T> entity, Function<T, Long> organizationId) {
+        List<OrganizationTree.Interval> subtrees = subtrees();
+        return subtrees == null ? entity : entity.filter(e -> contains(subtrees, organizationId.apply(e)));
+    }
+
+    /**
+     * @param organizationId the id of the organization of an entity, {@code null} if it has none.
+     * @return the entities visible to the current user, in their order.
+     * @throws ResponseStatusException with status {@code 401 (Unauthorized)} if the request has no valid session.
+     */
+    public <T> List<T> filter(List<T> entities, Function<T, Long> organizationId) {
+        List<OrganizationTree.Interval> subtrees = subtrees();
+        return subtrees == null ? entities : entities.stream().filter(e -> contains(subtrees, organizationId.apply(e))).toList();
+    }
+
+    /**
+     * Like {@link #filter(List, Function)}, but entities without organization are visible to every user, like the PDF
+     * files without protocol.
+     *
+     * @param organizationId the id of the organization of an entity, {@code null} if it has none.
+     * @return the entities visible to the current user, in their order.
+     * @throws ResponseStatusException with status {@code 401 (Unauthorized)} if the request has no valid session.
+     */
+    public <T> List<T> filterOrphansVisible(List<T> entities, Function<T, Long> organizationId) {
+        List<OrganizationTree.Interval> subtrees = subtrees();
+        return subtrees == null
+            ? entities
+            : entities
+                .stream()
+                .filter(e -> {
+                    Long id = organizationId.apply(e);
+                    return id == null || contains(subtrees, id);
+                })
+                .toList();
+    }
+
+    /**
+     * For long-lived subscriptions: the returned test checks against the permissions at the time of the test, so it
+     * follows role changes of the user after the subscription.
+     *
+     * @return whether an organization is visible to the current user, {@code null} outside of a web request. Entities
+     * without organization are not visible.
+     * @throws ResponseStatusException with status {@code 401 (Unauthorized)} if the request has no valid session.
+     */
+    public java.util.function.Predicate<Long> organizations() {
+        return currentUserProvider
+            .requiredDrkUserId()
+            .<java.util.function.Predicate<Long>>map(drkUserId ->
+                organizationId -> contains(organizationTree.subtrees(permissionIndex.organizations(drkUserId)), organizationId)
+            )
+            .orElse(null);
+    }
+
+    /**
+     * @return the file if it is visible to the current user, empty otherwise.
+     * @throws ResponseStatusException with status {@code 401 (Unauthorized)} if the request has no valid session.
+     */
+    public Optional<ProtocolPdfFile> filterProtocolPdfFile(Optional<ProtocolPdfFile> protocolPdfFile) {
+        List<OrganizationTree.Interval> subtrees = subtrees();
+        return subtrees == null ? protocolPdfFile : protocolPdfFile.filter(file -> contains(subtrees, file));
+    }
+
+    /**
+     * @return the files visible to the current user, in their order.
+     * @throws ResponseStatusException with status {@code 401 (Unauthorized)} if the request has no valid session.
+     */
+    public List<ProtocolPdfFile> filterProtocolPdfFiles(List<ProtocolPdfFile> protocolPdfFiles) {
+        List<OrganizationTree.Interval> subtrees = subtrees();
+        return subtrees == null ? protocolPdfFiles : protocolPdfFiles.stream().filter(file -> contains(subtrees, file)).toList();
+    }
+
+    public static Long organizationOf(Protocol protocol) {
+        return protocol.getOrganization() == null ? null : protocol.getOrganization().getId();
+    }
+
+    public static Long organizationOf(DrkUser drkUser) {
+        return drkUser.getOrganization() == null ? null : drkUser.getOrganization().getId();
+    }
+
+    public static Long organizationOf(ProtocolPdfFile protocolPdfFile) {
+        return protocolPdfFile.getProtocol() == null ? null : organizationOf(protocolPdfFile.getProtocol());
+    }
+
+    public static Long organizationOf(ProtocolBundle protocol) {
+        return protocol.organization() == null ? null : protocol.organization().id();
+    }
+
+    public static Long organizationOf(ArchivedProtocol archivedProtocol) {
+        return organizationOf(archivedProtocol.protocol());
+    }
+
+    /**
+     * @return the subtrees visible to the current user, {@code null} outside of a web request.
+     */
+    private List<OrganizationTree.Interval> subtrees() {
+        return currentUserProvider
+            .requiredDrkUserId()
+            .map(drkUserId -> organizationTree.subtrees(permissionIndex.organizations(drkUserId)))
+            .orElse(null);
+    }
+
+    private static Predicate within(CriteriaBuilder criteriaBuilder, Path<Long> treeLeft, List<OrganizationTree.Interval> subtrees) {
+        if (subtrees.isEmpty()) {
+            return criteriaBuilder.disjunction();
+        }
+        Predicate[] ranges = subtrees
+            .stream()
+            .map(subtree -> criteriaBuilder.between(treeLeft, subtree.left(), subtree.right()))
+            .toArray(Predicate[]::new);
+        return ranges.length == 1 ? ranges[0] : criteriaBuilder.or(ranges);
+    }
+
+    private boolean contains(List<OrganizationTree.Interval> subtrees, ProtocolPdfFile protocolPdfFile) {
+        return protocolPdfFile.getProtocol() == null || contains(subtrees, organizationOf(protocolPdfFile));
+    }
+
+    private boolean contains(List<OrganizationTree.Interval> subtrees, Long organizationId) {
+        OrganizationTree.Interval organization = organizationId == null ? null : organizationTree.interval(organizationId);
+        return (
+            organization != null &&
+            subtrees.stream().anyMatch(subtree -> subtree.left() <= organization.left() && organization.left() <= subtree.right())
+        );
+    }
+}
@@ -0,0 +1,170 @@
+package com.javabackend.backend.service.permission;
+
+import com.javabackend.backend.domain.UserRole;
+import com.javabackend.backend.service.event.CachesInvalidatedEvent;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Effective permissions of every user, derived from the {@link UserRole} assignments.
+ * <p>
+ * Maps user to organization to the set of roles, with every role being one bit of a {@link BitSet}. The per-user maps
+ * are never modified once published, so lookups are lock-free reads of a {@link ConcurrentHashMap}. The index is
+ * built with one query on startup and after the caches have been invalidated, into new maps which replace the old ones
+ * at once, so readers never see a partly built index. Writes of the UserRoleResource recompute the affected users
+ * after the commit.
+ */
+@Service
+public class PermissionIndex {
+
+    private final Logger log = LoggerFactory.getLogger(PermissionIndex.class);
+
+    private volatile Map<Long, Map<Long, BitSet>> permissions = new ConcurrentHashMap<>();
+
+    /**
+     * Owner of every indexed user role, to find the previous user of an updated or deleted assignment.
+     */
+    private volatile Map<Long, Long> userRoleOwners = new ConcurrentHashMap<>();
+
+    /**
+     * Dense bit of every role id, only assigned while holding the lock of the index.
+     */
+    private final Map<Long, Integer> roleBits = new ConcurrentHashMap<>();
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public PermissionIndex(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * @return {@code true} if the user has the role on exactly that organization.
+     */
+    public boolean hasRole(Long drkUserId, Long organizationId, Long roleId) {
+        Integer bit = roleBits.get(roleId);
+        BitSet roles = permissions.getOrDefault(drkUserId, Map.of()).get(organizationId);
+        return bit != null && roles != null && roles.get(bit);
+    }
+
+    /**
+     * @return {@code true} if the user has any role on exactly that organization.
+     */
+    public boolean hasAnyRole(Long drkUserId, Long organizationId) {
+        return permissions.getOrDefault(drkUserId, Map.of()).containsKey(organizationId);
+    }
+
+    /**
+     * @return the organizations the user has at least one role on.
+     */
+    public Set<Long> organizations(Long drkUserId) {
+        return permissions.getOrDefault(drkUserId, Map.of()).keySet();
+    }
+
+    public int size() {
+        return permissions.size();
+    }
+
+    @EventListener({ ApplicationReadyEvent.class, CachesInvalidatedEvent.class })
+    public synchronized void rebuild() {
+        List<Object[]> rows = transactionTemplate.execute(status ->
+            entityManager
+                .createQuery("select ur.id, ur.drkUser.id, ur.organization.id, ur.role.id from UserRole ur", Object[].class)
+                .getResultList()
+        );
+        Map<Long, Map<Long, BitSet>> index = new HashMap<>();
+        Map<Long, Long> owners = new ConcurrentHashMap<>();
+        for (Object[] row : rows) {
+            if (add(index, row)) {
+                owners.put((Long) row[0], (Long) row[1]);
+            }
+        }
+        Map<Long, Map<Long, BitSet>> rebuilt = new ConcurrentHashMap<>();
+        index.forEach((drkUserId, organizations) -> rebuilt.put(drkUserId, Collections.unmodifiableMap(organizations)));
+        userRoleOwners = owners;
+        permissions = rebuilt;
+        log.info("Indexed {} role assignments of {} users", owners.size(), rebuilt.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.isAbout(UserRole.class)) {
+            refresh(event.id());
+        }
+    }
+
+    /**
+     * Recomputes the previous and the current owner of the user role.
+     */
+    synchronized void refresh(Long userRoleId) {
+        Long previousOwner = userRoleOwners.remove(userRoleId);
+        Long owner = transactionTemplate.execute(status ->
+            entityManager
+                .createQuery("select ur.drkUser.id from UserRole ur where ur.id = :id", Long.class)
+                .setParameter("id", userRoleId)
+                .getResultStream()
+                .findFirst()
+                .orElse(null)
+        );
+        if (owner != null) {
+            userRoleOwners.put(userRoleId, owner);
+            recompute(owner);
+        }
+        if (previousOwner != null && !previousOwner.equals(owner)) {
+            recompute(previousOwner);
+        }
+    }
+
+    private void recompute(Long drkUserId) {
+        List<Object[]> rows = transactionTemplate.execute(status ->
+            entityManager
+                .createQuery(
+                    "select ur.id, ur.drkUser.id, ur.organization.id, ur.role.id from UserRole ur where ur.drkUser.id = :drkUserId",
+                    Object[].class
+                )
+                .setParameter("drkUserId", drkUserId)
+                .getResultList()
+        );
+        Map<Long, Map<Long, BitSet>> index = new HashMap<>();
+        rows.forEach(row -> add(index, row));
+        Map<Long, BitSet> organizations = index.get(drkUserId);
+        if (organizations == null) {
+            permissions.remove(drkUserId);
+        } else {
+            permissions.put(drkUserId, Collections.unmodifiableMap(organizations));
+        }
+    }
+
+    private boolean add(Map<Long, Map<Long, BitSet>> index, Object[] row) {
+        Long drkUserId = (Long) row[1];
+        Long organizationId = (Long) row[2];
+        Long roleId = (Long) row[3];
+        if (drkUserId == null || organizationId == null || roleId == null) {
+            return false;
+        }
+        int bit = roleBits.computeIfAbsent(roleId, id -> roleBits.size());
+        index.computeIfAbsent(drkUserId, id -> new HashMap<>()).computeIfAbsent(organizationId, id -> new BitSet()).set(bit);
+        return true;
+    }
+}
@@ -0,0 +1,209 @@
+package com.javabackend.backend.service.projection;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.javabackend.backend.service.paging.KeysetPage;
+import com.javabackend.backend.service.paging.KeysetPaging;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.apache.coyote.BadRequestException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Sparse fieldsets of the entity endpoints: only the requested columns are selected and serialized.
+ * <p>
+ * A field set is a comma separated list of the properties of the entity JSON. Only the single valued properties
+ * which are both mapped and serialized can be selected, so the {@code @JsonIgnore} columns stay hidden. An
+ * association is selected as its foreign key and written as {@code {"id": ...}}, like a lazy association with only
+ * the id loaded. The id of the entity is always part of the result.
+ */
+@Service
+public class FieldProjection {
+
+    private static final String ID = "id";
+
+    private final Map<Class<?>, Map<String, SingularAttribute<?, ?>>> selectable = new ConcurrentHashMap<>();
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final KeysetPaging keysetPaging;
+
+    public FieldProjection(EntityManager entityManager, ObjectMapper objectMapper, KeysetPaging keysetPaging) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.keysetPaging = keysetPaging;
+    }
+
+    /**
+     * @param specification the restriction of the rows, {@code null} for all rows.
+     * @param cursor the id after which the page starts, {@code null} for the first page.
+     * @return the selected fields of the page of the matching rows, ordered by id.
+     * @throws BadRequestException if the field set contains an unknown property.
+     */
+    public <T> KeysetPage<Map<String, Object>> findAll(Class<T> type, String fields, Specification<T> specification, Long cursor, int limit)
+        throws BadRequestException {
+        List<SingularAttribute<?, ?>> attributes = parse(type, fields);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = select(type, attributes, specification, cursor);
+        query.orderBy(criteriaBuilder.asc(query.getRoots().iterator().next().get(ID)));
+        List<Map<String, Object>> rows = toRows(attributes, entityManager.createQuery(query).setMaxResults(limit + 1).getResultList());
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null, limit);
+        }
+        rows = rows.subList(0, limit);
+        return new KeysetPage<>(rows, (Long) rows.get(limit - 1).get(ID), limit);
+    }
+
+    /**
+     * @param specification the restriction of the rows, {@code null} for all rows.
+     * @return the selected fields of the requested page of the matching rows.
+     * @throws BadRequestException if the field set contains an unknown property.
+     */
+    public <T> Page<Map<String, Object>> findAll(Class<T> type, String fields, Specification<T> specification, Pageable pageable)
+        throws BadRequestException {
+        List<SingularAttribute<?, ?>> attributes = parse(type, fields);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = select(type, attributes, specification, null);
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), query.getRoots().iterator().next(), criteriaBuilder));
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        List<Map<String, Object>> rows = toRows(attributes, typedQuery.getResultList());
+        if (pageable.isUnpaged() || (pageable.getOffset() == 0 && rows.size() < pageable.getPageSize())) {
+            return new PageImpl<>(rows, pageable, rows.size());
+        }
+
+        CriteriaQuery<Long> count = criteriaBuilder.createQuery(Long.class);
+        Root<T> root = count.from(type);
+        count.select(criteriaBuilder.count(root));
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, count, criteriaBuilder);
+        if (predicate != null) {
+            count.where(predicate);
+        }
+        return new PageImpl<>(rows, pageable, entityManager.createQuery(count).getSingleResult());
+    }
+
+    /**
+     * @return the selected fields of the entity, empty if it doesn't exist.
+     * @throws BadRequestException if the field set contains an unknown property.
+     */
+    public <T> Optional<Map<String, Object>> findById(Class<T> type, String fields, Long id) throws BadRequestException {
+        return findById(type, fields, null, id);
+    }
+
+    /**
+     * @param specification the restriction of the rows, {@code null} for all rows.
+     * @return the selected fields of the entity, empty if it doesn't exist or doesn't match the specification.
+     * @throws BadRequestException if the field set contains an unknown property.
+     */
+    public <T> Optional<Map<String, Object>> findById(Class<T> type, String fields, Specification<T> specification, Long id)
+        throws BadRequestException {
+        List<SingularAttribute<?, ?>> attributes = parse(type, fields);
+        Specification<T> byId = (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get(ID), id);
+        List<Tuple> tuples = entityManager.createQuery(select(type, attributes, byId.and(specification), null)).getResultList();
+        return toRows(attributes, tuples).stream().findFirst();
+    }
+
+    private <T> CriteriaQuery<Tuple> select(
+        Class<T> type,
+        List<SingularAttribute<?, ?>> attributes,
+        Specification<T> specification,
+        Long cursor
+    ) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<T> root = query.from(type);
+        List<Selection<?>> selections = new ArrayList<>();
+        for (SingularAttribute<?, ?> attribute : attributes) {
+            if (attribute.isAssociation()) {
+                // the left join is resolved to the foreign key column for the owning side
+                selections.add(root.join(attribute.getName(), JoinType.LEFT).get(ID));
+            } else {
+                selections.add(root.get(attribute.getName()));
+            }
+        }
+        return query.multiselect(selections).where(keysetPaging.after(root, query, criteriaBuilder, specification, cursor));
+    }
+
+    private List<Map<String, Object>> toRows(List<SingularAttribute<?, ?>> attributes, List<Tuple> tuples) {
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < attributes.size(); i++) {
+                SingularAttribute<?, ?> attribute = attributes.get(i);
+                Object value = tuple.get(i);
+                row.put(attribute.getName(), attribute.isAssociation() && value != null ? Map.of(ID, value) : value);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * @return the attributes of the field set, starting with the id.
+     */
+    private List<SingularAttribute<?, ?>> parse(Class<?> type, String fields) throws BadRequestException {
+        Map<String, SingularAttribute<?, ?>> attributes = selectable.computeIfAbsent(type, this::selectableAttributes);
+        Set<String> names = new LinkedHashSet<>();
+        names.add(ID);
+        for (String field : fields.split(",")) {
+            if (!field.isBlank()) {
+                names.add(field.strip());
+            }
+        }
+        List<SingularAttribute<?, ?>> selected = new ArrayList<>(names.size());
+        for (String name : names) {
+            SingularAttribute<?, ?> attribute = attributes.get(name);
+            if (attribute == null) {
+                throw new BadRequestException("Unknown field " + name + " of " + type.getSimpleName() + ", fields are " + attributes.keySet());
+            }
+            selected.add(attribute);
+        }
+        return selected;
+    }
+
+    private Map<String, SingularAttribute<?, ?>> selectableAttributes(Class<?> type) {
+        BeanDescription description = objectMapper.getSerializationConfig().introspect(objectMapper.constructType(type));
+        Set<String> serialized = description
+            .findProperties()
+            .stream()
+            .filter(BeanPropertyDefinition::couldSerialize)
+            .map(BeanPropertyDefinition::getName)
+            .collect(Collectors.toSet());
+        Map<String, SingularAttribute<?, ?>> attributes = new LinkedHashMap<>();
+        for (SingularAttribute<?, ?> attribute : entityManager.getMetamodel().entity(type).getSingularAttributes()) {
+            if (serialized.contains(attribute.getName()) && attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.EMBEDDED) {
+                attributes.put(attribute.getName(), attribute);
+            }
+        }
+        return attributes;
+    }
+}
@@ -0,0 +1,88 @@
+package com.javabackend.backend.service.ratelimit;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets keyed by budget and client, without a global lock.
+ * <p>
+ * A bucket is a single {@link AtomicLong} holding the time at which it will be full again (the generic cell rate
+ * algorithm, the timestamp form of a token bucket). Taking a token moves that time one interval ahead with a compare
+ * and set, the bucket is empty while the time lies more than the burst ahead of now. The buckets are spread over
+ * independent stripes by hash, so creating and sweeping buckets only ever locks a bin of one stripe. Full buckets are
+ * indistinguishable from new ones and are swept regularly.
+ */
+@Service
+public class RateLimiter {
+
+    private static final int STRIPES = Integer.highestOneBit(Math.max(Runtime.getRuntime().availableProcessors(), 1) * 4);
+
+    /**
+     * @param intervalNanos   the time to earn one token.
+     * @param toleranceNanos  how far the full-again time may lie ahead of now, {@code (burst - 1) * interval}.
+     */
+    public record Rate(long intervalNanos, long toleranceNanos) {
+        public static Rate of(double requestsPerSecond, int burst) {
+            long interval = Math.max((long) (1_000_000_000L / requestsPerSecond), 1);
+            return new Rate(interval, interval * Math.max(burst - 1, 0));
+        }
+    }
+
+    private record Key(String budget, String client) {}
+
+    @SuppressWarnings("unchecked")
+    private final Map<Key, AtomicLong>[] stripes = new Map[STRIPES];
+
+    public RateLimiter() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Takes a token from the bucket of the client in the budget.
+     *
+     * @return {@code 0} if a token has been taken, otherwise the nanoseconds until the next token is available.
+     */
+    public long acquire(String budget, String client, Rate rate) {
+        Key key = new Key(budget, client);
+        long now = System.nanoTime();
+        AtomicLong fullAt = stripe(key).computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = fullAt.get();
+            long start = current - now < 0 ? now : current;
+            long wait = start - now - rate.toleranceNanos();
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, start + rate.intervalNanos())) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<Key, AtomicLong> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    @Scheduled(fixedDelayString = "${application.rate-limit.sweep-interval:PT1M}")
+    public void sweep() {
+        long now = System.nanoTime();
+        for (Map<Key, AtomicLong> stripe : stripes) {
+            stripe.values().removeIf(fullAt -> fullAt.get() - now < 0);
+        }
+    }
+
+    private Map<Key, AtomicLong> stripe(Key key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,11 @@
+package com.javabackend.backend.service.session;
+
+/**
+ * The user name and password a session is opened with.
+ */
+public record Credentials(String userName, String password) {
+    @Override
+    public String toString() {
+        return "Credentials{userName='" + userName + "'}";
+    }
+}
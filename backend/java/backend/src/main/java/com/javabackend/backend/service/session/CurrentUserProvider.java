@@ -0,0 +1,57 @@
+package com.javabackend.backend.service.session;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+
+/**
+ * Resolves the user of the current request from the {@value SessionStore#TOKEN_HEADER} header.
+ */
+@Component
+public class CurrentUserProvider {
+
+    private final SessionStore sessionStore;
+
+    public CurrentUserProvider(SessionStore sessionStore) {
+        this.sessionStore = sessionStore;
+    }
+
+    /**
+     * @return the id of the user of the current request, empty if the request carries no session token or is not a
+     * web request.
+     * @throws ResponseStatusException with status {@code 401 (Unauthorized)} if the token is unknown or expired.
+     */
+    public Optional<Long> currentDrkUserId() {
+        return currentDrkUserId(false);
+    }
+
+    /**
+     * @return the id of the user of the current request, empty if it is not a web request.
+     * @throws ResponseStatusException with status {@code 401 (Unauthorized)} if the request carries no session token or
+     * the token is unknown or expired.
+     */
+    public Optional<Long> requiredDrkUserId() {
+        return currentDrkUserId(true);
+    }
+
+    private Optional<Long> currentDrkUserId(boolean required) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return Optional.empty();
+        }
+        String token = attributes.getRequest().getHeader(SessionStore.TOKEN_HEADER);
+        if (token == null && !required) {
+            return Optional.empty();
+        }
+        return Optional.of(
+            Optional
+                .ofNullable(token)
+                .flatMap(sessionStore::find)
+                .map(Session::drkUserId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED))
+        );
+    }
+}
@@ -0,0 +1,11 @@
+package com.javabackend.backend.service.session;
+
+/**
+ * A change of the password of the current user, who proves it with the current password.
+ */
+public record PasswordChange(String currentPassword, String newPassword) {
+    @Override
+    public String toString() {
+        return "PasswordChange{}";
+    }
+}
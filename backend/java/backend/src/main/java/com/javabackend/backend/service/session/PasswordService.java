@@ -0,0 +1,90 @@
+package com.javabackend.backend.service.session;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Checks and changes the passwords of the {@link com.javabackend.backend.domain.DrkUser}s. Only encoded passwords are
+ * stored, a password written to the table unencoded, e.g. by SQL, never matches.
+ */
+@Service
+public class PasswordService {
+
+    private final EntityManager entityManager;
+
+    private final PasswordEncoder passwordEncoder;
+
+    public PasswordService(EntityManager entityManager, PasswordEncoder passwordEncoder) {
+        this.entityManager = entityManager;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    public String encode(String password) {
+        return passwordEncoder.encode(password);
+    }
+
+    /**
+     * @return the id of the user with the name and password, empty if there is none, in the caller's transaction.
+     */
+    public Optional<Long> authenticate(Credentials credentials) {
+        if (credentials.userName() == null || credentials.password() == null) {
+            return Optional.empty();
+        }
+        // user names are not unique in the schema, the password decides
+        return entityManager
+            .createQuery("select u.id, u.password from DrkUser u where u.userName = :userName order by u.id", Object[].class)
+            .setParameter("userName", credentials.userName())
+            .getResultList()
+            .stream()
+            .filter(user -> matches(credentials.password(), (String) user[1]))
+            .map(user -> (Long) user[0])
+            .findFirst();
+    }
+
+    /**
+     * @return {@code true} if the password is the one of the user, in the caller's transaction.
+     */
+    public boolean matches(Long drkUserId, String password) {
+        return (
+            password != null &&
+            entityManager
+                .createQuery("select u.password from DrkUser u where u.id = :id", String.class)
+                .setParameter("id", drkUserId)
+                .getResultStream()
+                .anyMatch(encoded -> matches(password, encoded))
+        );
+    }
+
+    /**
+     * Replaces the password of the user in the caller's transaction.
+     *
+     * @return the number of affected rows, {@code 0} if there is no user with that id.
+     */
+    public int change(Long drkUserId, String password) {
+        return entityManager
+            .createQuery(
+                "update DrkUser u set u.password = :password, u.lastPasswordChange = :now, u.passwordChangeRequired = false, " +
+                "u.version = u.version + 1 where u.id = :id"
+            )
+            .setParameter("password", encode(password))
+            .setParameter("now", Instant.now())
+            .setParameter("id", drkUserId)
+            .executeUpdate();
+    }
+
+    private boolean matches(String password, String encoded) {
+        if (encoded == null) {
+            return false;
+        }
+        try {
+            return passwordEncoder.matches(password, encoded);
+        } catch (IllegalArgumentException e) {
+            // not encoded
+            return false;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.javabackend.backend.service.session;
+
+import java.time.Instant;
+
+/**
+ * A session as held by the {@link SessionStore}.
+ *
+ * @param token     the opaque session token handed to the client.
+ * @param drkUserId the id of the user the session belongs to.
+ * @param expiresAt the end of the session.
+ */
+public record Session(String token, Long drkUserId, Instant expiresAt) {
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,325 @@
+package com.javabackend.backend.service.session;
+
+import com.javabackend.backend.domain.DrkUser;
+import com.javabackend.backend.domain.UserSessions;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory store of the {@link UserSessions}, keyed by token, in front of the {@code user_sessions} table shared by
+ * all application instances.
+ * <p>
+ * Lookups of known sessions never touch the database. Opened and closed sessions are written to {@code user_sessions}
+ * in batches every {@code application.session.flush-interval}, expired sessions are found by a {@link TimerWheel} and
+ * removed the same way. On startup the store is rebuilt from the table.
+ * <p>
+ * A token unknown to this instance is looked up in the table, so a session opened on another instance is valid here
+ * once its row is written, at most a flush interval after it has been opened. Deleted and changed rows are published
+ * as {@link EntityChangedEvent}s, the other instances get them from the {@code InvalidationBus} and forget the session.
+ */
+@Service
+public class SessionStore {
+
+    private final Logger log = LoggerFactory.getLogger(SessionStore.class);
+
+    /**
+     * Request header carrying the session token.
+     */
+    public static final String TOKEN_HEADER = "X-Session-Token";
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Tokens of the sessions which have a row, by the id of the row.
+     */
+    private final Map<Long, String> tokensById = new ConcurrentHashMap<>();
+
+    private final Set<String> pendingInserts = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> pendingDeletes = ConcurrentHashMap.newKeySet();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final TimerWheel<String> expirations;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Clock clock;
+
+    private final Duration timeToLive;
+
+    private final int batchSize;
+
+    public SessionStore(
+        EntityManager entityManager,
+        PlatformTransactionManager transactionManager,
+        ApplicationEventPublisher eventPublisher,
+        @Value("${application.session.time-to-live:PT8H}") Duration timeToLive,
+        @Value("${application.session.tick:PT1S}") Duration tick,
+        @Value("${application.session.batch-size:500}") int batchSize
+    ) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.clock = Clock.systemUTC();
+        this.timeToLive = timeToLive;
+        this.batchSize = batchSize;
+        this.expirations = new TimerWheel<>(tick.toMillis(), clock.millis());
+    }
+
+    /**
+     * Opens a new session, the row is inserted with the next flush.
+     */
+    public Session open(Long drkUserId) {
+        Session session = new Session(newToken(), drkUserId, clock.instant().plus(timeToLive));
+        put(session);
+        pendingInserts.add(session.token());
+        return session;
+    }
+
+    /**
+     * @return the session of the token, empty if there is none or it has expired.
+     */
+    public Optional<Session> find(String token) {
+        if (token == null || pendingDeletes.contains(token)) {
+            return Optional.empty();
+        }
+        Instant now = clock.instant();
+        Session session = sessions.get(token);
+        if (session == null) {
+            session = load(token, now);
+        }
+        return session == null || session.isExpired(now) ? Optional.empty() : Optional.of(session);
+    }
+
+    /**
+     * Takes over the session of a row written by another instance.
+     */
+    private Session load(String token, Instant now) {
+        Object[] row = transactionTemplate.execute(status ->
+            entityManager
+                .createQuery(
+                    "select s.id, s.drkUser.id, s.expiresAt from UserSessions s where s.token = :token and s.expiresAt > :now",
+                    Object[].class
+                )
+                .setParameter("token", token)
+                .setParameter("now", now)
+                .getResultStream()
+                .findFirst()
+                .orElse(null)
+        );
+        if (row == null) {
+            return null;
+        }
+        Session session = new Session(token, (Long) row[1], (Instant) row[2]);
+        tokensById.put((Long) row[0], token);
+        put(session);
+        return session;
+    }
+
+    /**
+     * Closes the session of the token, the row is deleted with the next flush.
+     */
+    public void close(String token) {
+        if (sessions.remove(token) != null && !pendingInserts.remove(token)) {
+            pendingDeletes.add(token);
+        }
+    }
+
+    /**
+     * Fills in the token and the end of a session which is about to be inserted directly.
+     */
+    public UserSessions prepare(UserSessions userSessions) {
+        if (userSessions.getToken() == null) {
+            userSessions.setToken(newToken());
+        }
+        if (userSessions.getExpiresAt() == null) {
+            userSessions.setExpiresAt(clock.instant().plus(timeToLive));
+        }
+        return userSessions;
+    }
+
+    /**
+     * Takes over a session which has been written to the table directly, replacing the former state of the row.
+     */
+    public void synchronize(UserSessions userSessions) {
+        evict(userSessions.getId());
+        if (userSessions.getToken() == null || userSessions.getExpiresAt() == null) {
+            return;
+        }
+        tokensById.put(userSessions.getId(), userSessions.getToken());
+        put(new Session(userSessions.getToken(), userSessions.getDrkUser() == null ? null : userSessions.getDrkUser().getId(), userSessions.getExpiresAt()));
+    }
+
+    /**
+     * Forgets the session of a row which has been changed or deleted, here or on another instance. A changed session
+     * is looked up again with its next use.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.isAbout(UserSessions.class) && event.operation() != EntityChangedEvent.Operation.CREATE) {
+            evict(event.id());
+        }
+    }
+
+    /**
+     * Forgets the session of a row which has been deleted directly.
+     */
+    public void evict(Long id) {
+        String token = tokensById.remove(id);
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private void put(Session session) {
+        sessions.put(session.token(), session);
+        expirations.schedule(session.token(), session.expiresAt().toEpochMilli());
+    }
+
+    @Scheduled(fixedDelayString = "${application.session.tick:PT1S}")
+    public void expire() {
+        Instant now = clock.instant();
+        expirations.advance(
+            now.toEpochMilli(),
+            token -> {
+                Session session = sessions.get(token);
+                if (session != null && session.isExpired(now)) {
+                    close(token);
+                }
+            }
+        );
+    }
+
+    @Scheduled(fixedDelayString = "${application.session.flush-interval:PT1S}")
+    public void flush() {
+        while (!pendingInserts.isEmpty() || !pendingDeletes.isEmpty()) {
+            List<Session> inserts = new ArrayList<>();
+            for (String token : pendingInserts) {
+                if (inserts.size() == batchSize) {
+                    break;
+                }
+                pendingInserts.remove(token);
+                Session session = sessions.get(token);
+                if (session != null) {
+                    inserts.add(session);
+                }
+            }
+            List<String> deletes = new ArrayList<>();
+            for (String token : pendingDeletes) {
+                if (deletes.size() == batchSize) {
+                    break;
+                }
+                pendingDeletes.remove(token);
+                deletes.add(token);
+            }
+            try {
+                write(inserts, deletes);
+            } catch (RuntimeException e) {
+                log.warn("Could not write a batch of {} sessions, retrying one by one: {}", inserts.size(), e.getMessage());
+                inserts.forEach(this::writeOne);
+                pendingDeletes.addAll(deletes);
+                return;
+            }
+        }
+    }
+
+    private void writeOne(Session session) {
+        try {
+            write(List.of(session), List.of());
+        } catch (RuntimeException e) {
+            log.warn("Dropping session of user {}: {}", session.drkUserId(), e.getMessage());
+            sessions.remove(session.token());
+        }
+    }
+
+    private void write(List<Session> inserts, List<String> deletes) {
+        List<UserSessions> rows = transactionTemplate.execute(status -> {
+            List<UserSessions> persisted = new ArrayList<>(inserts.size());
+            for (Session session : inserts) {
+                UserSessions row = new UserSessions()
+                    .token(session.token())
+                    .expiresAt(session.expiresAt())
+                    .drkUser(session.drkUserId() == null ? null : entityManager.getReference(DrkUser.class, session.drkUserId()));
+                entityManager.persist(row);
+                persisted.add(row);
+            }
+            entityManager.flush();
+            if (!deletes.isEmpty()) {
+                List<Long> ids = entityManager
+                    .createQuery("select s.id from UserSessions s where s.token in :tokens", Long.class)
+                    .setParameter("tokens", deletes)
+                    .getResultList();
+                if (!ids.isEmpty()) {
+                    entityManager.createQuery("delete from UserSessions s where s.id in :ids").setParameter("ids", ids).executeUpdate();
+                    ids.forEach(id -> {
+                        tokensById.remove(id);
+                        eventPublisher.publishEvent(new EntityChangedEvent(UserSessions.class, id, EntityChangedEvent.Operation.DELETE));
+                    });
+                }
+            }
+            return persisted;
+        });
+        rows.forEach(row -> tokensById.put(row.getId(), row.getToken()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Instant now = clock.instant();
+        List<Object[]> rows = transactionTemplate.execute(status -> {
+            int expired = entityManager.createQuery("delete from UserSessions s where s.expiresAt <= :now").setParameter("now", now).executeUpdate();
+            log.debug("Deleted {} expired sessions", expired);
+            return entityManager
+                .createQuery(
+                    "select s.id, s.token, s.drkUser.id, s.expiresAt from UserSessions s where s.token is not null and s.expiresAt > :now",
+                    Object[].class
+                )
+                .setParameter("now", now)
+                .getResultList();
+        });
+        for (Object[] row : rows) {
+            tokensById.put((Long) row[0], (String) row[1]);
+            put(new Session((String) row[1], (Long) row[2], (Instant) row[3]));
+        }
+        log.info("Loaded {} sessions", rows.size());
+    }
+}
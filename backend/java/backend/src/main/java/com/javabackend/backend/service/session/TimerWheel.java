@@ -0,0 +1,111 @@
+package com.javabackend.backend.service.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel.
+ * <p>
+ * Four levels of 64 slots cover 64<sup>4</sup> ticks, later deadlines wait in an overflow list. Scheduling is constant
+ * time, advancing costs one slot per tick plus the occasional cascade of a higher level slot into the lower levels.
+ * Entries cannot be cancelled, callers re-check the state of expired values instead.
+ */
+public class TimerWheel<T> {
+
+    private static final int BITS = 6;
+
+    private static final int SLOTS = 1 << BITS;
+
+    private static final int MASK = SLOTS - 1;
+
+    private static final int LEVELS = 4;
+
+    private record Entry<T>(T value, long deadline) {}
+
+    private final long tickMillis;
+
+    private final List<List<List<Entry<T>>>> wheels = new ArrayList<>(LEVELS);
+
+    private final List<Entry<T>> overflow = new ArrayList<>();
+
+    private long currentTick;
+
+    private int size;
+
+    public TimerWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        for (int level = 0; level < LEVELS; level++) {
+            List<List<Entry<T>>> wheel = new ArrayList<>(SLOTS);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheel.add(new ArrayList<>());
+            }
+            wheels.add(wheel);
+        }
+    }
+
+    /**
+     * @param value          the value to hand out once the deadline has passed.
+     * @param deadlineMillis epoch millis, deadlines in the past expire with the next tick.
+     */
+    public synchronized void schedule(T value, long deadlineMillis) {
+        long deadline = (deadlineMillis + tickMillis - 1) / tickMillis;
+        place(new Entry<>(value, Math.max(deadline, currentTick + 1)));
+        size++;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis} and hands every expired value to {@code expired}.
+     */
+    public synchronized void advance(long nowMillis, Consumer<T> expired) {
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            for (int level = 1; level < LEVELS && (currentTick & ((1L << (BITS * level)) - 1)) == 0; level++) {
+                cascade(wheels.get(level).get((int) ((currentTick >>> (BITS * level)) & MASK)));
+                if (level == LEVELS - 1) {
+                    cascade(overflow);
+                }
+            }
+            List<Entry<T>> bucket = wheels.get(0).get((int) (currentTick & MASK));
+            if (bucket.isEmpty()) {
+                continue;
+            }
+            List<Entry<T>> due = new ArrayList<>(bucket);
+            bucket.clear();
+            for (Entry<T> entry : due) {
+                if (entry.deadline() <= currentTick) {
+                    size--;
+                    expired.accept(entry.value());
+                } else {
+                    place(entry);
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void cascade(List<Entry<T>> bucket) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Entry<T>> entries = new ArrayList<>(bucket);
+        bucket.clear();
+        entries.forEach(this::place);
+    }
+
+    private void place(Entry<T> entry) {
+        long delta = entry.deadline() - currentTick;
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (BITS * (level + 1))) {
+                wheels.get(level).get((int) ((entry.deadline() >>> (BITS * level)) & MASK)).add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+}
@@ -0,0 +1,347 @@
+package com.javabackend.backend.service.sync;
+
+import com.javabackend.backend.domain.AdditionalUser;
+import com.javabackend.backend.domain.EntityChange;
+import com.javabackend.backend.domain.EntityChange.EntityType;
+import com.javabackend.backend.domain.EntityChangeLock;
+import com.javabackend.backend.domain.ProtocolContent;
+import com.javabackend.backend.domain.ProtocolTemplate;
+import com.javabackend.backend.repository.EntityChangeRepository;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import com.javabackend.backend.service.event.ProtocolChangedEvent;
+import com.javabackend.backend.service.permission.OrganizationVisibility;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.hibernate.LockOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Log of the last change of every Protocol, ProtocolContent, AdditionalUser and ProtocolTemplate, the source of the
+ * delta sync of the offline clients.
+ * <p>
+ * The writes of the REST resources update the {@link EntityChange} row of the entity within their own transaction,
+ * so the log is exactly as durable as the write. A client must never get a watermark beyond a number which can still
+ * be committed, so the writers draw no number: they clear it and take no lock besides the one of their own row. The
+ * readers number the committed rows first, in a transaction of their own which locks the {@link EntityChangeLock} row
+ * and skips the rows of running writes. A number is thus only drawn for a committed change, and all numbers of one
+ * numbering are visible together before any later one. Every change a reader sees is therefore safe to hand out, on
+ * every application instance and in every snapshot, and the writers of different entities never wait for each other.
+ * <p>
+ * The changes are restricted by the {@link OrganizationVisibility} of the reader: protocols, their contents and their
+ * additional users by the organization of the protocol, tombstones by the organization the entity had at its last
+ * change. Contents and additional users without protocol and protocol templates are visible to every user.
+ */
+@Service
+public class ChangeLog {
+
+    private final Logger log = LoggerFactory.getLogger(ChangeLog.class);
+
+    private static final Map<Class<?>, EntityType> ENTITY_TYPES = Map.of(
+        ProtocolContent.class,
+        EntityType.PROTOCOL_CONTENT,
+        AdditionalUser.class,
+        EntityType.ADDITIONAL_USER,
+        ProtocolTemplate.class,
+        EntityType.PROTOCOL_TEMPLATE
+    );
+
+    /**
+     * The id and the organization of every entity, for the backfill.
+     */
+    private static final Map<EntityType, String> ROWS = Map.of(
+        EntityType.PROTOCOL,
+        "select t.id, t.organization_id from protocol t",
+        EntityType.PROTOCOL_CONTENT,
+        "select t.id, p.organization_id from protocol_content t left join protocol p on p.protocol_content_id = t.id",
+        EntityType.ADDITIONAL_USER,
+        "select t.id, p.organization_id from additional_user t left join protocol p on p.id = t.protocol_id",
+        EntityType.PROTOCOL_TEMPLATE,
+        "select t.id, cast(null as bigint) as organization_id from protocol_template t"
+    );
+
+    private static final long LOCK_ID = 1;
+
+    private static final int NUMBERING_BATCH_SIZE = 1000;
+
+    private final EntityChangeRepository entityChangeRepository;
+
+    private final EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final OrganizationVisibility organizationVisibility;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public ChangeLog(
+        EntityChangeRepository entityChangeRepository,
+        EntityManager entityManager,
+        JdbcTemplate jdbcTemplate,
+        OrganizationVisibility organizationVisibility,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.entityChangeRepository = entityChangeRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.organizationVisibility = organizationVisibility;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onEntityChanged(EntityChangedEvent event) {
+        EntityType entityType = ENTITY_TYPES.get(event.entityType());
+        if (entityType != null) {
+            boolean deleted = event.operation() == EntityChangedEvent.Operation.DELETE;
+            record(entityType, event.id(), deleted, deleted ? null : organizationOf(entityType, event.id()));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onProtocolChanged(ProtocolChangedEvent event) {
+        record(EntityType.PROTOCOL, event.id(), event.state() == ProtocolChangedEvent.State.DELETED, event.organizationId());
+    }
+
+    private void record(EntityType entityType, Long entityId, boolean deleted, Long organizationId) {
+        EntityChange change = entityChangeRepository
+            .findOneByEntityTypeAndEntityId(entityType, entityId)
+            .orElseGet(() -> new EntityChange().entityType(entityType).entityId(entityId));
+        change.sequenceNumber(null).deleted(deleted).changedAt(Instant.now());
+        // a deletion of unknown organization keeps the one of the deleted entity, its tombstone goes to the same users
+        if (!deleted || organizationId != null) {
+            change.setOrganizationId(organizationId);
+        }
+        if (change.getId() == null) {
+            entityManager.persist(change);
+        }
+    }
+
+    private Long organizationOf(EntityType entityType, Long entityId) {
+        String query = switch (entityType) {
+            case PROTOCOL_CONTENT -> "select p.organization.id from Protocol p where p.protocolContent.id = :id";
+            case ADDITIONAL_USER -> "select p.organization.id from AdditionalUser a join a.protocol p where a.id = :id";
+            default -> null;
+        };
+        if (query == null) {
+            return null;
+        }
+        return entityManager
+            .createQuery(query, Long.class)
+            .setParameter("id", entityId)
+            .getResultStream()
+            .filter(Objects::nonNull)
+            .findFirst()
+            .orElse(null);
+    }
+
+    /**
+     * Numbers the committed changes which have none yet, in a transaction of its own. The rows of running writes are
+     * skipped, they are numbered by a later call after their commit.
+     */
+    private void number() {
+        boolean unnumbered = !entityManager
+            .createQuery("select c.id from EntityChange c where c.sequenceNumber is null", Long.class)
+            .setMaxResults(1)
+            .getResultList()
+            .isEmpty();
+        if (!unnumbered) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            List<Long> ids;
+            do {
+                ids = entityManager
+                    .createQuery("select c from EntityChange c where c.sequenceNumber is null order by c.id", EntityChange.class)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .setHint("jakarta.persistence.lock.timeout", LockOptions.SKIP_LOCKED)
+                    .setMaxResults(NUMBERING_BATCH_SIZE)
+                    .getResultStream()
+                    .map(EntityChange::getId)
+                    .toList();
+                jdbcTemplate.batchUpdate(
+                    "update entity_change set sequence_number = nextval('entity_change_sequence') where id = ?",
+                    ids,
+                    ids.size(),
+                    (statement, id) -> statement.setLong(1, id)
+                );
+            } while (ids.size() == NUMBERING_BATCH_SIZE);
+        });
+    }
+
+    /**
+     * Locks the {@link EntityChangeLock} row until the end of the current transaction.
+     */
+    private void lock() {
+        if (jdbcTemplate.update("update entity_change_lock set id = id where id = ?", LOCK_ID) == 0) {
+            createLock();
+            jdbcTemplate.update("update entity_change_lock set id = id where id = ?", LOCK_ID);
+        }
+    }
+
+    /**
+     * Creates the lock row in its own transaction, a concurrent creation only fails that one.
+     */
+    private void createLock() {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update("insert into entity_change_lock (id) values (?)", LOCK_ID)
+            );
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Entity change lock created concurrently");
+        }
+    }
+
+    /**
+     * @return the changes after {@code watermark} visible to the current user, at most {@code limit} of them, in the
+     * caller's transaction. The watermark moves past the invisible ones too.
+     * @throws ResponseStatusException with status {@code 401 (Unauthorized)} if the request has no valid session.
+     */
+    public ChangeSet changesSince(long watermark, int limit) {
+        number();
+        List<EntityChange> changes = entityChangeRepository.findAllAfter(watermark, PageRequest.of(0, limit + 1));
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) {
+            changes = changes.subList(0, limit);
+        }
+
+        Map<EntityType, List<Long>> changed = new EnumMap<>(EntityType.class);
+        List<ChangeSet.Tombstone> deleted = new ArrayList<>();
+        for (EntityChange change : organizationVisibility.filterOrphansVisible(changes, EntityChange::getOrganizationId)) {
+            if (Boolean.TRUE.equals(change.getDeleted())) {
+                deleted.add(new ChangeSet.Tombstone(change.getEntityType(), change.getEntityId()));
+            } else {
+                changed.computeIfAbsent(change.getEntityType(), type -> new ArrayList<>()).add(change.getEntityId());
+            }
+        }
+
+        return new ChangeSet(
+            changes.isEmpty() ? watermark : changes.get(changes.size() - 1).getSequenceNumber(),
+            hasMore,
+            load(
+                changed,
+                EntityType.PROTOCOL,
+                "select p.id, p.version, p.isDraft, p.reviewComment, p.isClosed, p.closedAt, p.createdOrEdited, " +
+                "p.protocolContent.id, p.protocolPdfFile.id, p.drkUser.id, p.organization.id from Protocol p where p.id in :ids",
+                rows -> organizationVisibility.filter(rows, row -> (Long) row[10]),
+                row ->
+                    new ChangeSet.ProtocolRow(
+                        (Long) row[0],
+                        (Long) row[1],
+                        (Boolean) row[2],
+                        (String) row[3],
+                        (Boolean) row[4],
+                        (Instant) row[5],
+                        (Instant) row[6],
+                        (Long) row[7],
+                        (Long) row[8],
+                        (Long) row[9],
+                        (Long) row[10]
+                    )
+            ),
+            load(
+                changed,
+                EntityType.PROTOCOL_CONTENT,
+                "select c.id, c.version, c.content, p.organization.id from ProtocolContent c " +
+                "left join Protocol p on p.protocolContent = c where c.id in :ids",
+                rows -> organizationVisibility.filterOrphansVisible(rows, row -> (Long) row[3]),
+                row -> new ChangeSet.ProtocolContentRow((Long) row[0], (Long) row[1], (String) row[2])
+            ),
+            load(
+                changed,
+                EntityType.ADDITIONAL_USER,
+                "select a.id, a.drkUser.id, p.id, p.organization.id from AdditionalUser a left join a.protocol p where a.id in :ids",
+                rows -> organizationVisibility.filterOrphansVisible(rows, row -> (Long) row[3]),
+                row -> new ChangeSet.AdditionalUserRow((Long) row[0], (Long) row[1], (Long) row[2])
+            ),
+            load(
+                changed,
+                EntityType.PROTOCOL_TEMPLATE,
+                "select t.id, t.version, t.name, t.description, t.template, t.createdOrEdited from ProtocolTemplate t where t.id in :ids",
+                UnaryOperator.identity(),
+                row ->
+                    new ChangeSet.ProtocolTemplateRow(
+                        (Long) row[0],
+                        (Long) row[1],
+                        (String) row[2],
+                        (String) row[3],
+                        (String) row[4],
+                        (Instant) row[5]
+                    )
+            ),
+            deleted
+        );
+    }
+
+    private <R> List<R> load(
+        Map<EntityType, List<Long>> changed,
+        EntityType entityType,
+        String query,
+        UnaryOperator<List<Object[]>> visible,
+        Function<Object[], R> mapper
+    ) {
+        List<Long> ids = changed.get(entityType);
+        if (ids == null) {
+            return List.of();
+        }
+        // an entity missing here has been deleted after the change, its tombstone follows with a later change
+        List<Object[]> rows = entityManager.createQuery(query, Object[].class).setParameter("ids", ids).getResultList();
+        return visible.apply(rows).stream().map(mapper).toList();
+    }
+
+    /**
+     * Logs every entity which has no change yet, e.g. the rows written before the log existed or by SQL. The readers
+     * number and see its changes once it is committed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int rows;
+        try {
+            rows = transactionTemplate.execute(status -> {
+                Timestamp now = Timestamp.from(Instant.now());
+                int inserted = 0;
+                for (Map.Entry<EntityType, String> entities : ROWS.entrySet()) {
+                    inserted +=
+                        jdbcTemplate.update(
+                            "insert into entity_change (id, entity_type, entity_id, deleted, changed_at, organization_id) " +
+                            "select nextval('entity_change_sequence'), ?, t.id, false, ?, t.organization_id from (" +
+                            entities.getValue() +
+                            ") t where not exists " +
+                            "(select 1 from entity_change c where c.entity_type = ? and c.entity_id = t.id) order by t.id",
+                            entities.getKey().name(),
+                            now,
+                            entities.getKey().name()
+                        );
+                }
+                return inserted;
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Entity changes written concurrently, the backfill is repeated at the next start", e);
+            return;
+        }
+        log.info("Backfilled {} entity changes", rows);
+    }
+}
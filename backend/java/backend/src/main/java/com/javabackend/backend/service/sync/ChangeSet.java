@@ -0,0 +1,44 @@
+package com.javabackend.backend.service.sync;
+
+import com.javabackend.backend.domain.EntityChange;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Everything changed after a watermark, associations are given by id only.
+ *
+ * @param watermark  the watermark to ask for the next changes with.
+ * @param hasMore    {@code true} if the changes have been cut off at the limit, the client should ask again right away.
+ */
+public record ChangeSet(
+    long watermark,
+    boolean hasMore,
+    List<ProtocolRow> protocols,
+    List<ProtocolContentRow> protocolContents,
+    List<AdditionalUserRow> additionalUsers,
+    List<ProtocolTemplateRow> protocolTemplates,
+    List<Tombstone> deleted
+) {
+    public record ProtocolRow(
+        Long id,
+        Long version,
+        Boolean isDraft,
+        String reviewComment,
+        Boolean isClosed,
+        Instant closedAt,
+        Instant createdOrEdited,
+        Long protocolContentId,
+        Long protocolPdfFileId,
+        Long drkUserId,
+        Long organizationId
+    ) {}
+
+    public record ProtocolContentRow(Long id, Long version, String content) {}
+
+    public record AdditionalUserRow(Long id, Long drkUserId, Long protocolId) {}
+
+    public record ProtocolTemplateRow(Long id, Long version, String name, String description, String template, Instant createdOrEdited) {}
+
+    public record Tombstone(EntityChange.EntityType type, Long id) {}
+}
@@ -0,0 +1,138 @@
+package com.javabackend.backend.service.upload;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javabackend.backend.domain.IdempotencyKey;
+import com.javabackend.backend.repository.IdempotencyKeyRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The results of the protocol uploads by idempotency key.
+ * <p>
+ * Keys are stored in the {@link IdempotencyKey} table in the transaction of the upload, so a key is taken exactly
+ * when its protocol has been committed. A concurrent upload with the same key fails on the primary key. The committed
+ * keys are also held in memory, a retried upload is answered without touching the database. Keys are forgotten
+ * after the retention.
+ */
+@Service
+public class IdempotencyStore {
+
+    private final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private record Entry(ProtocolUpload.Result result, Instant createdAt) {}
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Duration retention;
+
+    public IdempotencyStore(
+        IdempotencyKeyRepository idempotencyKeyRepository,
+        EntityManager entityManager,
+        ObjectMapper objectMapper,
+        PlatformTransactionManager transactionManager,
+        @Value("${application.upload.key-retention:P7D}") Duration retention
+    ) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+    }
+
+    /**
+     * @return the stored results of the known keys.
+     */
+    public Map<String, ProtocolUpload.Result> find(Collection<String> keys) {
+        Map<String, ProtocolUpload.Result> results = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String key : keys) {
+            Entry entry = cache.get(key);
+            if (entry != null) {
+                results.put(key, entry.result());
+            } else {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (IdempotencyKey stored : idempotencyKeyRepository.findAllByKeys(missing)) {
+                ProtocolUpload.Result result = read(stored.getResponse());
+                cache.put(stored.getKey(), new Entry(result, stored.getCreatedAt()));
+                results.put(stored.getKey(), result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Stores the results in the current transaction and flushes, a key taken concurrently fails with a
+     * {@link org.springframework.dao.DataIntegrityViolationException}.
+     */
+    public void remember(List<ProtocolUpload.Result> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        for (ProtocolUpload.Result result : results) {
+            entityManager.persist(new IdempotencyKey().key(result.idempotencyKey()).response(write(result)).createdAt(now));
+        }
+        idempotencyKeyRepository.flush();
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    results.forEach(result -> cache.put(result.idempotencyKey(), new Entry(result, now)));
+                }
+            }
+        );
+    }
+
+    @Scheduled(fixedDelayString = "${application.upload.purge-interval:PT1H}")
+    public void purge() {
+        Instant before = Instant.now().minus(retention);
+        cache.values().removeIf(entry -> entry.createdAt().isBefore(before));
+        Integer deleted = transactionTemplate.execute(status -> idempotencyKeyRepository.deleteAllCreatedBefore(before));
+        log.debug("Purged {} idempotency keys", deleted);
+    }
+
+    private String write(ProtocolUpload.Result result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write the upload result", e);
+        }
+    }
+
+    private ProtocolUpload.Result read(String response) {
+        try {
+            return objectMapper.readValue(response, ProtocolUpload.Result.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read the upload result", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.javabackend.backend.service.upload;
+
+import com.javabackend.backend.domain.AdditionalUser;
+import com.javabackend.backend.domain.Protocol;
+import com.javabackend.backend.domain.ProtocolContent;
+import com.javabackend.backend.domain.ProtocolPdfFile;
+
+import java.util.List;
+
+/**
+ * A protocol created offline, with everything belonging to it.
+ *
+ * @param idempotencyKey   chosen by the client, the same key is answered with the same result.
+ * @param protocol         the new protocol.
+ * @param protocolContent  the new content of the protocol, may be {@code null}.
+ * @param protocolPdfFile  the new PDF of the protocol, may be {@code null}.
+ * @param additionalUsers  the new additional users of the protocol, may be {@code null}.
+ */
+public record ProtocolUpload(
+    String idempotencyKey,
+    Protocol protocol,
+    ProtocolContent protocolContent,
+    ProtocolPdfFile protocolPdfFile,
+    List<AdditionalUser> additionalUsers
+) {
+    /**
+     * The ids assigned to an uploaded protocol.
+     *
+     * @param replayed {@code true} if the key has been used before and nothing has been written.
+     */
+    public record Result(
+        String idempotencyKey,
+        Long protocolId,
+        Long protocolContentId,
+        Long protocolPdfFileId,
+        List<Long> additionalUserIds,
+        boolean replayed
+    ) {
+        Result asReplayed() {
+            return new Result(idempotencyKey, protocolId, protocolContentId, protocolPdfFileId, additionalUserIds, true);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.javabackend.backend.service.upload;
+
+import com.javabackend.backend.domain.AdditionalUser;
+import com.javabackend.backend.domain.Protocol;
+import com.javabackend.backend.domain.ProtocolContent;
+import com.javabackend.backend.domain.ProtocolPdfFile;
+import com.javabackend.backend.repository.AdditionalUserRepository;
+import com.javabackend.backend.repository.ProtocolContentRepository;
+import com.javabackend.backend.repository.ProtocolPdfFileRepository;
+import com.javabackend.backend.repository.ProtocolRepository;
+import com.javabackend.backend.service.ProtocolStatisticsService;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import com.javabackend.backend.service.event.ProtocolChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores batches of protocols created offline, each protocol with its content, PDF and additional users.
+ * <p>
+ * A batch is written in the caller's transaction, the inserts of all its protocols go to the database in JDBC
+ * batches. Uploads whose idempotency key is known are not written again, they get the result of the first upload.
+ * Entities may carry client generated ids, so the client can refer to them before the upload.
+ */
+@Service
+public class ProtocolUploadService {
+
+    private final ProtocolRepository protocolRepository;
+
+    private final ProtocolContentRepository protocolContentRepository;
+
+    private final ProtocolPdfFileRepository protocolPdfFileRepository;
+
+    private final AdditionalUserRepository additionalUserRepository;
+
+    private final ProtocolStatisticsService protocolStatisticsService;
+
+    private final IdempotencyStore idempotencyStore;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProtocolUploadService(
+        ProtocolRepository protocolRepository,
+        ProtocolContentRepository protocolContentRepository,
+        ProtocolPdfFileRepository protocolPdfFileRepository,
+        AdditionalUserRepository additionalUserRepository,
+        ProtocolStatisticsService protocolStatisticsService,
+        IdempotencyStore idempotencyStore,
+        ApplicationEventPublisher eventPublisher
+    ) {
+        this.protocolRepository = protocolRepository;
+        this.protocolContentRepository = protocolContentRepository;
+        this.protocolPdfFileRepository = protocolPdfFileRepository;
+        this.additionalUserRepository = additionalUserRepository;
+        this.protocolStatisticsService = protocolStatisticsService;
+        this.idempotencyStore = idempotencyStore;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * @param uploads the uploads with distinct idempotency keys and without ids.
+     * @return the result of every upload, in the order of the uploads.
+     */
+    public List<ProtocolUpload.Result> upload(List<ProtocolUpload> uploads) {
+        Map<String, ProtocolUpload.Result> known = idempotencyStore.find(uploads.stream().map(ProtocolUpload::idempotencyKey).toList());
+        List<ProtocolUpload.Result> results = new ArrayList<>(uploads.size());
+        List<ProtocolUpload.Result> created = new ArrayList<>();
+        for (ProtocolUpload upload : uploads) {
+            ProtocolUpload.Result result = known.get(upload.idempotencyKey());
+            if (result != null) {
+                results.add(result.asReplayed());
+            } else {
+                result = store(upload);
+                created.add(result);
+                results.add(result);
+            }
+        }
+        idempotencyStore.remember(created);
+        return results;
+    }
+
+    private ProtocolUpload.Result store(ProtocolUpload upload) {
+        Protocol protocol = upload.protocol();
+        requireUnused(protocolRepository, protocol.getId());
+        if (upload.protocolContent() != null) {
+            requireUnused(protocolContentRepository, upload.protocolContent().getId());
+            ProtocolContent protocolContent = protocolContentRepository.save(upload.protocolContent());
+            protocol.protocolContent(protocolContent);
+            eventPublisher.publishEvent(
+                new EntityChangedEvent(ProtocolContent.class, protocolContent.getId(), EntityChangedEvent.Operation.CREATE)
+            );
+        }
+        if (upload.protocolPdfFile() != null) {
+            requireUnused(protocolPdfFileRepository, upload.protocolPdfFile().getId());
+            ProtocolPdfFile protocolPdfFile = protocolPdfFileRepository.save(upload.protocolPdfFile());
+            protocol.protocolPdfFile(protocolPdfFile);
+            eventPublisher.publishEvent(
+                new EntityChangedEvent(ProtocolPdfFile.class, protocolPdfFile.getId(), EntityChangedEvent.Operation.CREATE)
+            );
+        }
+        protocol = protocolRepository.save(protocol);
+        protocolStatisticsService.record(null, protocolStatisticsService.stateOf(protocol));
+        eventPublisher.publishEvent(new EntityChangedEvent(Protocol.class, protocol.getId(), EntityChangedEvent.Operation.CREATE));
+        eventPublisher.publishEvent(ProtocolChangedEvent.of(protocol));
+
+        List<Long> additionalUserIds = new ArrayList<>();
+        if (upload.additionalUsers() != null) {
+            for (AdditionalUser additionalUser : upload.additionalUsers()) {
+                requireUnused(additionalUserRepository, additionalUser.getId());
+                protocol.addAdditionalUser(additionalUser);
+                additionalUserIds.add(additionalUserRepository.save(additionalUser).getId());
+                eventPublisher.publishEvent(
+                    new EntityChangedEvent(AdditionalUser.class, additionalUser.getId(), EntityChangedEvent.Operation.CREATE)
+                );
+            }
+        }
+
+        return new ProtocolUpload.Result(
+            upload.idempotencyKey(),
+            protocol.getId(),
+            protocol.getProtocolContent() == null ? null : protocol.getProtocolContent().getId(),
+            protocol.getProtocolPdfFile() == null ? null : protocol.getProtocolPdfFile().getId(),
+            additionalUserIds,
+            false
+        );
+    }
+
+    /**
+     * Client generated ids must be checked, saving an entity with an existing id would overwrite it.
+     */
+    private static void requireUnused(JpaRepository<?, Long> repository, Long id) {
+        if (id != null && repository.existsById(id)) {
+            throw new DuplicateKeyException("Id " + id + " already exists");
+        }
+    }
+}
@@ -5,6 +5,7 @@
 
 package com.javabackend.backend.util;
 
+import com.javabackend.backend.service.paging.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -22,4 +23,13 @@ public final class PaginationUtil {
         headers.add("Link", linkHeaderUtil.prepareLinkHeaders(uriBuilder, page));
         return headers;
     }
+
+    public static <T> HttpHeaders generateCursorHttpHeaders(UriComponentsBuilder uriBuilder, KeysetPage<T> page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.nextCursor() != null) {
+            String next = uriBuilder.replaceQueryParam("cursor", new Object[]{Long.toString(page.nextCursor())}).replaceQueryParam("limit", new Object[]{Integer.toString(page.limit())}).toUriString().replace(",", "%2C").replace(";", "%3B");
+            headers.add("Link", "<" + next + ">; rel=\"next\"");
+        }
+        return headers;
+    }
 }
@@ -0,0 +1,94 @@
+package com.javabackend.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javabackend.backend.domain.ProtocolTemplate;
+import com.javabackend.backend.repository.ProtocolTemplateRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The replica is the primary database here, so it never lags, the tests check what reaches the second level cache.
+ */
+@SpringBootTest(
+    properties = {
+        "spring.datasource.url=jdbc:h2:mem:drk_replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.replica.url=jdbc:h2:mem:drk_replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+    }
+)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadReplicaConfigurationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProtocolTemplateRepository protocolTemplateRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long id;
+
+    @BeforeEach
+    void createTemplate() {
+        id = protocolTemplateRepository.saveAndFlush(new ProtocolTemplate().name("template").description("old")).getId();
+        entityManagerFactory.getCache().evict(ProtocolTemplate.class, id);
+    }
+
+    @Test
+    void readOnlyTransactionsDoNotFillTheCache() throws Exception {
+        mockMvc.perform(get("/api/protocol-templates/" + id)).andExpect(status().isOk());
+
+        assertThat(entityManagerFactory.getCache().contains(ProtocolTemplate.class, id)).isFalse();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> entityManager.find(ProtocolTemplate.class, id));
+
+        assertThat(entityManagerFactory.getCache().contains(ProtocolTemplate.class, id)).isTrue();
+    }
+
+    @Test
+    void patchIsReadBack() throws Exception {
+        mockMvc.perform(get("/api/protocol-templates/" + id)).andExpect(status().isOk());
+
+        mockMvc
+            .perform(
+                patch("/api/protocol-templates/" + id)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"id\":" + id + ",\"description\":\"new\"}")
+            )
+            .andExpect(status().isOk());
+
+        String body = mockMvc
+            .perform(get("/api/protocol-templates/" + id))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        assertThat(objectMapper.readTree(body).get("description").asText()).isEqualTo("new");
+    }
+}
@@ -0,0 +1,82 @@
+package com.javabackend.backend.domain.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeOrderedIdTests {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+
+    private final Clock stoppedClock = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    @Test
+    void idsOfOneNodeAreIncreasing() {
+        TimeOrderedId generator = new TimeOrderedId(stoppedClock);
+        generator.node(3, 4);
+
+        long previous = 0;
+        for (int i = 0; i < 1000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            assertThat(TimeOrderedId.isClientId(id)).isFalse();
+            previous = id;
+        }
+    }
+
+    @Test
+    void nodesCreatingIdsInTheSameMillisecondDoNotCollide() {
+        TimeOrderedId first = new TimeOrderedId(stoppedClock);
+        TimeOrderedId second = new TimeOrderedId(stoppedClock);
+        first.node(0, 4);
+        second.node(1, 4);
+
+        Set<Long> ids = new HashSet<>();
+        // more than the 256 ids per millisecond of a node, so both borrow the following milliseconds
+        for (int i = 0; i < 1000; i++) {
+            assertThat(ids.add(first.nextId())).isTrue();
+            assertThat(ids.add(second.nextId())).isTrue();
+        }
+    }
+
+    @Test
+    void idsWithoutNodeCountInAllLowBits() {
+        TimeOrderedId generator = new TimeOrderedId(stoppedClock);
+
+        long first = generator.nextId();
+        for (int i = 1; i < 4096; i++) {
+            generator.nextId();
+        }
+
+        assertThat(TimeOrderedId.timestampOf(first)).isEqualTo(NOW);
+        assertThat(TimeOrderedId.timestampOf(generator.nextId())).isEqualTo(NOW.plusMillis(1));
+    }
+
+    @Test
+    void idsStayIncreasingWhenTheNodeChanges() {
+        TimeOrderedId generator = new TimeOrderedId(stoppedClock);
+        long before = 0;
+        for (int i = 0; i < 100; i++) {
+            before = generator.nextId();
+        }
+
+        generator.node(0, 4);
+
+        assertThat(generator.nextId()).isGreaterThan(before);
+    }
+
+    @Test
+    void nodeMustFitIntoItsBits() {
+        TimeOrderedId generator = new TimeOrderedId(stoppedClock);
+
+        assertThatThrownBy(() -> generator.node(16, 4)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> generator.node(0, TimeOrderedId.MAX_NODE_BITS + 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
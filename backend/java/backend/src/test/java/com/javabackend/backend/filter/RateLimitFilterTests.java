@@ -0,0 +1,61 @@
+package com.javabackend.backend.filter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs on the embedded Tomcat, the forwarded client address is applied by its {@code RemoteIpValve}. The test client
+ * connects from the loopback address, which is a trusted proxy.
+ */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "application.rate-limit.enabled=true",
+        "application.rate-limit.default-budget.requests-per-second=0.01",
+        "application.rate-limit.default-budget.burst=1"
+    }
+)
+@ActiveProfiles("test")
+class RateLimitFilterTests {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    @LocalServerPort
+    private int port;
+
+    private HttpClient client;
+
+    @BeforeEach
+    void initClient() {
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @Test
+    void clientsBehindAProxyHaveTheirOwnBuckets() throws Exception {
+        assertThat(getRoles("198.51.100.1").statusCode()).isNotEqualTo(TOO_MANY_REQUESTS);
+        assertThat(getRoles("198.51.100.2").statusCode()).isNotEqualTo(TOO_MANY_REQUESTS);
+
+        HttpResponse<String> exceeded = getRoles("198.51.100.1");
+        assertThat(exceeded.statusCode()).isEqualTo(TOO_MANY_REQUESTS);
+        assertThat(exceeded.headers().firstValue("Retry-After")).isPresent();
+    }
+
+    private HttpResponse<String> getRoles(String forwardedFor) throws Exception {
+        HttpRequest request = HttpRequest
+            .newBuilder(URI.create("http://localhost:" + port + "/api/roles"))
+            .header("X-Forwarded-For", forwardedFor)
+            .GET()
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
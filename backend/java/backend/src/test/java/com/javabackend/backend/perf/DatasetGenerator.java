@@ -0,0 +1,442 @@
+package com.javabackend.backend.perf;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Bulk loads a synthetic, reproducible DRK dataset described by a {@link DatasetSpec}.
+ * <p>
+ * Rows are written with plain JDBC batches instead of the JPA repositories, which keeps the load time linear
+ * and works the same on PostgreSQL and on the embedded H2 database. The generator expects the empty schema
+ * Hibernate creates with {@code ddl-auto=create}; ids are assigned from a local counter and the
+ * {@code sequence_generator} sequence is moved behind them afterwards.
+ */
+public class DatasetGenerator {
+
+    private final Logger log = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    /**
+     * Hibernate maps the String attributes of the entities to {@code varchar(255)}.
+     */
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    /**
+     * Allocation size of the {@code sequenceGenerator} used by the entities.
+     */
+    private static final int SEQUENCE_ALLOCATION_SIZE = 50;
+
+    private static final String[] ROLES = { "ADMIN", "LEITUNG", "DISPONENT", "SANITAETER", "REVIEWER" };
+
+    private static final String[] ORGANIZATION_TYPES = { "Landesverband", "Kreisverband", "Ortsverein", "Bereitschaft", "Gruppe" };
+
+    private static final String[] FIRST_NAMES = {
+        "Anna", "Ben", "Clara", "David", "Emma", "Felix", "Greta", "Hannes", "Ida", "Jonas", "Lena", "Lukas",
+        "Marie", "Noah", "Paula", "Paul", "Sophie", "Tim", "Lea", "Max",
+    };
+
+    private static final String[] LAST_NAMES = {
+        "Müller", "Schmidt", "Schneider", "Fischer", "Weber", "Meyer", "Wagner", "Becker", "Schulz", "Hoffmann",
+        "Koch", "Richter", "Klein", "Wolf", "Neumann", "Schwarz", "Zimmermann", "Braun", "Krüger", "Hartmann",
+    };
+
+    private static final String[] CITIES = {
+        "Berlin", "Hamburg", "München", "Köln", "Frankfurt", "Stuttgart", "Düsseldorf", "Leipzig", "Dortmund", "Essen",
+        "Bremen", "Dresden", "Hannover", "Nürnberg", "Rosenheim", "Kempten",
+    };
+
+    private static final String[] WORDS = {
+        "Patient", "ansprechbar", "Puls", "Blutdruck", "Sturz", "Schürfwunde", "Transport", "Klinik", "Notarzt",
+        "Versorgung", "Verband", "Kühlung", "Übergabe", "stabil", "Atmung", "unauffällig", "Einsatz", "Sanitätsdienst",
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DatasetSpec spec;
+
+    private final SplittableRandom random;
+
+    private final Instant now;
+
+    private long nextId = 1;
+
+    private long rootOrganizationId;
+
+    private final List<Long> leafOrganizationIds = new ArrayList<>();
+
+    private final Map<Long, Long> organizationParents = new HashMap<>();
+
+    private final List<Long> organizationIds = new ArrayList<>();
+
+    private final List<Long> roleIds = new ArrayList<>();
+
+    private long[] userIds;
+
+    private long[] userOrganizationIds;
+
+    private double[] userWeights;
+
+    public DatasetGenerator(JdbcTemplate jdbcTemplate, DatasetSpec spec) {
+        this(jdbcTemplate, spec, Instant.now().truncatedTo(ChronoUnit.DAYS));
+    }
+
+    public DatasetGenerator(JdbcTemplate jdbcTemplate, DatasetSpec spec, Instant now) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.spec = spec;
+        this.random = new SplittableRandom(spec.seed());
+        this.now = now;
+    }
+
+    /**
+     * @return the id of a user with a role on a root organization, who sees the whole dataset.
+     */
+    public static long administratorId(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject(
+            "select ur.drk_user_id from user_role ur join organization o on o.id = ur.organization_id where o.parent_id is null " +
+            "order by ur.id fetch first 1 rows only",
+            Long.class
+        );
+    }
+
+    /**
+     * Generates the whole dataset.
+     *
+     * @return the number of rows written per table.
+     */
+    public DatasetStatistics generate() {
+        Integer existing = jdbcTemplate.queryForObject("select count(*) from organization", Integer.class);
+        if (existing != null && existing > 0) {
+            throw new IllegalStateException("The dataset generator expects an empty schema");
+        }
+        long start = System.nanoTime();
+        DatasetStatistics statistics = new DatasetStatistics();
+        generateOrganizations(statistics);
+        generateRoles(statistics);
+        generateUsers(statistics);
+        generateTemplates(statistics);
+        generateProtocols(statistics);
+        moveSequence();
+        log.info("Generated dataset {} in {}: {}", spec, Duration.ofNanos(System.nanoTime() - start), statistics);
+        return statistics;
+    }
+
+    private void generateOrganizations(DatasetStatistics statistics) {
+        Batch organizations = new Batch(
+            "insert into organization (id, version, parent_id, name, address, city, postal_code, country, type, created_or_edited) " +
+            "values (?, 0, ?, ?, ?, ?, ?, ?, ?, ?)"
+        );
+        rootOrganizationId = addOrganization(organizations, null, 0, "DRK Landesverband");
+        List<Long> level = List.of(rootOrganizationId);
+        for (int depth = 1; depth <= spec.organizationDepth(); depth++) {
+            List<Long> next = new ArrayList<>();
+            for (Long parentId : level) {
+                int fanout = random.nextInt(spec.organizationFanoutMin(), spec.organizationFanoutMax() + 1);
+                for (int i = 0; i < fanout; i++) {
+                    next.add(addOrganization(organizations, parentId, depth, "DRK " + pick(CITIES) + " " + (i + 1)));
+                }
+            }
+            level = next;
+        }
+        leafOrganizationIds.addAll(level);
+        statistics.organizations = organizations.flush();
+    }
+
+    private long addOrganization(Batch organizations, Long parentId, int depth, String name) {
+        long id = nextId++;
+        organizationIds.add(id);
+        organizationParents.put(id, parentId);
+        organizations.add(
+            id,
+            new SqlParameterValue(Types.BIGINT, parentId),
+            name,
+            "Hauptstraße " + random.nextInt(1, 200),
+            pick(CITIES),
+            String.format("%05d", random.nextInt(1_000, 99_999)),
+            "Deutschland",
+            ORGANIZATION_TYPES[Math.min(depth, ORGANIZATION_TYPES.length - 1)],
+            timestamp(randomInstant())
+        );
+        return id;
+    }
+
+    private void generateRoles(DatasetStatistics statistics) {
+        Batch roles = new Batch("insert into role (id, name, description) values (?, ?, ?)");
+        for (String role : ROLES) {
+            long id = nextId++;
+            roleIds.add(id);
+            roles.add(id, role, "Rolle " + role);
+        }
+        statistics.roles = roles.flush();
+    }
+
+    private void generateUsers(DatasetStatistics statistics) {
+        Batch users = new Batch(
+            "insert into drk_user (id, version, user_name, first_name, last_name, email, password, last_password_change, " +
+            "password_change_required, created_or_edited, organization_id) values (?, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
+        );
+        Batch userRoles = new Batch("insert into user_role (id, drk_user_id, organization_id, role_id) values (?, ?, ?, ?)");
+        userIds = new long[spec.users()];
+        userOrganizationIds = new long[spec.users()];
+        userWeights = new double[spec.users()];
+        double total = 0;
+        for (int i = 0; i < spec.users(); i++) {
+            long id = nextId++;
+            long organizationId = leafOrganizationIds.get(random.nextInt(leafOrganizationIds.size()));
+            String firstName = pick(FIRST_NAMES);
+            String lastName = pick(LAST_NAMES);
+            String userName = (firstName.charAt(0) + lastName).toLowerCase() + i;
+            Instant created = randomInstant();
+            users.add(
+                id,
+                userName,
+                firstName,
+                lastName,
+                userName + "@drk.example",
+                "{noop}" + userName,
+                timestamp(created),
+                random.nextDouble() < 0.02,
+                timestamp(created),
+                organizationId
+            );
+            // every user has a role on the own organization, a few also on a parent organization, the first user
+            // administers the whole tree
+            userRoles.add(nextId++, id, organizationId, roleIds.get(3 + random.nextInt(roleIds.size() - 3)));
+            if (i == 0) {
+                userRoles.add(nextId++, id, rootOrganizationId, roleIds.get(0));
+            }
+            if (random.nextDouble() < 0.1) {
+                Long parentId = organizationParents.get(organizationId);
+                if (parentId != null) {
+                    userRoles.add(nextId++, id, parentId, roleIds.get(random.nextInt(3)));
+                }
+            }
+            userIds[i] = id;
+            userOrganizationIds[i] = organizationId;
+            total += spec.userSkew() == 0 ? 1 : 1 / Math.pow(i + 1, spec.userSkew());
+            userWeights[i] = total;
+            if (users.isFull()) {
+                statistics.users += users.flush();
+                statistics.userRoles += userRoles.flush();
+            }
+        }
+        statistics.users += users.flush();
+        statistics.userRoles += userRoles.flush();
+    }
+
+    private void generateTemplates(DatasetStatistics statistics) {
+        Batch templates = new Batch(
+            "insert into protocol_template (id, version, name, description, template, created_or_edited) values (?, 0, ?, ?, ?, ?)"
+        );
+        Batch templateOrganizations = new Batch(
+            "insert into template_organization (id, organization_id, protocol_template_id) values (?, ?, ?)"
+        );
+        for (int i = 0; i < spec.templates(); i++) {
+            long id = nextId++;
+            templates.add(id, "Vorlage " + (i + 1), "Einsatzprotokoll Typ " + (i + 1), text(spec.meanContentLength()), timestamp(randomInstant()));
+            int organizations = 1 + random.nextInt(3);
+            for (int j = 0; j < organizations; j++) {
+                templateOrganizations.add(nextId++, organizationIds.get(random.nextInt(organizationIds.size())), id);
+            }
+        }
+        statistics.templates = templates.flush();
+        statistics.templateOrganizations = templateOrganizations.flush();
+    }
+
+    private void generateProtocols(DatasetStatistics statistics) {
+        Batch contents = new Batch("insert into protocol_content (id, version, content) values (?, 0, ?)");
+        Batch pdfFiles = new Batch("insert into protocol_pdf_file (id, content, mime_type) values (?, ?, ?)");
+        Batch protocols = new Batch(
+            "insert into protocol (id, version, is_draft, review_comment, is_closed, closed_at, created_or_edited, " +
+            "protocol_content_id, protocol_pdf_file_id, drk_user_id, organization_id) values (?, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
+        );
+        Batch additionalUsers = new Batch("insert into additional_user (id, drk_user_id, protocol_id) values (?, ?, ?)");
+        for (int i = 0; i < spec.protocols(); i++) {
+            int owner = pickUser();
+            long contentId = nextId++;
+            contents.add(contentId, text(spec.meanContentLength()));
+            Long pdfFileId = null;
+            if (random.nextDouble() < spec.pdfRatio()) {
+                pdfFileId = nextId++;
+                pdfFiles.add(pdfFileId, text(spec.meanPdfLength()), "application/pdf");
+            }
+            long id = nextId++;
+            Instant created = randomInstant();
+            double state = random.nextDouble();
+            boolean draft = state < spec.draftRatio();
+            boolean closed = !draft && state >= spec.draftRatio() + spec.openRatio();
+            Instant closedAt = closed ? created.plus(Duration.ofMinutes(30 + (long) exponential(360))) : null;
+            protocols.add(
+                id,
+                draft,
+                new SqlParameterValue(Types.VARCHAR, random.nextDouble() < 0.1 ? "Bitte ergänzen" : null),
+                closed,
+                new SqlParameterValue(Types.TIMESTAMP, closedAt == null ? null : timestamp(closedAt)),
+                timestamp(created),
+                contentId,
+                new SqlParameterValue(Types.BIGINT, pdfFileId),
+                userIds[owner],
+                userOrganizationIds[owner]
+            );
+            int additional = poisson(spec.meanAdditionalUsers());
+            for (int j = 0; j < additional; j++) {
+                additionalUsers.add(nextId++, userIds[pickUser()], id);
+            }
+            if (protocols.isFull()) {
+                statistics.contents += contents.flush();
+                statistics.pdfFiles += pdfFiles.flush();
+                statistics.protocols += protocols.flush();
+                statistics.additionalUsers += additionalUsers.flush();
+                if (statistics.protocols % (spec.batchSize() * 100L) == 0) {
+                    log.info("Generated {} of {} protocols", statistics.protocols, spec.protocols());
+                }
+            }
+        }
+        statistics.contents += contents.flush();
+        statistics.pdfFiles += pdfFiles.flush();
+        statistics.protocols += protocols.flush();
+        statistics.additionalUsers += additionalUsers.flush();
+    }
+
+    private void moveSequence() {
+        jdbcTemplate.execute("alter sequence sequence_generator restart with " + (nextId + SEQUENCE_ALLOCATION_SIZE));
+    }
+
+    /**
+     * Picks a user following the Zipf distribution of the spec.
+     */
+    private int pickUser() {
+        double target = random.nextDouble() * userWeights[userWeights.length - 1];
+        int low = 0;
+        int high = userWeights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (userWeights[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Instant randomInstant() {
+        // recent days are busier than old ones
+        double age = Math.pow(random.nextDouble(), 1.5) * spec.historyDays();
+        return now.minusSeconds((long) (age * 86_400));
+    }
+
+    private String text(int meanLength) {
+        double sigma = 0.5;
+        double length = Math.exp(Math.log(meanLength) - sigma * sigma / 2 + sigma * gaussian());
+        int target = (int) Math.max(8, Math.min(MAX_TEXT_LENGTH, length));
+        StringBuilder text = new StringBuilder(target + 16);
+        while (text.length() < target) {
+            text.append(pick(WORDS)).append(' ');
+        }
+        return text.substring(0, target);
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private double gaussian() {
+        // Box-Muller, SplittableRandom has no nextGaussian on Java 17
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private double exponential(double mean) {
+        return -mean * Math.log(1 - random.nextDouble());
+    }
+
+    private int poisson(double mean) {
+        double limit = Math.exp(-mean);
+        double product = random.nextDouble();
+        int count = 0;
+        while (product > limit) {
+            product *= random.nextDouble();
+            count++;
+        }
+        return count;
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        return Timestamp.from(instant);
+    }
+
+    /**
+     * Rows of one insert statement waiting to be written as one JDBC batch.
+     */
+    private class Batch {
+
+        private final String sql;
+
+        private final List<Object[]> rows = new ArrayList<>();
+
+        Batch(String sql) {
+            this.sql = sql;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+        }
+
+        boolean isFull() {
+            return rows.size() >= spec.batchSize();
+        }
+
+        int flush() {
+            int written = rows.size();
+            if (written > 0) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                rows.clear();
+            }
+            return written;
+        }
+    }
+
+    /**
+     * Number of rows written per table.
+     */
+    public static class DatasetStatistics {
+
+        public int organizations;
+        public int roles;
+        public int users;
+        public int userRoles;
+        public int templates;
+        public int templateOrganizations;
+        public int protocols;
+        public int contents;
+        public int pdfFiles;
+        public int additionalUsers;
+
+        @Override
+        public String toString() {
+            return "DatasetStatistics{" +
+                "organizations=" + organizations +
+                ", roles=" + roles +
+                ", users=" + users +
+                ", userRoles=" + userRoles +
+                ", templates=" + templates +
+                ", templateOrganizations=" + templateOrganizations +
+                ", protocols=" + protocols +
+                ", contents=" + contents +
+                ", pdfFiles=" + pdfFiles +
+                ", additionalUsers=" + additionalUsers +
+                "}";
+        }
+    }
+}
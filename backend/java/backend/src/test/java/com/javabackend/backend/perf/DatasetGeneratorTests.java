@@ -0,0 +1,44 @@
+package com.javabackend.backend.perf;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Loads a synthetic dataset into the database of the {@code perf} profile.
+ * <p>
+ * Runs the {@code small} preset against the embedded database by default. Bigger runs are started with
+ * {@code mvn test -Dtest=DatasetGeneratorTests -Ddataset.preset=large -Ddataset.seed=7
+ * -Dperf.datasource.url=jdbc:postgresql://localhost:5432/drk_perf?reWriteBatchedInserts=true}.
+ */
+@SpringBootTest
+@ActiveProfiles("perf")
+class DatasetGeneratorTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void generateDataset() {
+        DatasetSpec spec = DatasetSpec.preset(System.getProperty("dataset.preset", "small"), Long.getLong("dataset.seed", 42L));
+
+        DatasetGenerator.DatasetStatistics statistics = new DatasetGenerator(jdbcTemplate, spec).generate();
+
+        assertThat(statistics.protocols).isEqualTo(spec.protocols());
+        assertThat(statistics.users).isEqualTo(spec.users());
+        assertThat(count("protocol")).isEqualTo(statistics.protocols);
+        assertThat(count("protocol_content")).isEqualTo(statistics.contents);
+        assertThat(count("protocol_pdf_file")).isEqualTo(statistics.pdfFiles);
+        assertThat(count("additional_user")).isEqualTo(statistics.additionalUsers);
+        assertThat(count("user_role")).isEqualTo(statistics.userRoles);
+        assertThat(count("organization")).isEqualTo(statistics.organizations);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Integer.class);
+    }
+}
@@ -0,0 +1,76 @@
+package com.javabackend.backend.perf;
+
+/**
+ * Distribution model for a synthetic DRK dataset.
+ * <p>
+ * All sizes are targets, the generator derives the concrete rows from the {@link #seed()} so that two runs
+ * with the same spec produce exactly the same database content.
+ *
+ * @param seed                  seed of the random generator.
+ * @param organizationDepth     number of levels below the root organization (Landesverband, Kreisverband, Ortsverein, ...).
+ * @param organizationFanoutMin minimum number of child organizations per organization.
+ * @param organizationFanoutMax maximum number of child organizations per organization.
+ * @param users                 number of DrkUsers, spread over the leaf organizations.
+ * @param userSkew              Zipf exponent of the protocols-per-user distribution, {@code 0} means uniform.
+ * @param protocols             number of protocols.
+ * @param historyDays           protocols are spread over this many days before now.
+ * @param draftRatio            share of protocols which are still drafts.
+ * @param openRatio             share of protocols which are submitted but not closed yet.
+ * @param pdfRatio              share of protocols which carry a PDF file.
+ * @param meanAdditionalUsers   mean number of additional users per protocol (Poisson distributed).
+ * @param meanContentLength     mean length in characters of a protocol content (log-normal distributed, capped at the column length).
+ * @param meanPdfLength         mean length in characters of the PDF content (log-normal distributed, capped at the column length).
+ * @param templates             number of protocol templates.
+ * @param batchSize             number of rows per JDBC batch.
+ */
+public record DatasetSpec(
+    long seed,
+    int organizationDepth,
+    int organizationFanoutMin,
+    int organizationFanoutMax,
+    int users,
+    double userSkew,
+    int protocols,
+    int historyDays,
+    double draftRatio,
+    double openRatio,
+    double pdfRatio,
+    double meanAdditionalUsers,
+    int meanContentLength,
+    int meanPdfLength,
+    int templates,
+    int batchSize
+) {
+    /**
+     * A few thousand protocols, enough for smoke tests against the embedded database.
+     */
+    public static DatasetSpec small(long seed) {
+        return new DatasetSpec(seed, 3, 2, 4, 200, 1.1, 2_000, 90, 0.05, 0.15, 0.5, 1.2, 160, 200, 10, 500);
+    }
+
+    /**
+     * A mid-sized Kreisverband, fits into the embedded database of a developer machine.
+     */
+    public static DatasetSpec medium(long seed) {
+        return new DatasetSpec(seed, 4, 3, 6, 5_000, 1.1, 200_000, 365, 0.05, 0.15, 0.6, 1.2, 160, 200, 25, 1_000);
+    }
+
+    /**
+     * A whole Landesverband with several years of history, meant for a local PostgreSQL.
+     */
+    public static DatasetSpec large(long seed) {
+        return new DatasetSpec(seed, 4, 4, 8, 40_000, 1.1, 2_000_000, 3 * 365, 0.03, 0.07, 0.6, 1.2, 160, 200, 50, 2_000);
+    }
+
+    /**
+     * Resolves one of the presets by name, {@code small}, {@code medium} or {@code large}.
+     */
+    public static DatasetSpec preset(String name, long seed) {
+        return switch (name) {
+            case "small" -> small(seed);
+            case "medium" -> medium(seed);
+            case "large" -> large(seed);
+            default -> throw new IllegalArgumentException("Unknown dataset preset: " + name);
+        };
+    }
+}
@@ -0,0 +1,213 @@
+package com.javabackend.backend.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javabackend.backend.service.permission.OrganizationTree;
+import com.javabackend.backend.service.permission.PermissionIndex;
+import com.javabackend.backend.service.session.SessionStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the JSON and CBOR encodings of the REST API by payload size and by the time to write and read them.
+ * <p>
+ * Every endpoint is requested once per encoding, both answers must decode to the same document. The codec times are
+ * medians over {@code benchmark.rounds} writes and reads of that document, after as many warmup rounds. Disabled in the
+ * normal build, run it with {@code mvn test -Dtest=EncodingBenchmarkTests -Dbenchmark=true [-Dbenchmark.rounds=200]
+ * [-Dbenchmark.dataset=medium]}. The results are written to {@value #REPORT}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("perf")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class EncodingBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(EncodingBenchmarkTests.class);
+
+    private static final String REPORT = "target/benchmark/encoding.properties";
+
+    private static final String CBOR = "application/cbor";
+
+    private static final String JSON = "application/json";
+
+    private static final Map<String, String> ENDPOINTS = Map.of(
+        "protocol.page",
+        "/api/protocols?page=0&size=200",
+        "protocol.fields",
+        "/api/protocols?page=0&size=200&fields=isDraft,isClosed,createdOrEdited,organization",
+        "organization.list",
+        "/api/organizations",
+        "drkUser.list",
+        "/api/drk-users",
+        "protocolTemplate.list",
+        "/api/protocol-templates"
+    );
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborHttpMessageConverter;
+
+    @Autowired
+    private OrganizationTree organizationTree;
+
+    @Autowired
+    private PermissionIndex permissionIndex;
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    private String token;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private record Result(
+        int jsonBytes,
+        int cborBytes,
+        double jsonWriteMicros,
+        double cborWriteMicros,
+        double jsonReadMicros,
+        double cborReadMicros
+    ) {}
+
+    @Test
+    void jsonVersusCbor() throws Exception {
+        int rounds = Integer.getInteger("benchmark.rounds", 200);
+        Integer protocols = jdbcTemplate.queryForObject("select count(*) from protocol", Integer.class);
+        if (protocols == null || protocols == 0) {
+            DatasetSpec spec = DatasetSpec.preset(System.getProperty("benchmark.dataset", "small"), 42L);
+            new DatasetGenerator(jdbcTemplate, spec).generate();
+            // the in-memory indexes have been built from the empty database on startup
+            organizationTree.rebuild();
+            permissionIndex.rebuild();
+        }
+        token = sessionStore.open(DatasetGenerator.administratorId(jdbcTemplate)).token();
+        ObjectMapper cborMapper = cborHttpMessageConverter.getObjectMapper();
+
+        Map<String, Result> results = new TreeMap<>();
+        for (Map.Entry<String, String> endpoint : ENDPOINTS.entrySet()) {
+            byte[] json = fetch(endpoint.getValue(), JSON);
+            byte[] cbor = fetch(endpoint.getValue(), CBOR);
+            JsonNode document = objectMapper.readTree(json);
+            assertThat(cborMapper.readTree(cbor)).as(endpoint.getKey()).isEqualTo(document);
+
+            results.put(
+                endpoint.getKey(),
+                new Result(
+                    json.length,
+                    cbor.length,
+                    median(rounds, () -> objectMapper.writeValueAsBytes(document)),
+                    median(rounds, () -> cborMapper.writeValueAsBytes(document)),
+                    median(rounds, () -> objectMapper.readTree(json)),
+                    median(rounds, () -> cborMapper.readTree(cbor))
+                )
+            );
+        }
+
+        Properties report = new Properties();
+        results.forEach((name, result) -> {
+            log.info("{}: {}", name, result);
+            report.setProperty(name + ".json.bytes", Integer.toString(result.jsonBytes()));
+            report.setProperty(name + ".cbor.bytes", Integer.toString(result.cborBytes()));
+            report.setProperty(name + ".json.write", format(result.jsonWriteMicros()));
+            report.setProperty(name + ".cbor.write", format(result.cborWriteMicros()));
+            report.setProperty(name + ".json.read", format(result.jsonReadMicros()));
+            report.setProperty(name + ".cbor.read", format(result.cborReadMicros()));
+        });
+        Files.createDirectories(Path.of(REPORT).getParent());
+        try (Writer writer = Files.newBufferedWriter(Path.of(REPORT))) {
+            report.store(writer, "JSON and CBOR payload bytes, write and read times in microseconds, rounds=" + rounds);
+        }
+
+        assertThat(results.values()).allSatisfy(result -> assertThat(result.cborBytes()).isLessThan(result.jsonBytes()));
+    }
+
+    @Test
+    void acceptsCborRequestBodies() throws Exception {
+        ObjectMapper cborMapper = cborHttpMessageConverter.getObjectMapper();
+        byte[] body = cborMapper.writeValueAsBytes(Map.of("name", "CBOR template", "description", "sent as CBOR"));
+        HttpResponse<byte[]> response = client.send(
+            HttpRequest
+                .newBuilder(URI.create("http://localhost:" + port + "/api/protocol-templates"))
+                .header("Content-Type", CBOR)
+                .header("Accept", CBOR)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray()
+        );
+
+        assertThat(response.statusCode()).isEqualTo(201);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(type -> assertThat(type).startsWith(CBOR));
+        assertThat(cborMapper.readTree(response.body()).get("name").asText()).isEqualTo("CBOR template");
+    }
+
+    private byte[] fetch(String path, String accept) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(
+            HttpRequest
+                .newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept)
+                .header(SessionStore.TOKEN_HEADER, token)
+                .GET()
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray()
+        );
+        assertThat(response.statusCode()).as(path).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(type -> assertThat(type).startsWith(accept));
+        return response.body();
+    }
+
+    private interface Codec {
+        Object run() throws IOException;
+    }
+
+    /**
+     * @return the median time of one run in microseconds, after as many warmup runs.
+     */
+    private static double median(int rounds, Codec codec) throws IOException {
+        for (int i = 0; i < rounds; i++) {
+            codec.run();
+        }
+        long[] nanos = new long[rounds];
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            codec.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[rounds / 2] / 1000.0;
+    }
+
+    private static String format(double micros) {
+        return String.format(Locale.ROOT, "%.1f", micros);
+    }
+}
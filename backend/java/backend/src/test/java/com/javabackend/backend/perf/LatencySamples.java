@@ -0,0 +1,62 @@
+package com.javabackend.backend.perf;
+
+import java.util.Arrays;
+
+/**
+ * Latency samples of one operation, recorded by a single worker thread and merged afterwards.
+ */
+public class LatencySamples {
+
+    private long[] nanos = new long[1024];
+
+    private int size;
+
+    private int errors;
+
+    public void record(long latencyNanos, boolean success) {
+        if (size == nanos.length) {
+            nanos = Arrays.copyOf(nanos, size * 2);
+        }
+        nanos[size++] = latencyNanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    public void merge(LatencySamples other) {
+        if (size + other.size > nanos.length) {
+            nanos = Arrays.copyOf(nanos, Math.max(nanos.length * 2, size + other.size));
+        }
+        System.arraycopy(other.nanos, 0, nanos, size, other.size);
+        size += other.size;
+        errors += other.errors;
+    }
+
+    public int count() {
+        return size;
+    }
+
+    public int errors() {
+        return errors;
+    }
+
+    /**
+     * Sorts the samples, needs to be called once before reading percentiles.
+     */
+    public LatencySamples seal() {
+        Arrays.sort(nanos, 0, size);
+        return this;
+    }
+
+    /**
+     * @param percentile the percentile between {@code 0} and {@code 100}.
+     * @return the latency in milliseconds, nearest-rank method.
+     */
+    public double percentileMillis(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * size);
+        return nanos[Math.max(0, Math.min(size - 1, rank - 1))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,147 @@
+package com.javabackend.backend.perf;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Throughput and latency of a load test run, per operation and in total.
+ * <p>
+ * {@code .rps}) so a reference run can be kept as a baseline and compared with later runs on the same machine.
+ * {@code .rps}) so a baseline can be kept in the repository and compared with later runs.
+ */
+public class LoadTestReport {
+
+    public static final String TOTAL = "total";
+
+    private final Map<String, Result> results = new TreeMap<>();
+
+    public record Result(int requests, int errors, double rps, double p50, double p99, double p999) {}
+
+    public static LoadTestReport of(Map<String, LatencySamples> samples, Duration duration) {
+        LoadTestReport report = new LoadTestReport();
+        LatencySamples total = new LatencySamples();
+        samples.forEach((operation, operationSamples) -> {
+            total.merge(operationSamples);
+            report.results.put(operation, result(operationSamples.seal(), duration));
+        });
+        report.results.put(TOTAL, result(total.seal(), duration));
+        return report;
+    }
+
+    private static Result result(LatencySamples samples, Duration duration) {
+        return new Result(
+            samples.count(),
+            samples.errors(),
+            samples.count() / (duration.toMillis() / 1000.0),
+            samples.percentileMillis(50),
+            samples.percentileMillis(99),
+            samples.percentileMillis(99.9)
+        );
+    }
+
+    public static LoadTestReport load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        LoadTestReport report = new LoadTestReport();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.endsWith(".rps")) {
+                String operation = key.substring(0, key.length() - ".rps".length());
+                report.results.put(
+                    operation,
+                    new Result(
+                        Integer.parseInt(properties.getProperty(operation + ".requests", "0")),
+                        Integer.parseInt(properties.getProperty(operation + ".errors", "0")),
+                        Double.parseDouble(properties.getProperty(operation + ".rps")),
+                        Double.parseDouble(properties.getProperty(operation + ".p50")),
+                        Double.parseDouble(properties.getProperty(operation + ".p99")),
+                        Double.parseDouble(properties.getProperty(operation + ".p999"))
+                    )
+                );
+            }
+        }
+        return report;
+    }
+
+    public void store(Path path, String comment) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            writer.write("# " + comment + System.lineSeparator());
+            for (Map.Entry<String, Result> entry : results.entrySet()) {
+                String operation = entry.getKey();
+                Result result = entry.getValue();
+                writer.write(operation + ".requests=" + result.requests() + System.lineSeparator());
+                writer.write(operation + ".errors=" + result.errors() + System.lineSeparator());
+                writer.write(operation + ".rps=" + format(result.rps()) + System.lineSeparator());
+                writer.write(operation + ".p50=" + format(result.p50()) + System.lineSeparator());
+                writer.write(operation + ".p99=" + format(result.p99()) + System.lineSeparator());
+                writer.write(operation + ".p999=" + format(result.p999()) + System.lineSeparator());
+            }
+        }
+    }
+
+    public Map<String, Result> results() {
+        return results;
+    }
+
+    /**
+     * Compares this run with a baseline.
+     *
+     * @param baseline  the baseline run.
+     * @param tolerance allowed relative degradation, {@code 0.2} accepts a p99 up to 20% slower and a throughput up to 20% lower.
+     * @return a description of every regression, empty if the run is within the tolerance.
+     */
+    public List<String> regressionsAgainst(LoadTestReport baseline, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        baseline.results.forEach((operation, expected) -> {
+            Result actual = results.get(operation);
+            if (actual == null) {
+                return;
+            }
+            if (actual.p99() > expected.p99() * (1 + tolerance)) {
+                regressions.add(operation + ": p99 " + format(actual.p99()) + " ms, baseline " + format(expected.p99()) + " ms");
+            }
+            if (actual.rps() < expected.rps() * (1 - tolerance)) {
+                regressions.add(operation + ": " + format(actual.rps()) + " req/s, baseline " + format(expected.rps()) + " req/s");
+            }
+        });
+        return regressions;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder(
+            String.format("%n%-36s %9s %7s %10s %9s %9s %9s%n", "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms")
+        );
+        results.forEach((operation, result) ->
+            table.append(
+                String.format(
+                    "%-36s %9d %7d %10.1f %9.2f %9.2f %9.2f%n",
+                    operation,
+                    result.requests(),
+                    result.errors(),
+                    result.rps(),
+                    result.p50(),
+                    result.p99(),
+                    result.p999()
+                )
+            )
+        );
+        return table.toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
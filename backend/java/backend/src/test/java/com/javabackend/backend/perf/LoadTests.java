@@ -0,0 +1,463 @@
+package com.javabackend.backend.perf;
+
+import com.javabackend.backend.service.ProtocolStatisticsService;
+import com.javabackend.backend.service.permission.OrganizationTree;
+import com.javabackend.backend.service.permission.PermissionIndex;
+import com.javabackend.backend.service.session.SessionStore;
+import com.javabackend.backend.service.sync.ChangeLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * In-JVM load test driving a mixed CRUD workload against every {@code /api/*} resource.
+ * <p>
+ * Disabled in the normal build, run it with
+ * {@code mvn test -Dtest=LoadTests -Dloadtest=true [-Dloadtest.concurrency=32] [-Dloadtest.duration=PT2M]
+ * [-Dloadtest.dataset=medium] [-Dperf.datasource.url=jdbc:postgresql://localhost:5432/drk_perf]}.
+ * <p>
+ * The report is written to {@value #REPORT} with the dataset, the processors, the heap and the database in its header.
+ * No baseline is kept in the repository, the numbers only compare on the same hardware and database. To check for
+ * regressions, record a reference run with {@code -Dloadtest.baseline=<file> -Dloadtest.updateBaseline=true} and pass
+ * the same {@code -Dloadtest.baseline=<file>} to later runs, they fail if p99 latency or throughput regress by more than
+ * {@code loadtest.tolerance}. Without {@code loadtest.baseline} only the error rate is checked.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("perf")
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class LoadTests {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTests.class);
+
+    private static final String REPORT = "target/loadtest/report.properties";
+
+    private static final int ID_SAMPLE_SIZE = 100_000;
+
+    private static final Pattern VERSION = Pattern.compile("\"version\":(\\d+)");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrganizationTree organizationTree;
+
+    @Autowired
+    private PermissionIndex permissionIndex;
+
+    @Autowired
+    private ProtocolStatisticsService protocolStatisticsService;
+
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    private HttpClient client;
+
+    /**
+     * Session of a user seeing all protocols, sent with every request.
+     */
+    private String token;
+
+    private final Map<String, long[]> ids = new HashMap<>();
+
+    /**
+     * Protocols created by the workload which PUT and PATCH may modify.
+     */
+    private final AtomicLongArray mutableProtocols = new AtomicLongArray(4096);
+
+    private final AtomicInteger mutableProtocolsCursor = new AtomicInteger();
+
+    /**
+     * Last version of the mutable protocols seen by the workload, sent along with PUT.
+     */
+    private final Map<Long, Long> protocolVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Protocols and sessions created by the workload which may be deleted.
+     */
+    private final ConcurrentLinkedQueue<Long> deletableProtocols = new ConcurrentLinkedQueue<>();
+
+    private final ConcurrentLinkedQueue<Long> deletableSessions = new ConcurrentLinkedQueue<>();
+
+    private record Operation(String name, int weight, Function<ThreadLocalRandom, HttpRequest> request, Consumer<HttpResponse<String>> onSuccess) {}
+
+    @Test
+    void mixedCrudWorkload() throws Exception {
+        int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+        Duration warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT10S"));
+        Duration duration = Duration.parse(System.getProperty("loadtest.duration", "PT60S"));
+        double tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.2"));
+        double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.maxErrorRate", "0.01"));
+
+        prepareDataset();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(5)).build();
+        List<Operation> operations = operations();
+
+        log.info("Warming up for {} with {} workers", warmup, concurrency);
+        run(operations, concurrency, warmup);
+        log.info("Measuring for {} with {} workers", duration, concurrency);
+        LoadTestReport report = LoadTestReport.of(run(operations, concurrency, duration), duration);
+        log.info("Load test report:{}", report);
+
+        String comment =
+            "concurrency=" +
+            concurrency +
+            " duration=" +
+            duration +
+            " dataset=" +
+            System.getProperty("loadtest.dataset", "small") +
+            " processors=" +
+            Runtime.getRuntime().availableProcessors() +
+            " maxHeap=" +
+            Runtime.getRuntime().maxMemory() / (1024 * 1024) +
+            "MiB java=" +
+            System.getProperty("java.version") +
+            " database=" +
+            jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getURL());
+        report.store(Path.of(REPORT), comment);
+        String baseline = System.getProperty("loadtest.baseline");
+        if (baseline == null) {
+            log.warn("No -Dloadtest.baseline given, latency and throughput are not compared");
+        } else if (Boolean.getBoolean("loadtest.updateBaseline")) {
+            report.store(Path.of(baseline), comment);
+        } else {
+            assertThat(Path.of(baseline)).as("baseline").exists();
+            assertThat(report.regressionsAgainst(LoadTestReport.load(Path.of(baseline)), tolerance)).isEmpty();
+        }
+
+        LoadTestReport.Result total = report.results().get(LoadTestReport.TOTAL);
+        assertThat(total.errors()).isLessThanOrEqualTo((int) (total.requests() * maxErrorRate));
+    }
+
+    private void prepareDataset() {
+        Integer protocols = jdbcTemplate.queryForObject("select count(*) from protocol", Integer.class);
+        if (protocols == null || protocols == 0) {
+            DatasetSpec spec = DatasetSpec.preset(System.getProperty("loadtest.dataset", "small"), Long.getLong("loadtest.seed", 42L));
+            new DatasetGenerator(jdbcTemplate, spec).generate();
+            // the in-memory indexes have been built from the empty database on startup
+            organizationTree.rebuild();
+            permissionIndex.rebuild();
+            protocolStatisticsService.rebuild();
+            changeLog.backfill();
+        }
+        token = sessionStore.open(DatasetGenerator.administratorId(jdbcTemplate)).token();
+        for (String table : List.of(
+            "protocol",
+            "protocol_content",
+            "protocol_pdf_file",
+            "additional_user",
+            "drk_user",
+            "organization",
+            "protocol_template",
+            "template_organization",
+            "user_role"
+        )) {
+            ids.put(
+                table,
+                jdbcTemplate
+                    .queryForList("select id from " + table + " fetch first " + ID_SAMPLE_SIZE + " rows only", Long.class)
+                    .stream()
+                    .mapToLong(Long::longValue)
+                    .toArray()
+            );
+        }
+    }
+
+    private List<Operation> operations() {
+        List<Operation> operations = new ArrayList<>();
+        operations.add(new Operation("protocol.list", 15, r -> get("/api/protocols?page=" + r.nextInt(20) + "&size=20"), null));
+        operations.add(new Operation("protocol.get", 20, r -> get("/api/protocols/" + id("protocol", r)), null));
+        operations.add(
+            new Operation(
+                "protocol.create",
+                5,
+                r ->
+                    send(
+                        "POST",
+                        "/api/protocols",
+                        "{\"isDraft\":true,\"isClosed\":false,\"createdOrEdited\":\"" + Instant.now() + "\"," +
+                        "\"organization\":{\"id\":" + id("organization", r) + "}}"
+                    ),
+                response -> {
+                    // every other created protocol is kept for updates, the rest is deleted again
+                    int slot = mutableProtocolsCursor.getAndIncrement();
+                    if (slot % 2 == 0) {
+                        long id = createdId(response);
+                        protocolVersions.put(id, 0L);
+                        mutableProtocols.set(Math.floorMod(slot / 2, mutableProtocols.length()), id);
+                    } else {
+                        deletableProtocols.add(createdId(response));
+                    }
+                }
+            )
+        );
+        operations.add(
+            new Operation(
+                "protocol.update",
+                3,
+                r -> {
+                    long id = mutableProtocol(r);
+                    return id == 0
+                        ? null
+                        : send(
+                            "PUT",
+                            "/api/protocols/" + id,
+                            "{\"id\":" + id + ",\"version\":" + protocolVersions.getOrDefault(id, 0L) + "," +
+                            "\"isDraft\":false,\"isClosed\":false,\"createdOrEdited\":\"" + Instant.now() + "\"}"
+                        );
+                },
+                this::rememberProtocolVersion
+            )
+        );
+        operations.add(
+            new Operation(
+                "protocol.patch",
+                5,
+                r -> {
+                    long id = mutableProtocol(r);
+                    return id == 0
+                        ? null
+                        : send("PATCH", "/api/protocols/" + id, "{\"id\":" + id + ",\"reviewComment\":\"load test " + r.nextInt() + "\"}");
+                },
+                this::rememberProtocolVersion
+            )
+        );
+        operations.add(
+            new Operation(
+                "protocol.delete",
+                2,
+                r -> {
+                    Long id = deletableProtocols.poll();
+                    return id == null ? null : send("DELETE", "/api/protocols/" + id, null);
+                },
+                null
+            )
+        );
+        operations.add(new Operation("protocol-content.get", 8, r -> get("/api/protocol-contents/" + id("protocol_content", r)), null));
+        operations.add(
+            new Operation(
+                "protocol-content.patch",
+                2,
+                r -> {
+                    long id = id("protocol_content", r);
+                    return send("PATCH", "/api/protocol-contents/" + id, "{\"id\":" + id + ",\"content\":\"load test " + r.nextInt() + "\"}");
+                },
+                null
+            )
+        );
+        operations.add(new Operation("protocol-pdf-file.get", 4, r -> get("/api/protocol-pdf-files/" + id("protocol_pdf_file", r)), null));
+        operations.add(new Operation("additional-user.get", 3, r -> get("/api/additional-users/" + id("additional_user", r)), null));
+        operations.add(new Operation("drk-user.get", 6, r -> get("/api/drk-users/" + id("drk_user", r)), null));
+        operations.add(new Operation("drk-user.list", 1, r -> get("/api/drk-users"), null));
+        operations.add(new Operation("organization.list", 2, r -> get("/api/organizations"), null));
+        operations.add(new Operation("sync.get", 2, r -> get("/api/sync?since=" + r.nextInt(1000) + "&limit=100"), null));
+        operations.add(new Operation("organization.get", 4, r -> get("/api/organizations/" + id("organization", r)), null));
+        operations.add(
+            new Operation(
+                "organization.patch",
+                1,
+                r -> {
+                    long id = id("organization", r);
+                    return send("PATCH", "/api/organizations/" + id, "{\"id\":" + id + ",\"createdOrEdited\":\"" + Instant.now() + "\"}");
+                },
+                null
+            )
+        );
+        operations.add(
+            new Operation("protocol-statistics.get", 1, r -> get("/api/protocol-statistics?organizationId=" + id("organization", r) + "&includeDescendants=true"), null)
+        );
+        operations.add(new Operation("role.list", 3, r -> get("/api/roles"), null));
+        operations.add(new Operation("protocol-template.list", 3, r -> get("/api/protocol-templates"), null));
+        operations.add(new Operation("protocol-template.get", 2, r -> get("/api/protocol-templates/" + id("protocol_template", r)), null));
+        operations.add(
+            new Operation("template-organization.get", 1, r -> get("/api/template-organizations/" + id("template_organization", r)), null)
+        );
+        operations.add(new Operation("user-role.get", 2, r -> get("/api/user-roles/" + id("user_role", r)), null));
+        operations.add(
+            new Operation(
+                "user-session.create",
+                2,
+                // a session can only be written for the user of the current session
+                r -> send("POST", "/api/user-sessions", "{}"),
+                response -> deletableSessions.add(createdId(response))
+            )
+        );
+        operations.add(
+            new Operation(
+                "user-session.delete",
+                1,
+                r -> {
+                    Long id = deletableSessions.poll();
+                    return id == null ? null : send("DELETE", "/api/user-sessions/" + id, null);
+                },
+                null
+            )
+        );
+        return withMix(operations);
+    }
+
+    /**
+     * Applies {@code -Dloadtest.mix=protocol.get=40,drk-user.list=0} style weight overrides.
+     */
+    private static List<Operation> withMix(List<Operation> operations) {
+        String mix = System.getProperty("loadtest.mix");
+        if (mix == null || mix.isBlank()) {
+            return operations;
+        }
+        Map<String, Integer> weights = new HashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            weights.put(parts[0], Integer.parseInt(parts[1]));
+        }
+        return operations
+            .stream()
+            .map(operation -> new Operation(operation.name(), weights.getOrDefault(operation.name(), operation.weight()), operation.request(), operation.onSuccess()))
+            .filter(operation -> operation.weight() > 0)
+            .toList();
+    }
+
+    private Map<String, LatencySamples> run(List<Operation> operations, int concurrency, Duration duration) throws Exception {
+        int[] cumulativeWeights = new int[operations.size()];
+        int totalWeight = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            totalWeight += operations.get(i).weight();
+            cumulativeWeights[i] = totalWeight;
+        }
+        long deadline = System.nanoTime() + duration.toNanos();
+        int weights = totalWeight;
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<Map<String, LatencySamples>>> results = new ArrayList<>();
+            for (int worker = 0; worker < concurrency; worker++) {
+                results.add(
+                    workers.submit(() -> {
+                        Map<String, LatencySamples> samples = new HashMap<>();
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        while (System.nanoTime() < deadline) {
+                            int pick = random.nextInt(weights);
+                            int index = 0;
+                            while (cumulativeWeights[index] <= pick) {
+                                index++;
+                            }
+                            execute(operations.get(index), random, samples);
+                        }
+                        return samples;
+                    })
+                );
+            }
+            Map<String, LatencySamples> merged = new LinkedHashMap<>();
+            for (Future<Map<String, LatencySamples>> result : results) {
+                result.get().forEach((operation, samples) -> merged.computeIfAbsent(operation, key -> new LatencySamples()).merge(samples));
+            }
+            return merged;
+        } finally {
+            workers.shutdownNow();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void execute(Operation operation, ThreadLocalRandom random, Map<String, LatencySamples> samples) throws InterruptedException {
+        HttpRequest request = operation.request().apply(random);
+        if (request == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean success;
+        HttpResponse<String> response = null;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            // a lost optimistic locking race is a valid answer to concurrent PUTs of the same protocol
+            success = response.statusCode() / 100 == 2 || response.statusCode() == 409;
+        } catch (IOException e) {
+            success = false;
+        }
+        samples.computeIfAbsent(operation.name(), key -> new LatencySamples()).record(System.nanoTime() - start, success);
+        if (success && response.statusCode() != 409 && operation.onSuccess() != null) {
+            operation.onSuccess().accept(response);
+        }
+    }
+
+    private long id(String table, ThreadLocalRandom random) {
+        long[] tableIds = ids.get(table);
+        return tableIds.length == 0 ? 0 : tableIds[random.nextInt(tableIds.length)];
+    }
+
+    private long mutableProtocol(ThreadLocalRandom random) {
+        return mutableProtocols.get(random.nextInt(mutableProtocols.length()));
+    }
+
+    private void rememberProtocolVersion(HttpResponse<String> response) {
+        Matcher version = VERSION.matcher(response.body());
+        if (version.find()) {
+            String path = response.uri().getPath();
+            protocolVersions.merge(Long.parseLong(path.substring(path.lastIndexOf('/') + 1)), Long.parseLong(version.group(1)), Math::max);
+        }
+    }
+
+    private static long createdId(HttpResponse<String> response) {
+        String location = response.headers().firstValue("Location").orElseThrow();
+        return Long.parseLong(location.substring(location.lastIndexOf('/') + 1));
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest send(String method, String path, String body) {
+        HttpRequest.Builder builder = request(path);
+        if (body == null) {
+            return builder.method(method, HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", "application/json").method(method, HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(uri(path)).header("Accept", "application/json").header(SessionStore.TOKEN_HEADER, token);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,232 @@
+package com.javabackend.backend.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.javabackend.backend.service.session.SessionStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Smoke tests of the native image built by {@code mvn -Pnative package}, they exercise the paths depending on
+ * reflection, proxies and resources: JSON and CBOR bodies, lazy associations, sparse fieldsets, NDJSON streams and the
+ * multi-get through the second level cache.
+ * <p>
+ * The binary is started once with {@code --server.port} and the arguments in {@code native.args}, e.g. the
+ * datasource, and needs a reachable PostgreSQL. The time from launching it to the first API response and its resident
+ * set size after the start and after the tests are written to {@value #REPORT}. Disabled in the normal build, run it
+ * with {@code mvn test -Dtest=NativeSmokeTests -Dnative.binary=target/backend
+ * [-Dnative.args="--spring.datasource.url=jdbc:postgresql://localhost:5432/postgres"]}.
+ */
+@EnabledIfSystemProperty(named = "native.binary", matches = ".+")
+class NativeSmokeTests {
+
+    private static final Logger log = LoggerFactory.getLogger(NativeSmokeTests.class);
+
+    private static final String REPORT = "target/benchmark/native.properties";
+
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(1);
+
+    private static final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final Properties report = new Properties();
+
+    private static Process process;
+
+    private static String baseUrl;
+
+    /**
+     * Session of a user with a role on an own organization, the protocol and user endpoints require one.
+     */
+    private static String token;
+
+    @BeforeAll
+    static void start() throws Exception {
+        int port = freePort();
+        baseUrl = "http://localhost:" + port;
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("native.binary")).toAbsolutePath().toString());
+        command.add("--server.port=" + port);
+        String args = System.getProperty("native.args", "").trim();
+        if (!args.isEmpty()) {
+            command.addAll(Arrays.asList(args.split("\\s+")));
+        }
+
+        long start = System.nanoTime();
+        process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(Path.of("target", "native-smoke.log").toFile())
+            .start();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/roles")).GET().build();
+        while (true) {
+            assertThat(process.isAlive()).as("native image exited, see target/native-smoke.log").isTrue();
+            assertThat(System.nanoTime() - start).as("startup time").isLessThan(START_TIMEOUT.toNanos());
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    break;
+                }
+            } catch (ConnectException e) {
+                // not listening yet
+            }
+            Thread.sleep(5);
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Native image answered after {} ms", millis);
+        report.setProperty("startup.millis", Long.toString(millis));
+        report.setProperty("rss.started.kib", Long.toString(residentSetKib()));
+        token = openSession();
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        if (process == null) {
+            return;
+        }
+        try {
+            report.setProperty("rss.tested.kib", Long.toString(residentSetKib()));
+            log.info("Native image: {}", report);
+            Files.createDirectories(Path.of(REPORT).getParent());
+            try (Writer writer = Files.newBufferedWriter(Path.of(REPORT))) {
+                report.store(writer, "Startup time of the native image in milliseconds, resident set size in KiB, -1 if unknown");
+            }
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    @Test
+    void createsAndReadsEntitiesAsJson() throws Exception {
+        JsonNode created = objectMapper.readTree(
+            send(
+                HttpRequest
+                    .newBuilder(URI.create(baseUrl + "/api/protocol-templates"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"native\",\"description\":\"smoke test\"}"))
+                    .build(),
+                201
+            )
+        );
+        long id = created.get("id").asLong();
+
+        JsonNode read = objectMapper.readTree(get("/api/protocol-templates/" + id, "application/json"));
+        assertThat(read.get("name").asText()).isEqualTo("native");
+        JsonNode byIds = objectMapper.readTree(get("/api/protocol-templates?ids=" + id + "," + id, "application/json"));
+        assertThat(byIds).hasSize(1);
+        assertThat(byIds.get(0).get("id").asLong()).isEqualTo(id);
+    }
+
+    @Test
+    void writesLazyAssociationsAndFieldsets() throws Exception {
+        assertThat(objectMapper.readTree(get("/api/protocols?page=0&size=10", "application/json")).isArray()).isTrue();
+        JsonNode fields = objectMapper.readTree(get("/api/protocols?page=0&size=10&fields=isDraft,organization", "application/json"));
+        assertThat(fields.isArray()).isTrue();
+        fields.forEach(protocol -> assertThat(protocol.has("createdOrEdited")).isFalse());
+        assertThat(objectMapper.readTree(get("/api/organizations", "application/json")).isArray()).isTrue();
+    }
+
+    @Test
+    void streamsNdjson() throws Exception {
+        String body = new String(get("/api/protocol-templates", "application/x-ndjson"));
+        for (String line : body.split("\n")) {
+            if (!line.isBlank()) {
+                assertThat(objectMapper.readTree(line).has("id")).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void answersCbor() throws Exception {
+        assertThat(new CBORMapper().readTree(get("/api/roles", "application/cbor")).isArray()).isTrue();
+    }
+
+    private static String openSession() throws IOException, InterruptedException {
+        long organizationId = post("/api/organizations", "{\"name\":\"native\"}").get("id").asLong();
+        long drkUserId = post("/api/drk-users", "{\"userName\":\"native\",\"password\":\"native\",\"organization\":{\"id\":" + organizationId + "}}")
+            .get("id")
+            .asLong();
+        long roleId = post("/api/roles", "{\"name\":\"native\"}").get("id").asLong();
+        post(
+            "/api/user-roles",
+            "{\"drkUser\":{\"id\":" + drkUserId + "},\"organization\":{\"id\":" + organizationId + "}," +
+            "\"role\":{\"id\":" + roleId + "}}"
+        );
+        return post("/api/user-sessions/open", "{\"userName\":\"native\",\"password\":\"native\"}").get("token").asText();
+    }
+
+    private static JsonNode post(String path, String json) throws IOException, InterruptedException {
+        return objectMapper.readTree(
+            send(
+                HttpRequest
+                    .newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build(),
+                201
+            )
+        );
+    }
+
+    private static byte[] get(String path, String accept) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest
+            .newBuilder(URI.create(baseUrl + path))
+            .header("Accept", accept)
+            .header(SessionStore.TOKEN_HEADER, token)
+            .GET()
+            .build();
+        return send(request, 200);
+    }
+
+    private static byte[] send(HttpRequest request, int status) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(response.statusCode()).as(request.uri().toString()).isEqualTo(status);
+        return response.body();
+    }
+
+    /**
+     * @return the resident set size of the native image in KiB from {@code /proc}, {@code -1} on other systems.
+     */
+    private static long residentSetKib() throws IOException {
+        Path status = Path.of("/proc", Long.toString(process.pid()), "status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        return Files
+            .readAllLines(status)
+            .stream()
+            .filter(line -> line.startsWith("VmRSS:"))
+            .map(line -> Long.parseLong(line.replaceAll("\\D", "")))
+            .findFirst()
+            .orElse(-1L);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.javabackend.backend.perf;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the time from launching the application JVM to the first successful API response, for the default start
+ * and the {@code fast-startup} profile.
+ * <p>
+ * Every mode is started {@code benchmark.rounds} times in a fresh JVM on the test classpath with the {@code perf}
+ * profile, the medians are reported. The AOT and class data sharing variants need the artifacts of the
+ * {@code fast-startup} Maven profile: {@code -Dstartup.aot=true} runs with the generated initializers on the classpath,
+ * {@code -Dstartup.cds-archive=target/fast-startup/application.jsa} adds the archive. Disabled in the normal build, run
+ * it with {@code mvn test -Dtest=StartupBenchmarkTests -Dbenchmark=true [-Dbenchmark.rounds=5]}. The results are
+ * written to {@value #REPORT}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StartupBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupBenchmarkTests.class);
+
+    private static final String REPORT = "target/benchmark/startup.properties";
+
+    private static final String MAIN_CLASS = "com.javabackend.backend.BackendApplication";
+
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(3);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    @Test
+    void defaultVersusFastStartup() throws Exception {
+        int rounds = Integer.getInteger("benchmark.rounds", 5);
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+        modes.put("default", List.of("-Dspring.profiles.active=perf"));
+        modes.put("lazy", List.of("-Dspring.profiles.active=perf,fast-startup"));
+        if (Boolean.getBoolean("startup.aot")) {
+            modes.put("aot", List.of("-Dspring.profiles.active=perf,fast-startup", "-Dspring.aot.enabled=true"));
+        }
+        String archive = System.getProperty("startup.cds-archive");
+        if (archive != null) {
+            modes.put(
+                "aot.cds",
+                List.of("-Dspring.profiles.active=perf,fast-startup", "-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + archive)
+            );
+        }
+
+        Properties report = new Properties();
+        Map<String, Long> medians = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+            long[] millis = new long[rounds];
+            for (int i = 0; i < rounds; i++) {
+                millis[i] = timeToFirstResponse(mode.getValue());
+            }
+            Arrays.sort(millis);
+            medians.put(mode.getKey(), millis[rounds / 2]);
+            log.info("{}: median {} ms of {}", mode.getKey(), millis[rounds / 2], Arrays.toString(millis));
+            report.setProperty(mode.getKey() + ".median", Long.toString(millis[rounds / 2]));
+            report.setProperty(mode.getKey() + ".min", Long.toString(millis[0]));
+            report.setProperty(mode.getKey() + ".max", Long.toString(millis[rounds - 1]));
+        }
+        Files.createDirectories(Path.of(REPORT).getParent());
+        try (Writer writer = Files.newBufferedWriter(Path.of(REPORT))) {
+            report.store(writer, "Milliseconds from JVM launch to the first API response, rounds=" + rounds);
+        }
+
+        assertThat(medians.get("lazy")).isLessThan(medians.get("default"));
+    }
+
+    /**
+     * @return the milliseconds from launching the JVM until {@code /api/roles} answered 200.
+     */
+    private long timeToFirstResponse(List<String> options) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(options);
+        command.add("-Dserver.port=" + port);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MAIN_CLASS);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/roles")).GET().build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            while (System.nanoTime() - start < START_TIMEOUT.toNanos()) {
+                assertThat(process.isAlive()).as("application exited with %s", command).isTrue();
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return (System.nanoTime() - start) / 1_000_000;
+                    }
+                } catch (ConnectException e) {
+                    // not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("Application did not answer within " + START_TIMEOUT);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
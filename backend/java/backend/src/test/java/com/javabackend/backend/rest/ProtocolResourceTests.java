@@ -0,0 +1,62 @@
+package com.javabackend.backend.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javabackend.backend.domain.Protocol;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Protocol writes publish an {@link EntityChangedEvent} like the writes of every other entity, so the invalidation bus
+ * forwards them to the other instances.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@RecordApplicationEvents
+class ProtocolResourceTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Test
+    void everyWritePublishesAnEntityChangedEvent() throws Exception {
+        String body = mockMvc
+            .perform(post("/api/protocols").contentType(MediaType.APPLICATION_JSON).content("{\"isDraft\":true}"))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        long id = objectMapper.readTree(body).get("id").asLong();
+        mockMvc
+            .perform(patch("/api/protocols/" + id).contentType(MediaType.APPLICATION_JSON).content("{\"id\":" + id + ",\"isDraft\":false}"))
+            .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/protocols/" + id)).andExpect(status().isNoContent());
+
+        assertThat(events.stream(EntityChangedEvent.class).filter(event -> event.isAbout(Protocol.class)))
+            .containsExactly(
+                new EntityChangedEvent(Protocol.class, id, EntityChangedEvent.Operation.CREATE),
+                new EntityChangedEvent(Protocol.class, id, EntityChangedEvent.Operation.UPDATE),
+                new EntityChangedEvent(Protocol.class, id, EntityChangedEvent.Operation.DELETE)
+            );
+    }
+}
@@ -0,0 +1,93 @@
+package com.javabackend.backend.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javabackend.backend.domain.ProtocolTemplate;
+import com.javabackend.backend.repository.ProtocolTemplateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Protocol templates are held in the second level cache, a write evicts the cached templates so no stale one is read.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProtocolTemplateResourceTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProtocolTemplateRepository protocolTemplateRepository;
+
+    private Long written;
+
+    private Long other;
+
+    @BeforeEach
+    void createTemplates() throws Exception {
+        written = protocolTemplateRepository.saveAndFlush(new ProtocolTemplate().name("written").description("old")).getId();
+        other = protocolTemplateRepository.saveAndFlush(new ProtocolTemplate().name("other").description("old")).getId();
+        read(written);
+        read(other);
+    }
+
+    @Test
+    void patchIsReadBack() throws Exception {
+        mockMvc
+            .perform(
+                patch("/api/protocol-templates/" + written)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"id\":" + written + ",\"description\":\"new\"}")
+            )
+            .andExpect(status().isOk());
+
+        assertThat(read(written).get("description").asText()).isEqualTo("new");
+        assertThat(read(other).get("description").asText()).isEqualTo("old");
+    }
+
+    @Test
+    void replacementIsReadBack() throws Exception {
+        long version = read(written).get("version").asLong();
+
+        mockMvc
+            .perform(
+                put("/api/protocol-templates/" + written)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"id\":" + written + ",\"version\":" + version + ",\"name\":\"replaced\"}")
+            )
+            .andExpect(status().isOk());
+
+        JsonNode result = read(written);
+        assertThat(result.get("name").asText()).isEqualTo("replaced");
+        assertThat(result.get("description").isNull()).isTrue();
+        assertThat(result.get("version").asLong()).isEqualTo(version + 1);
+        assertThat(read(other).get("description").asText()).isEqualTo("old");
+    }
+
+    private JsonNode read(Long id) throws Exception {
+        String body = mockMvc
+            .perform(get("/api/protocol-templates/" + id))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
@@ -0,0 +1,221 @@
+package com.javabackend.backend.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javabackend.backend.domain.DrkUser;
+import com.javabackend.backend.domain.UserSessions;
+import com.javabackend.backend.repository.DrkUserRepository;
+import com.javabackend.backend.repository.UserSessionsRepository;
+import com.javabackend.backend.service.session.PasswordService;
+import com.javabackend.backend.service.session.Session;
+import com.javabackend.backend.service.session.SessionStore;
+import org.apache.coyote.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The session tokens are bearer credentials, only the response opening a session with the password may contain one.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserSessionsResourceTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DrkUserRepository drkUserRepository;
+
+    @Autowired
+    private UserSessionsRepository userSessionsRepository;
+
+    @Autowired
+    private PasswordService passwordService;
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    private Long id;
+
+    private String token;
+
+    private String ownerToken;
+
+    @BeforeEach
+    void createSession() throws Exception {
+        // user names are not unique and the tests share the database, the password tells the owners apart
+        String password = UUID.randomUUID().toString();
+        DrkUser drkUser = drkUserRepository.saveAndFlush(new DrkUser().userName("session-owner").password(passwordService.encode(password)));
+        ownerToken = open("session-owner", password).get("token").asText();
+        String body = mockMvc
+            .perform(
+                post("/api/user-sessions")
+                    .header(SessionStore.TOKEN_HEADER, ownerToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"drkUser\":{\"id\":" + drkUser.getId() + "}}")
+            )
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        id = objectMapper.readTree(body).get("id").asLong();
+        token = userSessionsRepository.findById(id).map(UserSessions::getToken).orElseThrow();
+        assertThat(token).isNotBlank();
+        assertThat(body).doesNotContain(token);
+    }
+
+    @Test
+    void readsDoNotContainTheToken() throws Exception {
+        assertThat(getContent("/api/user-sessions")).contains("\"id\":" + id).doesNotContain(token).doesNotContain("\"token\"");
+        assertThat(getContent("/api/user-sessions/" + id)).doesNotContain(token).doesNotContain("\"token\"");
+        assertThat(getContent("/api/user-sessions?ids=" + id)).doesNotContain(token).doesNotContain("\"token\"");
+        assertThat(getContent("/api/user-sessions/" + id + "?fields=expiresAt")).doesNotContain(token);
+
+        String byIds = mockMvc
+            .perform(
+                post("/api/user-sessions/by-ids")
+                    .header(SessionStore.TOKEN_HEADER, ownerToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[" + id + "]")
+            )
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        assertThat(byIds).contains("\"id\":" + id).doesNotContain(token);
+
+        MvcResult stream = mockMvc
+            .perform(get("/api/user-sessions").header(SessionStore.TOKEN_HEADER, ownerToken).accept(MediaType.APPLICATION_NDJSON))
+            .andReturn();
+        String lines = mockMvc.perform(asyncDispatch(stream)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        assertThat(lines).contains("\"id\":" + id).doesNotContain(token);
+    }
+
+    @Test
+    void tokenIsNotASelectableField() throws Exception {
+        for (String url : List.of("/api/user-sessions?fields=token", "/api/user-sessions/" + id + "?fields=token")) {
+            assertThatThrownBy(() -> mockMvc.perform(get(url).header(SessionStore.TOKEN_HEADER, ownerToken)))
+                .isInstanceOf(BadRequestException.class);
+        }
+    }
+
+    @Test
+    void replaceKeepsTheToken() throws Exception {
+        mockMvc
+            .perform(
+                put("/api/user-sessions/" + id)
+                    .header(SessionStore.TOKEN_HEADER, ownerToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"id\":" + id + ",\"token\":\"chosen-by-client\",\"expiresAt\":\"2100-01-01T00:00:00Z\"}")
+            )
+            .andExpect(status().isOk());
+
+        assertThat(userSessionsRepository.findById(id).map(UserSessions::getToken)).contains(token);
+    }
+
+    @Test
+    void openingASessionReturnsItsToken() throws Exception {
+        DrkUser drkUser = drkUserRepository.saveAndFlush(new DrkUser().userName("session-opener").password(passwordService.encode("opener")));
+
+        JsonNode session = open("session-opener", "opener");
+        assertThat(session.get("token").asText()).isNotBlank();
+        assertThat(session.get("drkUserId").asLong()).isEqualTo(drkUser.getId());
+    }
+
+    @Test
+    void openingASessionNeedsThePassword() throws Exception {
+        for (String credentials : List.of(
+            "{\"userName\":\"session-owner\",\"password\":\"wrong\"}",
+            "{\"userName\":\"nobody\",\"password\":\"secret\"}"
+        )) {
+            mockMvc
+                .perform(post("/api/user-sessions/open").contentType(MediaType.APPLICATION_JSON).content(credentials))
+                .andExpect(status().isUnauthorized());
+        }
+    }
+
+    @Test
+    void writesNeedTheSessionOfTheOwner() throws Exception {
+        DrkUser other = drkUserRepository.saveAndFlush(new DrkUser().userName("session-other"));
+        mockMvc
+            .perform(post("/api/user-sessions").contentType(MediaType.APPLICATION_JSON).content("{\"drkUser\":{\"id\":" + other.getId() + "}}"))
+            .andExpect(status().isUnauthorized());
+        mockMvc
+            .perform(
+                post("/api/user-sessions")
+                    .header(SessionStore.TOKEN_HEADER, ownerToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"drkUser\":{\"id\":" + other.getId() + "}}")
+            )
+            .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/user-sessions/" + id)).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void readsOnlyReachTheSessionsOfTheUser() throws Exception {
+        DrkUser other = drkUserRepository.saveAndFlush(new DrkUser().userName("session-stranger"));
+        Long foreign = userSessionsRepository
+            .saveAndFlush(new UserSessions().token(UUID.randomUUID().toString()).expiresAt(Instant.now().plusSeconds(60)).drkUser(other))
+            .getId();
+
+        assertThat(getContent("/api/user-sessions")).contains("\"id\":" + id).doesNotContain("\"id\":" + foreign);
+        assertThat(getContent("/api/user-sessions?ids=" + foreign)).isEqualTo("[]");
+        mockMvc.perform(get("/api/user-sessions/" + foreign).header(SessionStore.TOKEN_HEADER, ownerToken)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/user-sessions/" + id)).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void sessionWrittenByAnotherInstanceIsFound() {
+        DrkUser drkUser = drkUserRepository.saveAndFlush(new DrkUser().userName("session-elsewhere"));
+        userSessionsRepository.saveAndFlush(new UserSessions().token("written-elsewhere").expiresAt(Instant.now().plusSeconds(60)).drkUser(drkUser));
+
+        assertThat(sessionStore.find("written-elsewhere")).map(Session::drkUserId).contains(drkUser.getId());
+    }
+
+    private JsonNode open(String userName, String password) throws Exception {
+        String body = mockMvc
+            .perform(
+                post("/api/user-sessions/open")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"userName\":\"" + userName + "\",\"password\":\"" + password + "\"}")
+            )
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private String getContent(String path) throws Exception {
+        return mockMvc
+            .perform(get(path).header(SessionStore.TOKEN_HEADER, ownerToken))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    }
+}
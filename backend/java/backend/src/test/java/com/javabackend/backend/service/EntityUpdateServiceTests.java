@@ -0,0 +1,82 @@
+package com.javabackend.backend.service;
+
+import com.javabackend.backend.domain.ProtocolTemplate;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class EntityUpdateServiceTests {
+
+    @Autowired
+    private EntityUpdateService entityUpdateService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private ProtocolTemplate template;
+
+    @BeforeEach
+    void createTemplate() {
+        template = new ProtocolTemplate().name("name").description("description").template("{}");
+        entityManager.persist(template);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void patchWritesOnlyTheSetAttributes() {
+        int rows = entityUpdateService.patch(ProtocolTemplate.class, template.getId(), new ProtocolTemplate().description("patched"));
+
+        assertThat(rows).isEqualTo(1);
+        ProtocolTemplate result = reload();
+        assertThat(result.getName()).isEqualTo("name");
+        assertThat(result.getDescription()).isEqualTo("patched");
+        assertThat(result.getTemplate()).isEqualTo("{}");
+        assertThat(result.getVersion()).isEqualTo(template.getVersion() + 1);
+    }
+
+    @Test
+    void patchOfUnknownIdAffectsNothing() {
+        assertThat(entityUpdateService.patch(ProtocolTemplate.class, Long.MAX_VALUE, new ProtocolTemplate().name("x"))).isZero();
+    }
+
+    @Test
+    void replaceOverwritesAllAttributesOfTheReadVersion() {
+        ProtocolTemplate replacement = new ProtocolTemplate().name("replaced");
+
+        int rows = entityUpdateService.replace(ProtocolTemplate.class, template.getId(), template.getVersion(), replacement);
+
+        assertThat(rows).isEqualTo(1);
+        ProtocolTemplate result = reload();
+        assertThat(result.getName()).isEqualTo("replaced");
+        assertThat(result.getDescription()).isNull();
+        assertThat(result.getVersion()).isEqualTo(template.getVersion() + 1);
+    }
+
+    @Test
+    void replaceOfStaleVersionAffectsNothing() {
+        int rows = entityUpdateService.replace(
+            ProtocolTemplate.class,
+            template.getId(),
+            template.getVersion() + 1,
+            new ProtocolTemplate().name("stale")
+        );
+
+        assertThat(rows).isZero();
+        assertThat(reload().getName()).isEqualTo("name");
+    }
+
+    private ProtocolTemplate reload() {
+        entityManager.clear();
+        return entityManager.find(ProtocolTemplate.class, template.getId());
+    }
+}
@@ -0,0 +1,83 @@
+package com.javabackend.backend.service;
+
+import com.javabackend.backend.domain.Organization;
+import com.javabackend.backend.domain.Protocol;
+import com.javabackend.backend.domain.ProtocolStatistics;
+import com.javabackend.backend.repository.OrganizationRepository;
+import com.javabackend.backend.repository.ProtocolRepository;
+import com.javabackend.backend.repository.ProtocolStatisticsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The rebuild counts in transactions of its own, so the protocols are committed and deleted after each test.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProtocolStatisticsServiceTests {
+
+    private static final Instant CREATED = Instant.parse("2024-03-01T10:00:00Z");
+
+    private static final LocalDate DAY = LocalDate.ofInstant(CREATED, ZoneId.of("Europe/Berlin"));
+
+    @Autowired
+    private ProtocolStatisticsService protocolStatisticsService;
+
+    @Autowired
+    private ProtocolStatisticsRepository protocolStatisticsRepository;
+
+    @Autowired
+    private OrganizationRepository organizationRepository;
+
+    @Autowired
+    private ProtocolRepository protocolRepository;
+
+    private Organization organization;
+
+    private List<Protocol> protocols;
+
+    @BeforeEach
+    void createProtocols() {
+        organization = organizationRepository.saveAndFlush(new Organization().name("statistics"));
+        protocols = protocolRepository.saveAllAndFlush(
+            List.of(
+                new Protocol().isDraft(true).isClosed(false).createdOrEdited(CREATED).organization(organization),
+                new Protocol().isDraft(false).isClosed(true).createdOrEdited(CREATED).organization(organization),
+                new Protocol().isDraft(false).isClosed(true).createdOrEdited(CREATED).organization(organization)
+            )
+        );
+    }
+
+    @AfterEach
+    void deleteProtocols() {
+        protocolRepository.deleteAll(protocols);
+        protocolStatisticsRepository.deleteAll(protocolStatisticsRepository.findAllBetween(organization.getId(), DAY, DAY));
+        organizationRepository.delete(organization);
+    }
+
+    @Test
+    void rebuildReplacesDriftedRollups() {
+        protocolStatisticsRepository.saveAndFlush(
+            new ProtocolStatistics().organizationId(organization.getId()).day(DAY).draftCount(7L).openCount(3L).closedCount(0L)
+        );
+
+        assertThat(protocolStatisticsService.rebuild()).isPositive();
+
+        List<ProtocolStatistics> rollups = protocolStatisticsRepository.findAllBetween(organization.getId(), DAY, DAY);
+        assertThat(rollups).hasSize(1);
+        assertThat(rollups.get(0).getDraftCount()).isEqualTo(1L);
+        assertThat(rollups.get(0).getOpenCount()).isZero();
+        assertThat(rollups.get(0).getClosedCount()).isEqualTo(2L);
+    }
+}
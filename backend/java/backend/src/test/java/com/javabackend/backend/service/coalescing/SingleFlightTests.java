@@ -0,0 +1,115 @@
+package com.javabackend.backend.service.coalescing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTests {
+
+    private static final long REUSE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static final long WAIT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>(REUSE_NANOS, WAIT_NANOS, value -> !value.isEmpty());
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareTheRunningLoad() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> first = executor.submit(() -> singleFlight.execute("key", () -> blockingLoad("first", started, release)));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Future<String> second = executor.submit(() -> singleFlight.execute("key", () -> load("second")));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void reusableResultIsReusedUntilCleared() throws Exception {
+        assertThat(singleFlight.execute("key", () -> load("first"))).isEqualTo("first");
+        assertThat(singleFlight.execute("key", () -> load("second"))).isEqualTo("first");
+
+        singleFlight.clear();
+
+        assertThat(singleFlight.execute("key", () -> load("third"))).isEqualTo("third");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void otherResultsAreNotReused() throws Exception {
+        assertThat(singleFlight.execute("key", () -> load(""))).isEmpty();
+        assertThat(singleFlight.execute("key", () -> load("second"))).isEqualTo("second");
+        assertThat(singleFlight.size()).isEqualTo(1);
+    }
+
+    @Test
+    void failedLoadIsNotShared() throws Exception {
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> { throw new IllegalStateException("failed"); }))
+            .isInstanceOf(IllegalStateException.class);
+
+        assertThat(singleFlight.execute("key", () -> load("second"))).isEqualTo("second");
+    }
+
+    @Test
+    void callerAfterClearDoesNotJoinTheRunningLoad() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> before = executor.submit(() -> singleFlight.execute("key", () -> blockingLoad("stale", started, release)));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        singleFlight.clear();
+
+        assertThat(singleFlight.execute("key", () -> load("fresh"))).isEqualTo("fresh");
+        release.countDown();
+        assertThat(before.get(5, TimeUnit.SECONDS)).isEqualTo("stale");
+        // the detached load neither replaces nor removes the fresh result
+        assertThat(singleFlight.execute("key", () -> load("later"))).isEqualTo("fresh");
+    }
+
+    @Test
+    void evictExpiredForgetsResultsAfterTheWindow() throws Exception {
+        SingleFlight<String, String> shortReuse = new SingleFlight<>(TimeUnit.MILLISECONDS.toNanos(1), WAIT_NANOS, value -> true);
+        shortReuse.execute("key", () -> load("value"));
+        singleFlight.execute("key", () -> load("value"));
+        Thread.sleep(10);
+
+        shortReuse.evictExpired();
+        singleFlight.evictExpired();
+
+        assertThat(shortReuse.size()).isZero();
+        assertThat(singleFlight.size()).isEqualTo(1);
+    }
+
+    private String load(String value) {
+        loads.incrementAndGet();
+        return value;
+    }
+
+    private String blockingLoad(String value, CountDownLatch started, CountDownLatch release) throws InterruptedException {
+        started.countDown();
+        release.await(5, TimeUnit.SECONDS);
+        return load(value);
+    }
+}
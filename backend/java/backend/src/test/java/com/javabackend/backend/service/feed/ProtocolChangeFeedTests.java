@@ -0,0 +1,102 @@
+package com.javabackend.backend.service.feed;
+
+import com.javabackend.backend.service.event.ProtocolChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProtocolChangeFeedTests {
+
+    private static final Duration WRITE_TIMEOUT = Duration.ofMillis(50);
+
+    private final ProtocolChangeFeed feed = new ProtocolChangeFeed(null, null, null, 1, 16, Duration.ofMinutes(1), WRITE_TIMEOUT);
+
+    @AfterEach
+    void close() {
+        feed.close();
+    }
+
+    @Test
+    void stalledClientIsDroppedAndDoesNotBlockTheOthers() throws Exception {
+        StallingEmitter stalled = new StallingEmitter();
+        feed.subscribe(stalled, organizationId -> true);
+        feed.onProtocolChanged(event(1L));
+        assertThat(stalled.writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // the only sender is blocked by the stalled client
+        RecordingEmitter healthy = new RecordingEmitter();
+        feed.subscribe(healthy, organizationId -> true);
+        feed.onProtocolChanged(event(2L));
+        assertThat(healthy.received.await(WRITE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)).isFalse();
+
+        Thread.sleep(WRITE_TIMEOUT.toMillis() * 2);
+        feed.dropStalledSubscribers();
+
+        assertThat(feed.size()).isEqualTo(1);
+        assertThat(healthy.received.await(5, TimeUnit.SECONDS)).isTrue();
+
+        stalled.release.countDown();
+        assertThat(stalled.failed.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void slowButFinishingWritesAreNotDropped() throws Exception {
+        RecordingEmitter healthy = new RecordingEmitter();
+        feed.subscribe(healthy, organizationId -> true);
+        feed.onProtocolChanged(event(1L));
+
+        assertThat(healthy.received.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(WRITE_TIMEOUT.toMillis() * 2);
+        feed.dropStalledSubscribers();
+        assertThat(feed.size()).isEqualTo(1);
+    }
+
+    private static ProtocolChangedEvent event(Long id) {
+        return new ProtocolChangedEvent(id, 1L, ProtocolChangedEvent.State.OPEN, Instant.now());
+    }
+
+    /**
+     * A client which stops reading, its first write blocks until released.
+     */
+    private static class StallingEmitter extends SseEmitter {
+
+        private final CountDownLatch writing = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private final CountDownLatch failed = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            failed.countDown();
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final CountDownLatch received = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            received.countDown();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.javabackend.backend.service.id;
+
+import com.javabackend.backend.domain.id.TimeOrderedId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The leases are plain committed updates of the id_node table, the instances of a test stand for other application
+ * instances next to the one of the context.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class IdNodeLeaseTests {
+
+    private static final int NODE_BITS = 4;
+
+    @Autowired
+    private IdNodeLease contextLease;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<IdNodeLease> instances = new ArrayList<>();
+
+    @AfterEach
+    void stopInstances() {
+        instances.forEach(IdNodeLease::stop);
+        Integer node = contextLease.node();
+        TimeOrderedId.setNode(node != null ? node : 0, node != null ? NODE_BITS : 0);
+    }
+
+    @Test
+    void instancesLeaseDistinctNodes() {
+        IdNodeLease first = start();
+        IdNodeLease second = start();
+
+        assertThat(contextLease.node()).isNotNull();
+        assertThat(first.node()).isNotNull();
+        assertThat(second.node()).isNotNull();
+        assertThat(List.of(contextLease.node(), first.node(), second.node())).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void stoppedInstanceFreesItsNode() {
+        IdNodeLease first = start();
+        Integer node = first.node();
+        first.stop();
+
+        assertThat(start().node()).isEqualTo(node);
+    }
+
+    @Test
+    void instanceWithAnExpiredLeaseLeasesAnotherNode() {
+        IdNodeLease first = start();
+        Integer node = first.node();
+        jdbcTemplate.update("update id_node set renewed_at = ? where id = ?", Timestamp.from(Instant.EPOCH), node);
+        IdNodeLease second = start();
+        assertThat(second.node()).isEqualTo(node);
+
+        first.renew();
+
+        assertThat(first.node()).isNotNull().isNotEqualTo(node);
+    }
+
+    @Test
+    void configuredNodeIsNotLeased() {
+        IdNodeLease configured = new IdNodeLease(jdbcTemplate, NODE_BITS, 15, Duration.ofMinutes(1));
+        instances.add(configured);
+        configured.start();
+
+        assertThat(configured.node()).isEqualTo(15);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from id_node where id = 15", Integer.class)).isZero();
+    }
+
+    private IdNodeLease start() {
+        IdNodeLease instance = new IdNodeLease(jdbcTemplate, NODE_BITS, -1, Duration.ofMinutes(1));
+        instances.add(instance);
+        instance.start();
+        return instance;
+    }
+}
@@ -0,0 +1,132 @@
+package com.javabackend.backend.service.permission;
+
+import com.javabackend.backend.domain.Organization;
+import com.javabackend.backend.repository.OrganizationRepository;
+import com.javabackend.backend.service.event.EntityChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The tree is numbered in its own transaction, so the organizations are committed and deleted after each test.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrganizationTreeTests {
+
+    @Autowired
+    private OrganizationTree organizationTree;
+
+    @Autowired
+    private OrganizationRepository organizationRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final List<Organization> created = new ArrayList<>();
+
+    private Organization root;
+
+    private Organization left;
+
+    private Organization right;
+
+    private Organization leaf;
+
+    @BeforeEach
+    void createTree() {
+        root = save(new Organization().name("root"));
+        left = save(new Organization().name("left").parentId(root.getId()));
+        right = save(new Organization().name("right").parentId(root.getId()));
+        leaf = save(new Organization().name("leaf").parentId(left.getId()));
+        organizationTree.rebuild();
+    }
+
+    @AfterEach
+    void deleteTree() {
+        organizationRepository.deleteAllById(created.stream().map(Organization::getId).toList());
+        organizationTree.rebuild();
+    }
+
+    @Test
+    void descendantsLieWithinTheIntervalOfTheirAncestors() {
+        assertThat(organizationTree.isInSubtree(root.getId(), root.getId())).isTrue();
+        assertThat(organizationTree.isInSubtree(root.getId(), leaf.getId())).isTrue();
+        assertThat(organizationTree.isInSubtree(left.getId(), leaf.getId())).isTrue();
+        assertThat(organizationTree.isInSubtree(right.getId(), leaf.getId())).isFalse();
+        assertThat(organizationTree.isInSubtree(leaf.getId(), left.getId())).isFalse();
+        assertThat(organizationTree.isInSubtree(root.getId(), Long.MAX_VALUE)).isFalse();
+    }
+
+    @Test
+    void numbersAreStoredInTheOrganizationRows() {
+        Organization stored = organizationRepository.findById(leaf.getId()).orElseThrow();
+
+        OrganizationTree.Interval interval = organizationTree.interval(leaf.getId());
+        assertThat(stored.getTreeLeft()).isEqualTo(interval.left());
+        assertThat(stored.getTreeRight()).isEqualTo(interval.right());
+    }
+
+    @Test
+    void subtreesAreMergedAndSorted() {
+        OrganizationTree.Interval rootInterval = organizationTree.interval(root.getId());
+
+        assertThat(organizationTree.subtrees(List.of(leaf.getId(), root.getId()))).containsExactly(rootInterval);
+        assertThat(organizationTree.subtrees(List.of(right.getId(), leaf.getId())))
+            .containsExactly(organizationTree.interval(leaf.getId()), organizationTree.interval(right.getId()));
+        assertThat(organizationTree.subtrees(List.of(right.getId(), left.getId())))
+            .containsExactly(new OrganizationTree.Interval(rootInterval.left() + 1, rootInterval.right() - 1));
+        assertThat(organizationTree.subtrees(List.of(Long.MAX_VALUE))).isEmpty();
+    }
+
+    @Test
+    void moveRenumbersTheSubtree() {
+        organizationRepository.saveAndFlush(organizationRepository.findById(left.getId()).orElseThrow().parentId(right.getId()));
+        organizationTree.rebuild();
+
+        assertThat(organizationTree.isInSubtree(right.getId(), leaf.getId())).isTrue();
+        assertThat(organizationTree.isInSubtree(root.getId(), leaf.getId())).isTrue();
+    }
+
+    @Test
+    void membersOfParentCyclesGetAnInterval() {
+        Organization first = save(new Organization().name("first"));
+        Organization second = save(new Organization().name("second").parentId(first.getId()));
+        organizationRepository.saveAndFlush(organizationRepository.findById(first.getId()).orElseThrow().parentId(second.getId()));
+        organizationTree.rebuild();
+
+        assertThat(organizationTree.interval(first.getId())).isNotNull();
+        assertThat(organizationTree.interval(second.getId())).isNotNull();
+        assertThat(organizationTree.isInSubtree(root.getId(), first.getId())).isFalse();
+    }
+
+    @Test
+    void writesAreRenumberedInTheBackground() throws InterruptedException {
+        Organization added = save(new Organization().name("added").parentId(right.getId()));
+        for (int i = 0; i < 10; i++) {
+            eventPublisher.publishEvent(new EntityChangedEvent(Organization.class, added.getId(), EntityChangedEvent.Operation.CREATE));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (organizationTree.interval(added.getId()) == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(organizationTree.isInSubtree(right.getId(), added.getId())).isTrue();
+    }
+
+    private Organization save(Organization organization) {
+        Organization saved = organizationRepository.saveAndFlush(organization);
+        created.add(saved);
+        return saved;
+    }
+}
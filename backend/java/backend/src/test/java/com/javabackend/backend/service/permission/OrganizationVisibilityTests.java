@@ -0,0 +1,210 @@
+package com.javabackend.backend.service.permission;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javabackend.backend.domain.DrkUser;
+import com.javabackend.backend.domain.Organization;
+import com.javabackend.backend.domain.Protocol;
+import com.javabackend.backend.domain.ProtocolPdfFile;
+import com.javabackend.backend.domain.Role;
+import com.javabackend.backend.domain.UserRole;
+import com.javabackend.backend.repository.DrkUserRepository;
+import com.javabackend.backend.repository.OrganizationRepository;
+import com.javabackend.backend.repository.ProtocolPdfFileRepository;
+import com.javabackend.backend.repository.ProtocolRepository;
+import com.javabackend.backend.repository.RoleRepository;
+import com.javabackend.backend.repository.UserRoleRepository;
+import com.javabackend.backend.service.event.ProtocolChangedEvent;
+import com.javabackend.backend.service.session.SessionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A user with a role on one organization sees the protocols of it and its descendants, on every read path and in the
+ * sync. PDF files follow their protocol, files without a protocol are seen by every user.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrganizationVisibilityTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrganizationRepository organizationRepository;
+
+    @Autowired
+    private DrkUserRepository drkUserRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+
+    @Autowired
+    private ProtocolRepository protocolRepository;
+
+    @Autowired
+    private ProtocolPdfFileRepository protocolPdfFileRepository;
+
+    @Autowired
+    private OrganizationTree organizationTree;
+
+    @Autowired
+    private PermissionIndex permissionIndex;
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Long visible;
+
+    private Long hidden;
+
+    private Long visibleFile;
+
+    private Long hiddenFile;
+
+    private Long orphanFile;
+
+    private String token;
+
+    @BeforeEach
+    void createProtocols() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        Organization parent = organizationRepository.saveAndFlush(new Organization().name("visible"));
+        Organization child = organizationRepository.saveAndFlush(new Organization().name("visible child").parentId(parent.getId()));
+        Organization other = organizationRepository.saveAndFlush(new Organization().name("hidden"));
+        DrkUser drkUser = drkUserRepository.saveAndFlush(new DrkUser().userName("visibility").organization(parent));
+        Role role = roleRepository.saveAndFlush(new Role().name("visibility"));
+        userRoleRepository.saveAndFlush(new UserRole().drkUser(drkUser).organization(parent).role(role));
+        ProtocolPdfFile visiblePdf = protocolPdfFileRepository.saveAndFlush(new ProtocolPdfFile().mimeType("application/pdf"));
+        ProtocolPdfFile hiddenPdf = protocolPdfFileRepository.saveAndFlush(new ProtocolPdfFile().mimeType("application/pdf"));
+        visibleFile = visiblePdf.getId();
+        hiddenFile = hiddenPdf.getId();
+        orphanFile = protocolPdfFileRepository.saveAndFlush(new ProtocolPdfFile().mimeType("application/pdf")).getId();
+        visible = protocolRepository.saveAndFlush(new Protocol().isDraft(true).organization(child).protocolPdfFile(visiblePdf)).getId();
+        hidden = protocolRepository.saveAndFlush(new Protocol().isDraft(true).organization(other).protocolPdfFile(hiddenPdf)).getId();
+        organizationTree.rebuild();
+        permissionIndex.rebuild();
+        token = sessionStore.open(drkUser.getId()).token();
+    }
+
+    @Test
+    void requestsWithoutSessionAreRejected() throws Exception {
+        for (String path : List.of(
+            "/api/protocols",
+            "/api/protocols/" + visible,
+            "/api/protocols/" + visible + "?fields=isDraft",
+            "/api/protocols/" + visible + "/bundle",
+            "/api/protocols?ids=" + visible,
+            "/api/protocols/changes",
+            "/api/drk-users",
+            "/api/protocol-pdf-files",
+            "/api/sync"
+        )) {
+            mockMvc.perform(get(path)).andExpect(status().isUnauthorized());
+        }
+    }
+
+    @Test
+    void listContainsOnlyVisibleProtocols() throws Exception {
+        List<Long> ids = ids(read("/api/protocols?size=1000"));
+
+        assertThat(ids).contains(visible).doesNotContain(hidden);
+    }
+
+    @Test
+    void singleProtocolPathsHideInvisibleProtocols() throws Exception {
+        for (String path : List.of("/api/protocols/%d", "/api/protocols/%d?fields=isDraft", "/api/protocols/%d/bundle")) {
+            mockMvc.perform(get(path.formatted(visible)).header(SessionStore.TOKEN_HEADER, token)).andExpect(status().isOk());
+            mockMvc.perform(get(path.formatted(hidden)).header(SessionStore.TOKEN_HEADER, token)).andExpect(status().isNotFound());
+        }
+    }
+
+    @Test
+    void multiGetSkipsInvisibleProtocols() throws Exception {
+        assertThat(ids(read("/api/protocols?ids=" + hidden + "," + visible))).containsExactly(visible);
+    }
+
+    @Test
+    void protocolPdfFilesFollowTheirProtocol() throws Exception {
+        assertThat(ids(read("/api/protocol-pdf-files?limit=5000"))).contains(visibleFile, orphanFile).doesNotContain(hiddenFile);
+        assertThat(ids(read("/api/protocol-pdf-files?ids=" + hiddenFile + "," + orphanFile + "," + visibleFile)))
+            .containsExactly(orphanFile, visibleFile);
+        for (String path : List.of("/api/protocol-pdf-files/%d", "/api/protocol-pdf-files/%d?fields=mimeType")) {
+            mockMvc.perform(get(path.formatted(visibleFile)).header(SessionStore.TOKEN_HEADER, token)).andExpect(status().isOk());
+            mockMvc.perform(get(path.formatted(orphanFile)).header(SessionStore.TOKEN_HEADER, token)).andExpect(status().isOk());
+            mockMvc.perform(get(path.formatted(hiddenFile)).header(SessionStore.TOKEN_HEADER, token)).andExpect(status().isNotFound());
+        }
+    }
+
+    @Test
+    void protocolIsNullFilterFindsFilesWithoutProtocol() throws Exception {
+        assertThat(ids(read("/api/protocol-pdf-files?filter=protocol-is-null&limit=5000")))
+            .contains(orphanFile)
+            .doesNotContain(visibleFile, hiddenFile);
+    }
+
+    @Test
+    void syncHandsOutOnlyVisibleChanges() throws Exception {
+        long watermark = read("/api/sync?limit=5000").get("watermark").asLong();
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(ProtocolChangedEvent.of(protocolRepository.findById(visible).orElseThrow()));
+            eventPublisher.publishEvent(ProtocolChangedEvent.of(protocolRepository.findById(hidden).orElseThrow()));
+        });
+        Long other = organizationRepository.saveAndFlush(new Organization().name("other")).getId();
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(ProtocolChangedEvent.deleted(visible + 1_000_000, null));
+            eventPublisher.publishEvent(ProtocolChangedEvent.deleted(hidden + 1_000_000, other));
+        });
+
+        JsonNode changes = read("/api/sync?limit=5000&since=" + watermark);
+
+        assertThat(ids(changes.get("protocols"))).containsExactly(visible);
+        assertThat(ids(changes.get("deleted"))).containsExactly(visible + 1_000_000);
+    }
+
+    private JsonNode read(String path) throws Exception {
+        String body = mockMvc
+            .perform(get(path).header(SessionStore.TOKEN_HEADER, token))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private static List<Long> ids(JsonNode protocols) {
+        List<Long> ids = new ArrayList<>();
+        protocols.forEach(protocol -> ids.add(protocol.get("id").asLong()));
+        return ids;
+    }
+}
@@ -0,0 +1,101 @@
+package com.javabackend.backend.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTests {
+
+    private static final RateLimiter.Rate SLOW = RateLimiter.Rate.of(0.01, 3);
+
+    private static final RateLimiter.Rate FAST = RateLimiter.Rate.of(1000, 1);
+
+    private final RateLimiter rateLimiter = new RateLimiter();
+
+    @Test
+    void rateOfBudget() {
+        RateLimiter.Rate rate = RateLimiter.Rate.of(2, 10);
+
+        assertThat(rate.intervalNanos()).isEqualTo(500_000_000L);
+        assertThat(rate.toleranceNanos()).isEqualTo(9 * 500_000_000L);
+    }
+
+    @Test
+    void burstIsTakenAtOnceThenTheClientWaitsOneInterval() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimiter.acquire("budget", "client", SLOW)).isZero();
+        }
+
+        assertThat(rateLimiter.acquire("budget", "client", SLOW)).isPositive().isLessThanOrEqualTo(SLOW.intervalNanos());
+    }
+
+    @Test
+    void clientsAndBudgetsHaveTheirOwnBuckets() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire("budget", "client", SLOW);
+        }
+
+        assertThat(rateLimiter.acquire("budget", "other client", SLOW)).isZero();
+        assertThat(rateLimiter.acquire("other budget", "client", SLOW)).isZero();
+        assertThat(rateLimiter.size()).isEqualTo(3);
+    }
+
+    @Test
+    void tokenIsEarnedAfterTheInterval() throws InterruptedException {
+        assertThat(rateLimiter.acquire("budget", "client", FAST)).isZero();
+        assertThat(rateLimiter.acquire("budget", "client", FAST)).isPositive();
+
+        TimeUnit.NANOSECONDS.sleep(FAST.intervalNanos() * 5);
+
+        assertThat(rateLimiter.acquire("budget", "client", FAST)).isZero();
+    }
+
+    @Test
+    void concurrentClientsTakeExactlyTheBurst() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Integer>> workers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                workers.add(() -> {
+                    int taken = 0;
+                    for (int j = 0; j < 1000; j++) {
+                        if (rateLimiter.acquire("budget", "client", SLOW) == 0) {
+                            taken++;
+                        }
+                    }
+                    return taken;
+                });
+            }
+            int taken = 0;
+            for (Future<Integer> worker : executor.invokeAll(workers)) {
+                taken += worker.get();
+            }
+
+            assertThat(taken).isEqualTo(3);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void sweepRemovesOnlyFullBuckets() throws InterruptedException {
+        rateLimiter.acquire("budget", "refilled", FAST);
+        rateLimiter.acquire("budget", "drained", SLOW);
+        TimeUnit.NANOSECONDS.sleep(FAST.intervalNanos() * 5);
+
+        rateLimiter.sweep();
+
+        assertThat(rateLimiter.size()).isEqualTo(1);
+        assertThat(rateLimiter.acquire("budget", "drained", SLOW)).isZero();
+        assertThat(rateLimiter.acquire("budget", "drained", SLOW)).isZero();
+        assertThat(rateLimiter.acquire("budget", "drained", SLOW)).isPositive();
+    }
+}
@@ -0,0 +1,75 @@
+package com.javabackend.backend.service.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimerWheelTests {
+
+    private static final long TICK = 1000;
+
+    private static final long START = 1_700_000_000_000L;
+
+    private final TimerWheel<String> wheel = new TimerWheel<>(TICK, START);
+
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    void expiresValuesOnceTheirDeadlineHasPassed() {
+        wheel.schedule("a", START + 5 * TICK);
+        wheel.schedule("b", START + 10 * TICK);
+
+        wheel.advance(START + 4 * TICK, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advance(START + 5 * TICK, expired::add);
+        assertThat(expired).containsExactly("a");
+
+        wheel.advance(START + 10 * TICK, expired::add);
+        assertThat(expired).containsExactly("a", "b");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void roundsDeadlinesUpToTheNextTick() {
+        wheel.schedule("a", START + 2 * TICK + 1);
+
+        wheel.advance(START + 2 * TICK, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advance(START + 3 * TICK, expired::add);
+        assertThat(expired).containsExactly("a");
+    }
+
+    @Test
+    void pastDeadlinesExpireWithTheNextTick() {
+        wheel.schedule("a", START - 60 * TICK);
+
+        wheel.advance(START, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advance(START + TICK, expired::add);
+        assertThat(expired).containsExactly("a");
+    }
+
+    @Test
+    void cascadesDeadlinesOfTheHigherLevelsAndTheOverflow() {
+        long[] offsets = { 63, 64, 65, 4095, 4096, 4097, 262_143, 262_145, 16_777_215, 16_777_217, 20_000_000 };
+        for (long offset : offsets) {
+            wheel.schedule(Long.toString(offset), START + offset * TICK);
+        }
+        assertThat(wheel.size()).isEqualTo(offsets.length);
+
+        for (long offset : offsets) {
+            wheel.advance(START + (offset - 1) * TICK, expired::add);
+            assertThat(expired).as("before %d", offset).doesNotContain(Long.toString(offset));
+            wheel.advance(START + offset * TICK, expired::add);
+            assertThat(expired).as("at %d", offset).endsWith(Long.toString(offset));
+        }
+        assertThat(expired).hasSize(offsets.length);
+        assertThat(wheel.size()).isZero();
+    }
+}
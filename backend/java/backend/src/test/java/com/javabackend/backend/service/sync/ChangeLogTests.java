@@ -0,0 +1,134 @@
+package com.javabackend.backend.service.sync;
+
+import com.javabackend.backend.domain.EntityChange.EntityType;
+import com.javabackend.backend.service.event.ProtocolChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The changes are written by the listeners of committing transactions, so every write is committed on its own.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ChangeLogTests {
+
+    private static final long FIRST = 900_000_001L;
+
+    private static final long SECOND = 900_000_002L;
+
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private long watermark;
+
+    @BeforeEach
+    void readToTheEnd() {
+        // the test context binds a mock request to the test thread, the log is read like by a scheduled job here
+        RequestContextHolder.resetRequestAttributes();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        ChangeSet changes;
+        do {
+            changes = changesSince(watermark);
+            watermark = changes.watermark();
+        } while (changes.hasMore());
+    }
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void changeIsHandedOutOnce() {
+        delete(FIRST);
+
+        ChangeSet changes = changesSince(watermark);
+        assertThat(changes.deleted()).containsExactly(new ChangeSet.Tombstone(EntityType.PROTOCOL, FIRST));
+        assertThat(changes.watermark()).isGreaterThan(watermark);
+        assertThat(changesSince(changes.watermark()).deleted()).isEmpty();
+    }
+
+    @Test
+    void newerChangeReplacesTheLoggedOne() {
+        delete(FIRST);
+        long afterFirst = changesSince(watermark).watermark();
+        delete(FIRST);
+
+        assertThat(changesSince(watermark).deleted()).containsExactly(new ChangeSet.Tombstone(EntityType.PROTOCOL, FIRST));
+        assertThat(changesSince(afterFirst).deleted()).containsExactly(new ChangeSet.Tombstone(EntityType.PROTOCOL, FIRST));
+    }
+
+    @Test
+    void runningWriteIsHandedOutAfterItsCommit() throws Exception {
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> first = executor.submit(() ->
+            transactionTemplate.executeWithoutResult(status -> {
+                eventPublisher.publishEvent(ProtocolChangedEvent.deleted(FIRST, null));
+                // runs after the change has been logged, keeps the transaction open
+                TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void beforeCommit(boolean readOnly) {
+                            recorded.countDown();
+                            await(release);
+                        }
+                    }
+                );
+            })
+        );
+        assertThat(recorded.await(5, TimeUnit.SECONDS)).isTrue();
+
+        executor.submit(() -> delete(SECOND)).get(5, TimeUnit.SECONDS);
+        ChangeSet beforeCommit = changesSince(watermark);
+        assertThat(beforeCommit.deleted()).containsExactly(new ChangeSet.Tombstone(EntityType.PROTOCOL, SECOND));
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertThat(changesSince(beforeCommit.watermark()).deleted()).containsExactly(new ChangeSet.Tombstone(EntityType.PROTOCOL, FIRST));
+    }
+
+    private void delete(long protocolId) {
+        transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(ProtocolChangedEvent.deleted(protocolId, null)));
+    }
+
+    private ChangeSet changesSince(long since) {
+        return transactionTemplate.execute(status -> changeLog.changesSince(since, 5000));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
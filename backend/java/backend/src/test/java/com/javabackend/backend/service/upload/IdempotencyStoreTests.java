@@ -0,0 +1,147 @@
+package com.javabackend.backend.service.upload;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javabackend.backend.domain.IdempotencyKey;
+import com.javabackend.backend.repository.IdempotencyKeyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The keys are taken by committing transactions, so every write is committed on its own.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyStoreTests {
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final List<String> keys = new ArrayList<>();
+
+    @BeforeEach
+    void initTransactionTemplate() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void deleteKeys() {
+        transactionTemplate.executeWithoutResult(status ->
+            idempotencyKeyRepository.deleteAll(idempotencyKeyRepository.findAllByKeys(keys))
+        );
+    }
+
+    @Test
+    void committedResultIsFound() {
+        ProtocolUpload.Result result = result(1L);
+
+        transactionTemplate.executeWithoutResult(status -> idempotencyStore.remember(List.of(result)));
+
+        assertThat(idempotencyStore.find(List.of(result.idempotencyKey(), key()))).isEqualTo(Map.of(result.idempotencyKey(), result));
+    }
+
+    @Test
+    void committedResultIsReadFromTheDatabase() {
+        ProtocolUpload.Result result = result(2L);
+        transactionTemplate.executeWithoutResult(status ->
+            idempotencyKeyRepository.saveAndFlush(
+                new IdempotencyKey().key(result.idempotencyKey()).response(json(result)).createdAt(Instant.now())
+            )
+        );
+
+        assertThat(idempotencyStore.find(List.of(result.idempotencyKey()))).containsEntry(result.idempotencyKey(), result);
+    }
+
+    @Test
+    void rolledBackResultIsNotFound() {
+        ProtocolUpload.Result result = result(3L);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            idempotencyStore.remember(List.of(result));
+            status.setRollbackOnly();
+        });
+
+        assertThat(idempotencyStore.find(List.of(result.idempotencyKey()))).isEmpty();
+    }
+
+    @Test
+    void takenKeyCannotBeRememberedAgain() {
+        ProtocolUpload.Result result = result(4L);
+        transactionTemplate.executeWithoutResult(status -> idempotencyStore.remember(List.of(result)));
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> idempotencyStore.remember(List.of(result))))
+            .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(idempotencyStore.find(List.of(result.idempotencyKey()))).containsEntry(result.idempotencyKey(), result);
+    }
+
+    @Test
+    void purgeForgetsKeysOlderThanTheRetention() {
+        ProtocolUpload.Result expired = result(5L);
+        ProtocolUpload.Result recent = result(6L);
+        transactionTemplate.executeWithoutResult(status -> {
+            idempotencyKeyRepository.save(
+                new IdempotencyKey()
+                    .key(expired.idempotencyKey())
+                    .response(json(expired))
+                    .createdAt(Instant.now().minus(Duration.ofDays(8)))
+            );
+            idempotencyKeyRepository.saveAndFlush(
+                new IdempotencyKey().key(recent.idempotencyKey()).response(json(recent)).createdAt(Instant.now())
+            );
+        });
+        // loads both keys into memory as well
+        assertThat(idempotencyStore.find(List.of(expired.idempotencyKey(), recent.idempotencyKey()))).hasSize(2);
+
+        idempotencyStore.purge();
+
+        assertThat(idempotencyStore.find(List.of(expired.idempotencyKey(), recent.idempotencyKey())))
+            .containsOnlyKeys(recent.idempotencyKey());
+        assertThat(idempotencyKeyRepository.findById(expired.idempotencyKey())).isEmpty();
+    }
+
+    private ProtocolUpload.Result result(long protocolId) {
+        return new ProtocolUpload.Result(key(), protocolId, null, null, List.of(), false);
+    }
+
+    private String key() {
+        String key = UUID.randomUUID().toString();
+        keys.add(key);
+        return key;
+    }
+
+    private String json(ProtocolUpload.Result result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}